@@ -11,9 +11,12 @@ import HeroSearch from "./components/HeroSearch";
 import RecommendedItems from "./components/RecommendedItems";
 import TimedTimeline, { type Phase } from "./components/TimedTimeline";
 import SelectedBuildPanel from "./components/SelectedBuildPanel";
+import BuildVariants from "./components/BuildVariants";
 import { buildSyntheticTimings } from "./lib/buildSyntheticTimings";
 import { buildPhaseLookup } from "./lib/buildPhaseLookup";
 import { useIsMobile } from "./lib/useIsMobile";
+import { toBuildVariants, type VariantsResponse } from "./lib/useBuildVariants";
+import type { Chain } from "./lib/inferOrder";
 
 /** ---------- types ---------- */
 type PhaseKey = "start_game_items" | "early_game_items" | "mid_game_items" | "late_game_items";
@@ -42,49 +45,38 @@ function toUiError(status?: number): UiError {
     return { title: "Can’t reach the server", message: "We couldn’t connect to the API.", hint: "Ensure the backend is running and CORS/dev proxy is set." };
 }
 
-async function fetchItemPopularity(heroSlug: string, opts: { timeoutMs?: number } = {}): Promise<ItemPopularityResponse> {
+type Timings = Record<string, { minute: number; uses: number }>;
+type SectionName = "popularity" | "timings" | "variants" | "recommendations" | "counters";
+type HeroPageResponse = {
+    hero: { id: number; slug: string; name: string };
+    enemy?: string;
+    sections: Record<SectionName, { status: "ok" | "timeout" | "error" | "skipped"; ms?: number }>;
+    popularity?: ItemPopularityResponse;
+    timings?: Timings;
+    variants?: VariantsResponse;
+    recommendations?: Partial<Record<PhaseStr, Record<string, number>>>;
+};
+
+/** One round trip per view: popularity, timings, variants (+ recommendations when an enemy is given). */
+async function fetchHeroPage(heroSlug: string, enemySlug?: string, opts: { timeoutMs?: number } = {}): Promise<HeroPageResponse> {
     const controller = new AbortController();
     const t = setTimeout(() => controller.abort(), opts.timeoutMs ?? 15000);
-    const url = `${API_BASE}/opendota/data/heroes/${encodeURIComponent(heroSlug)}/itemPopularity?named=true`;
+    const params = new URLSearchParams({ top: "6" });
+    if (enemySlug) params.set("enemy", enemySlug);
+    const url = `${API_BASE}/opendota/heroes/${encodeURIComponent(heroSlug)}/page?${params}`;
 
     try {
         const res = await fetch(url, { signal: controller.signal, credentials: "include" });
         clearTimeout(t);
         if (!res.ok) throw toUiError(res.status);
         const text = await res.text();
-        const looksJson = text.trim().startsWith("{") || text.trim().startsWith("[");
+        const looksJson = text.trim().startsWith("{");
         if (!looksJson) throw { title: "Unexpected response format", message: "The server returned non-JSON content.", hint: text.slice(0, 240) } as UiError;
-        const obj = JSON.parse(text) as Partial<ItemPopularityResponse>;
-        const ok =
-            obj && typeof obj === "object" &&
-            "start_game_items" in obj &&
-            "early_game_items" in obj &&
-            "mid_game_items" in obj &&
-            "late_game_items" in obj;
-        if (!ok) throw { title: "Unexpected JSON shape", message: "Missing expected item popularity sections." } as UiError;
-        return obj as ItemPopularityResponse;
-    } catch (e: any) {
-        clearTimeout(t);
-        if (e?.title) throw e as UiError;
-        if (e?.name === "AbortError") throw { title: "Request timed out", message: "The server took too long to respond." } as UiError;
-        throw toUiError();
-    }
-}
-
-async function fetchRecommendations(allySlug: string, enemySlug: string, phaseKey: PhaseStr, top = 6): Promise<RecommendResponse> {
-    const controller = new AbortController();
-    const t = setTimeout(() => controller.abort(), 15000);
-    const url = `${API_BASE}/opendota/recommendation/recommend?ally=${encodeURIComponent(allySlug)}&enemy=${encodeURIComponent(enemySlug)}&phase=${encodeURIComponent(phaseKey)}&top=${top}`;
-
-    try {
-        const res = await fetch(url, { signal: controller.signal, credentials: "include" });
-        clearTimeout(t);
-        if (!res.ok) throw toUiError(res.status);
-        const json = (await res.json()) as RecommendResponse;
-        if (!json || typeof json !== "object" || !json.recommendations) {
-            throw { title: "Unexpected JSON shape", message: "Recommendations payload missing." } as UiError;
+        const obj = JSON.parse(text) as HeroPageResponse;
+        if (!obj || typeof obj !== "object" || !obj.sections) {
+            throw { title: "Unexpected JSON shape", message: "Missing hero page sections." } as UiError;
         }
-        return json;
+        return obj;
     } catch (e: any) {
         clearTimeout(t);
         if (e?.title) throw e as UiError;
@@ -93,11 +85,16 @@ async function fetchRecommendations(allySlug: string, enemySlug: string, phaseKe
     }
 }
 
-async function fetchTimingsFromBackend(heroSlug: string): Promise<Record<string, { minute: number; uses: number }>> {
-    const url = `${API_BASE}/opendota/heroes/${encodeURIComponent(heroSlug)}/itemTimings?minCount=8&limit=60`;
-    const res = await fetch(url, { credentials: "include" });
-    if (!res.ok) return {};
-    return res.json();
+function popularityOf(page: HeroPageResponse): ItemPopularityResponse {
+    const obj = page.popularity;
+    const ok =
+        page.sections.popularity?.status === "ok" && obj &&
+        "start_game_items" in obj &&
+        "early_game_items" in obj &&
+        "mid_game_items" in obj &&
+        "late_game_items" in obj;
+    if (!ok) throw { title: "Service problem", message: "Item popularity is unavailable right now.", hint: "Please try again in a moment." } as UiError;
+    return obj as ItemPopularityResponse;
 }
 
 /** ---------- utils ---------- */
@@ -130,10 +127,12 @@ export default function App() {
     const [err, setErr] = useState<UiError | null>(null);
 
     // timings
-    const [timings, setTimings] = useState<Record<string, { minute: number; uses: number }> | null>(null);
-    const [timingLoading, setTimingLoading] = useState(false);
+    const [timings, setTimings] = useState<Timings | null>(null);
     const [timingFrom, setTimingFrom] = useState<"explorer" | "synthetic" | "none">("none");
 
+    // build variants (server clustering)
+    const [variants, setVariants] = useState<{ variants: Chain[]; shares: number[] }>({ variants: [], shares: [] });
+
     // recommendations (all phases)
     const [recLoading, setRecLoading] = useState(false);
     const [recErr, setRecErr] = useState<UiError | null>(null);
@@ -165,7 +164,20 @@ export default function App() {
     const { getItemIcon, ready: iconsReady } = useItemIcons();
     const canSearch = useMemo(() => debouncedSlug.trim().length > 0, [debouncedSlug]);
 
-    /** load popularity + timings */
+    /** apply a hero page: popularity, then explorer timings or a phase-based estimate, then variants */
+    const applyPage = (page: HeroPageResponse) => {
+        const json = popularityOf(page);
+        setData(json);
+        const real = page.sections.timings?.status === "ok" ? page.timings : undefined;
+        if (real && Object.keys(real).length) { setTimings(real); setTimingFrom("explorer"); }
+        else { setTimings(buildSyntheticTimings(json, 10)); setTimingFrom("synthetic"); }
+        setVariants(toBuildVariants(page.variants));
+    };
+    const clearPage = () => {
+        setData(null); setTimings(null); setTimingFrom("none"); setVariants({ variants: [], shares: [] });
+    };
+
+    /** load popularity + timings + variants */
     const runPopularity = async () => {
         if (!canSearch) return;
         setView("popularity");
@@ -174,23 +186,9 @@ export default function App() {
         setLoading(true);
         setErr(null);
         try {
-            const json = await fetchItemPopularity(debouncedSlug, { timeoutMs: 15000 });
-            setData(json);
-            setTimingLoading(true);
-            try {
-                const real = await fetchTimingsFromBackend(debouncedSlug);
-                if (real && Object.keys(real).length) {
-                    setTimings(real); setTimingFrom("explorer");
-                } else {
-                    setTimings(buildSyntheticTimings(json, 10)); setTimingFrom("synthetic");
-                }
-            } catch {
-                setTimings(buildSyntheticTimings(json, 10)); setTimingFrom("synthetic");
-            } finally {
-                setTimingLoading(false);
-            }
+            applyPage(await fetchHeroPage(debouncedSlug, undefined, { timeoutMs: 15000 }));
         } catch (e) {
-            setData(null); setErr(e as UiError); setTimings(null); setTimingFrom("none");
+            clearPage(); setErr(e as UiError);
         } finally {
             setLoading(false);
         }
@@ -199,29 +197,15 @@ export default function App() {
     // auto load popularity view
     useEffect(() => {
         if (view !== "popularity") return;
-        if (!canSearch) { setData(null); setErr(null); setTimings(null); setTimingFrom("none"); return; }
+        if (!canSearch) { clearPage(); setErr(null); return; }
         let cancelled = false;
         (async () => {
             setLoading(true); setErr(null);
             try {
-                const json = await fetchItemPopularity(debouncedSlug, { timeoutMs: 15000 });
-                if (!cancelled) {
-                    setData(json);
-                    setTimingLoading(true);
-                    try {
-                        const real = await fetchTimingsFromBackend(debouncedSlug);
-                        if (!cancelled) {
-                            if (real && Object.keys(real).length) { setTimings(real); setTimingFrom("explorer"); }
-                            else { setTimings(buildSyntheticTimings(json, 10)); setTimingFrom("synthetic"); }
-                        }
-                    } catch {
-                        if (!cancelled) { setTimings(buildSyntheticTimings(json, 10)); setTimingFrom("synthetic"); }
-                    } finally {
-                        if (!cancelled) setTimingLoading(false);
-                    }
-                }
+                const page = await fetchHeroPage(debouncedSlug, undefined, { timeoutMs: 15000 });
+                if (!cancelled) applyPage(page);
             } catch (e) {
-                if (!cancelled) { setErr(e as UiError); setData(null); setTimings(null); setTimingFrom("none"); }
+                if (!cancelled) { setErr(e as UiError); clearPage(); }
             } finally {
                 if (!cancelled) setLoading(false);
             }
@@ -236,15 +220,17 @@ export default function App() {
         (async () => {
             setRecErr(null); setRecLoading(true); setRecAll({});
             try {
-                const results = await Promise.all(
-                    PHASES.map(async (p) => {
-                        const r = await fetchRecommendations(querySlug, enemySlug, p, 6);
-                        return [p, r] as const;
-                    })
-                );
+                const page = await fetchHeroPage(querySlug, enemySlug);
+                const recs = page.recommendations;
+                if (page.sections.recommendations?.status !== "ok" || !recs) {
+                    throw { title: "Service problem", message: "Recommendations are unavailable right now.", hint: "Please try again in a moment." } as UiError;
+                }
                 if (!aborted) {
                     const next: Partial<Record<PhaseStr, RecommendResponse>> = {};
-                    for (const [p, r] of results) next[p] = r;
+                    for (const p of PHASES) {
+                        const r = recs[p];
+                        if (r) next[p] = { ally: querySlug, enemy: page.enemy ?? enemySlug, phase: p, recommendations: r };
+                    }
                     setRecAll(next);
                 }
             } catch (e) {
@@ -287,8 +273,7 @@ export default function App() {
                         disabled={recLoading}
                         onClick={() => {
                             setView("recommend");
-                            setErr(null); setData(null);
-                            setTimings(null); setTimingFrom("none");
+                            setErr(null); clearPage();
                         }}
                     >
                         Recommend vs Enemy
@@ -354,15 +339,26 @@ export default function App() {
                                                 isSelected={(phase, name) => isChosen(phase, name)}
                                             />
                                         )}
-                                        {!timings && timingLoading && (
-                                            <div className="text-center py-3" style={{ color: "#9ca3af" }}>Loading timings…</div>
-                                        )}
                                     </Card.Body>
                                 </Card>
                             </Col>
                         </Row>
                     )}
 
+                    {/* build variants (server clustering, falls back to client inference) */}
+                    {data && iconsReady && (
+                        <Row className="justify-content-center">
+                            <Col xs={12} lg={10}>
+                                <BuildVariants
+                                    data={data}
+                                    getIconUrl={getItemIcon}
+                                    variants={variants.variants}
+                                    shares={variants.shares}
+                                />
+                            </Col>
+                        </Row>
+                    )}
+
                     {/* selected build */}
                     {iconsReady && (
                         <Row className="justify-content-center">
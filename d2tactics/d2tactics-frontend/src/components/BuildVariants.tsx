@@ -1,5 +1,5 @@
 import { useMemo } from "react";
-import type { ItemPopularityResponse } from "../lib/inferOrder";
+import type { Chain, ItemPopularityResponse } from "../lib/inferOrder";
 import { inferVariants } from "../lib/inferVariants";
 
 type Props = {
@@ -8,6 +8,8 @@ type Props = {
     title?: string;
     topPerPhase?: number;
     maxVariants?: number;
+    variants?: Chain[];   // server-side variants (useBuildVariants); inferred from data when empty
+    shares?: number[];    // share of matches per server variant
 };
 
 const PHASE_LABELS: Record<keyof ItemPopularityResponse, string> = {
@@ -23,10 +25,14 @@ export default function BuildVariants({
                                           title = "Build Variants",
                                           topPerPhase = 6,
                                           maxVariants = 3,
+                                          variants: serverVariants,
+                                          shares,
                                       }: Props) {
     const variants = useMemo(
-        () => inferVariants(data, topPerPhase, maxVariants),
-        [data, topPerPhase, maxVariants]
+        () => serverVariants?.length
+            ? serverVariants.slice(0, Math.max(1, maxVariants))
+            : inferVariants(data, topPerPhase, maxVariants),
+        [serverVariants, data, topPerPhase, maxVariants]
     );
 
     return (
@@ -57,6 +63,7 @@ export default function BuildVariants({
                     >
                         <div style={{ fontSize: 14, color: "#cbd5e1", marginBottom: 10 }}>
                             Variant {i + 1}
+                            {serverVariants?.length && shares?.[i] != null ? ` · ${Math.round(shares[i] * 100)}% of games` : ""}
                         </div>
 
                         {/* 4-column phase grid */}
@@ -1,5 +1,5 @@
-import { useEffect, useMemo, useRef, useState } from "react";
-import { useHeroList, normHeroKey, type Hero } from "../lib/useHeroList";
+import { useEffect, useRef, useState } from "react";
+import { useHeroSearch, normHeroKey, type Hero } from "../lib/useHeroList";
 
 type HeroSearchProps = {
     value: string;                       // current visible text in the input
@@ -9,30 +9,14 @@ type HeroSearchProps = {
 };
 
 export default function HeroSearch({ value, onChange, onSelect, placeholder }: HeroSearchProps) {
-    const { heroes, loading } = useHeroList();
     const [open, setOpen] = useState(false);
     const [active, setActive] = useState(0);
     const boxRef = useRef<HTMLDivElement>(null);
 
     const q = value.trim().toLowerCase();
 
-    const suggestions = useMemo(() => {
-        if (!q) return heroes.slice(0, 10);
-        const starts = heroes.filter(h =>
-            h.display.toLowerCase().startsWith(q) ||
-            h.slug.startsWith(q) ||
-            h.key.startsWith(normHeroKey(q)) ||
-            h.aliases.some(a => a.startsWith(q))
-        );
-        const includes = heroes.filter(h =>
-                !starts.includes(h) && (
-                    h.display.toLowerCase().includes(q) ||
-                    h.slug.includes(q) ||
-                    h.aliases.some(a => a.includes(q))
-                )
-        );
-        return [...starts, ...includes].slice(0, 12);
-    }, [q, heroes]);
+    // matching (prefix, aliases like "qop", typos) happens server-side
+    const { heroes: suggestions, loading } = useHeroSearch(value);
 
     useEffect(() => {
         function onDoc(e: MouseEvent) {
@@ -72,9 +56,7 @@ export default function HeroSearch({ value, onChange, onSelect, placeholder }: H
                             setOpen(false);
                         } else if (q) {
                             // Try to map free text to a hero by aliases; pick first best match
-                            const best = suggestions[0] ?? heroes.find(h =>
-                                h.key === normHeroKey(q) || h.slug === q
-                            );
+                            const best = suggestions[0];
                             if (best) {
                                 onSelect(best.slug);
                                 onChange(best.display);
@@ -119,7 +101,7 @@ export default function HeroSearch({ value, onChange, onSelect, placeholder }: H
                         overflowY: "auto",
                     }}
                 >
-                    {loading && (
+                    {loading && suggestions.length === 0 && (
                         <div style={{ padding: 10, color: "#9ca3af", textAlign: "center" }}>
                             Loading heroes…
                         </div>
@@ -131,7 +113,7 @@ export default function HeroSearch({ value, onChange, onSelect, placeholder }: H
                         </div>
                     )}
 
-                    {!loading && suggestions.map((h: Hero, i: number) => {
+                    {suggestions.map((h: Hero, i: number) => {
                         const isActive = i === active;
                         return (
                             <button
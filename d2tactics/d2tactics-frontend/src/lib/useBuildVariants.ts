@@ -0,0 +1,57 @@
+import { useEffect, useState } from "react";
+import type { Chain, PhaseKey } from "./inferOrder";
+
+const API_BASE = import.meta.env.VITE_API_BASE ?? "";
+
+type VariantItem = { key: string; name: string; share: number; position: number; minute: number };
+type VariantRow = { matches: number; share: number; items: VariantItem[] };
+export type VariantsResponse = { heroId: number; matches: number; variants: VariantRow[] };
+
+// median purchase minute -> timeline phase
+function phaseOf(minute: number): PhaseKey {
+    if (minute <= 0) return "start_game_items";
+    if (minute < 15) return "early_game_items";
+    if (minute < 30) return "mid_game_items";
+    return "late_game_items";
+}
+
+function toChain(v: VariantRow): Chain {
+    return v.items.map((it, i) => ({
+        phase: phaseOf(it.minute),
+        name: it.name,
+        count: Math.round(it.share * v.matches),
+        rank: i,
+        stepIndex: i,
+    }));
+}
+
+/** Server variants as timeline chains plus the share of matches each one covers. */
+export function toBuildVariants(json: VariantsResponse | undefined): { variants: Chain[]; shares: number[] } {
+    const rows = json?.variants ?? [];
+    return { variants: rows.map(toChain), shares: rows.map((v) => v.share) };
+}
+
+/** Server-side build variants (co-occurrence clustering of public purchase logs); empty until loaded. */
+export function useBuildVariants(heroSlug: string, max = 3) {
+    const [variants, setVariants] = useState<Chain[]>([]);
+    const [shares, setShares] = useState<number[]>([]);
+    const [loading, setLoading] = useState(false);
+
+    useEffect(() => {
+        if (!heroSlug) { setVariants([]); setShares([]); return; }
+        const ctrl = new AbortController();
+        setLoading(true);
+        fetch(`${API_BASE}/opendota/heroes/${encodeURIComponent(heroSlug)}/buildVariants?max=${max}`, { signal: ctrl.signal })
+            .then((res) => (res.ok ? (res.json() as Promise<VariantsResponse>) : { heroId: 0, matches: 0, variants: [] }))
+            .then((json) => {
+                const v = toBuildVariants(json);
+                setVariants(v.variants);
+                setShares(v.shares);
+            })
+            .catch(() => { if (!ctrl.signal.aborted) { setVariants([]); setShares([]); } })
+            .finally(() => { if (!ctrl.signal.aborted) setLoading(false); });
+        return () => ctrl.abort();
+    }, [heroSlug, max]);
+
+    return { variants, shares, loading };
+}
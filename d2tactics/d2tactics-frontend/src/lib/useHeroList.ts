@@ -8,52 +8,70 @@ export type Hero = {
     aliases: string[];    // matching helpers
 };
 
-const OPEN_DOTA = "https://api.opendota.com/api";
+const API_BASE = import.meta.env.VITE_API_BASE ?? "";
+
+type HeroRow = { id: number; slug: string; name: string };
 
 // "Queen of Pain" -> "queenofpain" (no spaces/punct) — for MATCHING ONLY
 export function normHeroKey(s: string): string {
     return s.toLowerCase().replace(/[^a-z0-9]/g, "");
 }
 
+function toHero(h: HeroRow): Hero {
+    const key = normHeroKey(h.name);
+    return { id: h.id, slug: h.slug, key, display: h.name, aliases: Array.from(new Set([key, h.slug])) };
+}
+
+async function fetchHeroes(q: string, limit: number, signal?: AbortSignal): Promise<Hero[]> {
+    const params = new URLSearchParams({ q, limit: String(limit) });
+    const res = await fetch(`${API_BASE}/opendota/heroes/search?${params}`, { signal });
+    if (!res.ok) throw new Error(`HTTP ${res.status}`);
+    return ((await res.json()) as HeroRow[]).map(toHero);
+}
+
+async function fetchHeroManifest(signal?: AbortSignal): Promise<Hero[]> {
+    const res = await fetch(`${API_BASE}/opendota/manifest/heroes`, { signal });
+    if (!res.ok) throw new Error(`HTTP ${res.status}`);
+    return ((await res.json()) as HeroRow[]).map(toHero);
+}
+
+// full list, alphabetical (backend hero manifest, ETag-cached by the browser)
 export function useHeroList() {
     const [heroes, setHeroes] = useState<Hero[]>([]);
     const [loading, setLoading] = useState(true);
     const [err, setErr] = useState<string | null>(null);
 
     useEffect(() => {
-        let cancelled = false;
-        (async () => {
-            setLoading(true);
-            setErr(null);
-            try {
-                const res = await fetch(`${OPEN_DOTA}/heroes`);
-                if (!res.ok) throw new Error(`HTTP ${res.status}`);
-                const json = (await res.json()) as Array<{ id:number; name:string; localized_name:string }>;
-
-                const mapped: Hero[] = json.map(h => {
-                    // "npc_dota_hero_nyx_assassin" -> "nyx_assassin"
-                    const slug = (h.name || "").replace("npc_dota_hero_", "");
-                    const display = h.localized_name || slug.replace(/_/g, " ");
-                    const key = normHeroKey(display);
-                    const aliases: string[] = [];
-                    aliases.push(
-                        key,                          // nyxassassin
-                        display.toLowerCase(),        // "nyx assassin"
-                        display.toLowerCase().replace(/\s+/g, "-"), // nyx-assassin
-                        slug                          // nyx_assassin
-                    );
-                    return { id: h.id, slug, key, display, aliases: Array.from(new Set(aliases)) };
-                });
-
-                if (!cancelled) setHeroes(mapped);
-            } catch (e:any) {
-                if (!cancelled) setErr(e?.message ?? "Failed to load heroes");
-            } finally {
-                if (!cancelled) setLoading(false);
-            }
-        })();
-        return () => { cancelled = true; };
+        const ctrl = new AbortController();
+        setLoading(true);
+        setErr(null);
+        fetchHeroManifest(ctrl.signal)
+            .then(setHeroes)
+            .catch((e: any) => { if (!ctrl.signal.aborted) setErr(e?.message ?? "Failed to load heroes"); })
+            .finally(() => { if (!ctrl.signal.aborted) setLoading(false); });
+        return () => ctrl.abort();
     }, []);
 
     return { heroes, loading, err };
 }
+
+// server-side autocomplete (prefix/alias/typo matching); debounced, stale requests aborted
+export function useHeroSearch(query: string, limit = 12, debounceMs = 120) {
+    const [heroes, setHeroes] = useState<Hero[]>([]);
+    const [loading, setLoading] = useState(false);
+    const [err, setErr] = useState<string | null>(null);
+
+    useEffect(() => {
+        const ctrl = new AbortController();
+        setLoading(true);
+        const t = setTimeout(() => {
+            fetchHeroes(query.trim(), limit, ctrl.signal)
+                .then((hs) => { setHeroes(hs); setErr(null); })
+                .catch((e: any) => { if (!ctrl.signal.aborted) setErr(e?.message ?? "Failed to search heroes"); })
+                .finally(() => { if (!ctrl.signal.aborted) setLoading(false); });
+        }, query.trim() ? debounceMs : 0);
+        return () => { clearTimeout(t); ctrl.abort(); };
+    }, [query, limit, debounceMs]);
+
+    return { heroes, loading, err };
+}
@@ -1,30 +1,23 @@
 // src/lib/useItemIcons.ts
 import { useEffect, useMemo, useState } from "react";
 
-// Primary base for /constants/items "img" paths
+// Primary base for the manifest's "img" paths
 const STEAM_CDN = "https://cdn.cloudflare.steamstatic.com";
 // Fallback classic path (older style)
 const CLASSIC_ITEMS_CDN = "https://cdn.cloudflare.steamstatic.com/apps/dota2/images/items";
 
-// Fetch OpenDota constants and build name -> url map
+const API_BASE = import.meta.env.VITE_API_BASE ?? "";
+
+// Backend item manifest: { <display name>: <img path> }, gzipped + ETag-cached (~90% smaller than /constants/items)
 async function fetchItemConstants(): Promise<Record<string, string>> {
-    const res = await fetch("https://api.opendota.com/api/constants/items");
-    if (!res.ok) throw new Error(`Failed to fetch constants: ${res.status}`);
-    const json = await res.json();
+    const res = await fetch(`${API_BASE}/opendota/manifest/items`);
+    if (!res.ok) throw new Error(`Failed to fetch item manifest: ${res.status}`);
+    const json = (await res.json()) as Record<string, string>;
 
-    // json is { <shortname>: { dname, img, ... }, ... }
     const map: Record<string, string> = {};
-
-    for (const key of Object.keys(json)) {
-        const item = json[key];
-        const dname = item?.dname as string | undefined;       // display name, e.g. "Sage's Mask"
-        const imgPath = item?.img as string | undefined;       // e.g. "/apps/dota2/images/dota_react/items/quelling_blade.png"
-        if (!dname || !imgPath) continue;
-
-        // normalize display name as key (exact match)
-        map[dname] = `${STEAM_CDN}${imgPath}`;
+    for (const [dname, imgPath] of Object.entries(json)) {
+        map[dname] = `${STEAM_CDN}${imgPath}`;   // e.g. "/apps/dota2/images/dota_react/items/quelling_blade.png"
     }
-
     return map;
 }
 
@@ -39,7 +32,7 @@ function slugify(name: string): string {
 
 /**
  * Hook that returns a stable getItemIcon(name) function.
- * It tries OpenDota constants first; if missing, falls back to classic slug path.
+ * It tries the backend item manifest first; if missing, falls back to classic slug path.
  */
 export function useItemIcons() {
     const [byName, setByName] = useState<Record<string, string>>({});
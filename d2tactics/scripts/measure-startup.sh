@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+# Startup time and RSS of the plain fat jar vs. AOT + AppCDS vs. native image.
+#
+#   ./mvnw -DskipTests package                    # target/d2tactics-*.jar        (jar)
+#   ./mvnw -Pappcds -DskipTests verify            # target/cds/ + application.jsa (cds)
+#   ./mvnw -Pnative -DskipTests native:compile    # target/d2tactics              (native, optional)
+#   scripts/measure-startup.sh [runs]
+#
+# Each variant is started RUNS times (default 5) with warmup disabled and no upstream traffic.
+# "ready" is launch -> first 200 from /actuator/health/readiness, "spring" is what Spring Boot logs
+# as "Started ... in", RSS is VmRSS once ready. Medians are printed.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS="${1:-5}"
+PORT="${PORT:-18080}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+JAR="$(ls target/d2tactics-*.jar 2>/dev/null | grep -v original | head -n1 || true)"
+COMMON=(--server.port="$PORT" --d2tactics.warmup.enabled=false --opendota.base-url=http://127.0.0.1:9)
+
+now_ms() { date +%s%3N; }
+
+median() { sort -n | awk '{a[NR]=$1} END {print (NR%2 ? a[(NR+1)/2] : (a[NR/2]+a[NR/2+1])/2)}'; }
+
+run_once() { # args: command... ; prints "ready_ms spring_ms rss_kb"
+    local log; log="$(mktemp)"
+    local t0; t0="$(now_ms)"
+    "$@" "${COMMON[@]}" >"$log" 2>&1 &
+    local pid=$!
+    local ready=""
+    for _ in $(seq 1 600); do
+        if curl -fs "http://127.0.0.1:$PORT/actuator/health/readiness" >/dev/null 2>&1; then
+            ready=$(( $(now_ms) - t0 )); break
+        fi
+        kill -0 "$pid" 2>/dev/null || break
+        sleep 0.05
+    done
+    local rss; rss="$(awk '/VmRSS/ {print $2}' "/proc/$pid/status" 2>/dev/null || echo 0)"
+    local spring; spring="$(sed -nE 's/.*Started [A-Za-z0-9_]+ in ([0-9.]+) seconds.*/\1/p' "$log" | head -n1 || true)"
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    if [[ -z "$ready" ]]; then
+        echo "startup failed, log: $log" >&2
+        return 1
+    fi
+    rm -f "$log"
+    echo "$ready $(awk -v s="${spring:-0}" 'BEGIN {printf "%d", s * 1000}') ${rss:-0}"
+}
+
+measure() { # args: label command...
+    local label="$1"; shift
+    local ready=() spring=() rss=()
+    for _ in $(seq 1 "$RUNS"); do
+        read -r r s m < <(run_once "$@")
+        ready+=("$r"); spring+=("$s"); rss+=("$m")
+    done
+    printf '%-8s ready %6s ms   spring %6s ms   rss %7s MB\n' "$label" \
+        "$(printf '%s\n' "${ready[@]}" | median)" \
+        "$(printf '%s\n' "${spring[@]}" | median)" \
+        "$(printf '%s\n' "${rss[@]}" | median | awk '{printf "%.1f", $1 / 1024}')"
+}
+
+echo "runs per variant: $RUNS"
+if [[ -n "$JAR" ]]; then
+    measure jar "$JAVA" -jar "$JAR"
+else
+    echo "jar      (skipped: run ./mvnw -DskipTests package)"
+fi
+if [[ -f target/cds/application.jsa ]]; then
+    # started from target/cds: the archive only applies to the classpath it was trained with
+    measure cds bash -c 'cd target/cds && exec "$0" -XX:SharedArchiveFile=application.jsa --add-modules=jdk.incubator.vector -Dspring.aot.enabled=true -jar "$1" "${@:2}"' \
+        "$JAVA" "$(basename "${JAR:-d2tactics-0.0.1-SNAPSHOT.jar}")"
+else
+    echo "cds      (skipped: run ./mvnw -Pappcds -DskipTests verify)"
+fi
+if [[ -x target/d2tactics ]]; then
+    measure native target/d2tactics
+else
+    echo "native   (skipped: run ./mvnw -Pnative -DskipTests native:compile with GraalVM)"
+fi
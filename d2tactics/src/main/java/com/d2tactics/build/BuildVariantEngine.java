@@ -0,0 +1,226 @@
+package com.d2tactics.build;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Build variants for one hero from per-match purchase logs.
+ *
+ *   1) per match, the first purchase of each core item (the caller's filter), at most {@code maxItemsPerMatch}
+ *   2) the 64 most frequent items get an index; a match becomes its item indices in purchase order
+ *   3) co-occurrence matrix: co[i][j] = matches that bought both i and j
+ *   4) anchors: items that rarely appear together with a stronger anchor (overlap co / min(support)
+ *      below {@code exclusivity}); each anchor seeds one variant, e.g. Radiance vs. Battle Fury. An item
+ *      bought in more than {@code coreShare} of matches is part of every build (boots) unless some
+ *      other item is exclusive with it: then it is the dominant build's signature, e.g. Radiance in 80%
+ *   5) a few rounds of moving each match to the variant whose item profile it overlaps most (soft Jaccard)
+ *   6) per variant, items bought in at least {@code minItemShare} of its matches, ordered by mean position
+ *
+ * Pure computation, no I/O; callers run it on the CPU pool.
+ */
+public final class BuildVariantEngine {
+
+    private static final int MAX_ITEMS = 64; // bounds the co-occurrence matrix
+    private static final int ROUNDS = 5;
+
+    public record Purchase(String key, int timeSeconds) {
+    }
+
+    /** One item of a variant: share of the variant's matches, mean position in their build, median minute. */
+    public record Step(String key, double share, double avgPosition, double medianMinute) {
+    }
+
+    public record Variant(int matches, double share, List<Step> steps) {
+    }
+
+    public record Params(int maxVariants, int maxItemsPerMatch, double coreShare, double exclusivity,
+                         double minItemShare, double minVariantShare) {
+
+        public static Params defaults(int maxVariants) {
+            return new Params(maxVariants, 8, 0.6, 0.25, 0.35, 0.05);
+        }
+    }
+
+    /** Input matches after filtering: item indices in purchase order and the minute of each purchase. */
+    private record Match(int[] items, double[] minutes) {
+    }
+
+    private BuildVariantEngine() {
+    }
+
+    /** Variants ordered by the number of matches they cover; empty when there is nothing to cluster. */
+    public static List<Variant> infer(List<List<Purchase>> logs, Predicate<String> core, Params p) {
+        // 1) first purchase of each core item, in order
+        List<LinkedHashMap<String, Integer>> firsts = new ArrayList<>(logs.size());
+        Map<String, Integer> freq = new HashMap<>();
+        for (List<Purchase> log : logs) {
+            LinkedHashMap<String, Integer> first = new LinkedHashMap<>();
+            for (Purchase pu : log) {
+                if (first.size() >= p.maxItemsPerMatch()) break;
+                if (core.test(pu.key())) first.putIfAbsent(pu.key(), pu.timeSeconds());
+            }
+            if (first.size() < 2) continue;
+            firsts.add(first);
+            first.keySet().forEach(k -> freq.merge(k, 1, Integer::sum));
+        }
+        if (firsts.isEmpty()) return List.of();
+
+        // 2) index per frequent item
+        List<String> keys = freq.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_ITEMS)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) index.put(keys.get(i), i);
+
+        List<Match> matches = new ArrayList<>(firsts.size());
+        for (LinkedHashMap<String, Integer> first : firsts) {
+            int[] items = new int[first.size()];
+            double[] minutes = new double[first.size()];
+            int n = 0;
+            for (Map.Entry<String, Integer> e : first.entrySet()) {
+                Integer i = index.get(e.getKey());
+                if (i == null) continue;
+                items[n] = i;
+                minutes[n++] = e.getValue() / 60.0;
+            }
+            if (n >= 2) matches.add(new Match(Arrays.copyOf(items, n), Arrays.copyOf(minutes, n)));
+        }
+        int total = matches.size();
+        if (total == 0) return List.of();
+
+        // 3) co-occurrence
+        int m = keys.size();
+        int[] support = new int[m];
+        int[][] co = new int[m][m];
+        for (Match match : matches) {
+            for (int i : match.items()) {
+                support[i]++;
+                for (int j : match.items()) if (j > i) { co[i][j]++; co[j][i]++; }
+            }
+        }
+
+        // 4) anchors, strongest first; indices are already ordered by support
+        List<Integer> anchors = new ArrayList<>();
+        for (int i = 0; i < m && anchors.size() < p.maxVariants(); i++) {
+            if (support[i] < p.minVariantShare() * total) continue;
+            boolean exclusive = true;
+            for (int a : anchors) {
+                if (!exclusive(i, a, support, co, p)) { exclusive = false; break; }
+            }
+            if (exclusive && (support[i] <= p.coreShare() * total || hasAlternative(i, support, co, p, total))) {
+                anchors.add(i);
+            }
+        }
+
+        // a single anchor has no alternative: everything is one variant
+        int k = Math.max(1, anchors.size());
+        int[] assign = new int[total];
+        for (int x = 0; x < total && k > 1; x++) {
+            assign[x] = -1;
+            for (int item : matches.get(x).items()) { // earliest anchor bought decides
+                int a = anchors.indexOf(item);
+                if (a >= 0) { assign[x] = a; break; }
+            }
+        }
+
+        // 5) refine
+        for (int round = 0; round < ROUNDS && k > 1; round++) {
+            double[][] profile = profiles(matches, assign, k, m);
+            double[] mass = new double[k];
+            for (int c = 0; c < k; c++) for (double v : profile[c]) mass[c] += v;
+            boolean changed = false;
+            for (int x = 0; x < total; x++) {
+                Match match = matches.get(x);
+                int best = assign[x];
+                double bestScore = best >= 0 ? softJaccard(match, profile[best], mass[best]) : -1;
+                for (int c = 0; c < k; c++) {
+                    double s = softJaccard(match, profile[c], mass[c]);
+                    if (s > bestScore) { bestScore = s; best = c; }
+                }
+                if (best != assign[x]) { assign[x] = best; changed = true; }
+            }
+            if (!changed) break;
+        }
+
+        // 6) describe
+        List<Variant> out = new ArrayList<>();
+        for (int c = 0; c < k; c++) {
+            List<Match> members = new ArrayList<>();
+            for (int x = 0; x < total; x++) if (assign[x] == c) members.add(matches.get(x));
+            if (members.isEmpty() || members.size() < p.minVariantShare() * total) continue;
+            List<Step> steps = describe(members, keys, p.minItemShare());
+            if (steps.size() >= 2) out.add(new Variant(members.size(), (double) members.size() / total, steps));
+        }
+        out.sort(Comparator.comparingInt(Variant::matches).reversed());
+        return out;
+    }
+
+    private static boolean exclusive(int i, int j, int[] support, int[][] co, Params p) {
+        return co[i][j] <= p.exclusivity() * Math.min(support[i], support[j]);
+    }
+
+    /** Whether another item with enough support to seed a variant is exclusive with item {@code i}. */
+    private static boolean hasAlternative(int i, int[] support, int[][] co, Params p, int total) {
+        for (int j = 0; j < support.length; j++) {
+            if (j != i && support[j] >= p.minVariantShare() * total && exclusive(i, j, support, co, p)) return true;
+        }
+        return false;
+    }
+
+    private static double[][] profiles(List<Match> matches, int[] assign, int k, int m) {
+        double[][] profile = new double[k][m];
+        int[] size = new int[k];
+        for (int x = 0; x < assign.length; x++) {
+            int c = assign[x];
+            if (c < 0) continue;
+            size[c]++;
+            for (int i : matches.get(x).items()) profile[c][i]++;
+        }
+        for (int c = 0; c < k; c++) {
+            if (size[c] == 0) continue;
+            for (int i = 0; i < m; i++) profile[c][i] /= size[c];
+        }
+        return profile;
+    }
+
+    /** Jaccard between a match's item set and a variant's fractional profile. */
+    private static double softJaccard(Match match, double[] profile, double mass) {
+        double inter = 0;
+        for (int i : match.items()) inter += profile[i];
+        double union = match.items().length + mass - inter;
+        return union <= 0 ? 0 : inter / union;
+    }
+
+    private static List<Step> describe(List<Match> members, List<String> keys, double minItemShare) {
+        int m = keys.size();
+        int[] count = new int[m];
+        double[] positionSum = new double[m];
+        List<List<Double>> minutes = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) minutes.add(new ArrayList<>());
+        for (Match match : members) {
+            int[] items = match.items();
+            for (int pos = 0; pos < items.length; pos++) {
+                int i = items[pos];
+                count[i]++;
+                positionSum[i] += pos;
+                minutes.get(i).add(match.minutes()[pos]);
+            }
+        }
+        List<Step> steps = new ArrayList<>();
+        for (int i = 0; i < m; i++) {
+            double share = (double) count[i] / members.size();
+            if (count[i] == 0 || share < minItemShare) continue;
+            steps.add(new Step(keys.get(i), share, positionSum[i] / count[i], median(minutes.get(i))));
+        }
+        steps.sort(Comparator.comparingDouble(Step::avgPosition));
+        return steps;
+    }
+
+    private static double median(List<Double> values) {
+        double[] v = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        int n = v.length;
+        return n % 2 == 1 ? v[n / 2] : (v[n / 2 - 1] + v[n / 2]) / 2;
+    }
+}
@@ -0,0 +1,125 @@
+package com.d2tactics.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reference {@link L2Store}: one file per key in a directory, read through a memory mapping.
+ *
+ * Point several replicas at the same volume to share entries. Writes go to a temp file that is
+ * atomically renamed over the old one, so readers see either the previous or the new value, never a
+ * torn one. File names are a hash of the key. A file's modification time is set to its deadline, so
+ * {@link #sweep} can drop expired entries (and, past {@code maxEntries}, the soonest-expiring ones)
+ * without reading them; the tier also deletes an expired entry it happens to read.
+ */
+public final class FileL2Store implements L2Store {
+
+    private static final String SUFFIX = ".l2";
+    /** Grace before a temp file past its time counts as left over by a writer that died mid-put. */
+    private static final long ORPHAN_MILLIS = Duration.ofMinutes(10).toMillis();
+
+    private final Path dir;
+    private final int maxEntries;
+
+    public FileL2Store(Path dir, int maxEntries) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+        Path file = fileFor(key);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0 || size > Integer.MAX_VALUE) return null;
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            byte[] out = new byte[(int) size];
+            map.get(out);
+            return out;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) throws IOException {
+        Path file = fileFor(key);
+        Path tmp = dir.resolve(file.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.wrap(value);
+            while (buf.hasRemaining()) ch.write(buf);
+        }
+        Files.setLastModifiedTime(tmp, FileTime.fromMillis(System.currentTimeMillis() + ttl.toMillis()));
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(fileFor(key));
+    }
+
+    @Override
+    public int sweep() throws IOException {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        List<Path> live = new ArrayList<>();
+        Map<Path, Long> deadlines = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                long mtime;
+                try {
+                    mtime = Files.getLastModifiedTime(f).toMillis();
+                } catch (NoSuchFileException e) {
+                    continue; // replaced or deleted meanwhile
+                }
+                if (name.endsWith(".tmp")) {
+                    // the time is the write time until the deadline is set, then the deadline
+                    if (mtime < now - ORPHAN_MILLIS && Files.deleteIfExists(f)) removed++;
+                } else if (name.endsWith(SUFFIX)) {
+                    if (mtime <= now) {
+                        if (Files.deleteIfExists(f)) removed++;
+                    } else {
+                        live.add(f);
+                        deadlines.put(f, mtime);
+                    }
+                }
+            }
+        }
+        if (live.size() > maxEntries) {
+            live.sort(Comparator.comparingLong(deadlines::get));
+            for (Path f : live.subList(0, live.size() - maxEntries)) {
+                if (Files.deleteIfExists(f)) removed++;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    private Path fileFor(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return dir.resolve(HexFormat.of().formatHex(digest, 0, 20) + SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.d2tactics.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Shared second-level cache behind the in-process caches, so replicas reuse each other's upstream
+ * results instead of each warming from OpenDota.
+ *
+ * d2tactics.l2.backend:
+ *   none (default) - disabled, every lookup is a miss and nothing is written
+ *   file           - {@link FileL2Store} in {@code d2tactics.l2.file.dir} (a volume shared by the pods),
+ *                    at most {@code d2tactics.l2.file.max-entries} files
+ *   resp           - {@link RespL2Store} at {@code d2tactics.l2.resp.host}:{@code port}
+ * An {@link L2Store} bean, when present, takes precedence over the setting.
+ *
+ * Entries are an envelope around deflated JSON:
+ * {@code magic:i32 | format:u8 | namespaceVersion:i32 | writtenAt:i64 | expiresAt:i64 | payload}.
+ * An entry whose namespace version differs from the running code's, or whose deadline passed, is a
+ * miss. Store errors are logged and counted, never surfaced: the L2 is an optimization only. Every
+ * {@code d2tactics.l2.sweep-interval} the store drops what expired unread ({@link L2Store#sweep}).
+ */
+@Component
+public class L2Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(L2Cache.class);
+    private static final int MAGIC = 0x44324C32; // "D2L2"
+    private static final byte FORMAT = 1;
+    private static final int HEADER = 4 + 1 + 4 + 8 + 8;
+
+    /** What is cached; bump a version when the shape of its JSON changes. */
+    public enum Namespace {
+        POPULARITY(1), ITEM_CONSTANTS(1), TIMINGS(1), BUILD_VARIANTS(1);
+
+        final int version;
+        final String tag = name().toLowerCase(Locale.ROOT);
+
+        Namespace(int version) { this.version = version; }
+    }
+
+    /** A value read from the L2 and the deadline its writer gave it. */
+    public record Entry(JsonNode value, long expiresAtMillis) {
+    }
+
+    private final L2Store store; // null = disabled
+    private final ObjectMapper json;
+    private final Scheduler blocking;
+    private final Counter[][] requests; // [Namespace][hit, miss, error]
+
+    public L2Cache(ObjectProvider<L2Store> custom,
+                   ObjectMapper json,
+                   @Qualifier("blockingScheduler") Scheduler blocking,
+                   MeterRegistry registry,
+                   @Value("${d2tactics.l2.backend:none}") String backend,
+                   @Value("${d2tactics.l2.file.dir:${java.io.tmpdir}/d2tactics-l2}") String dir,
+                   @Value("${d2tactics.l2.file.max-entries:20000}") int maxEntries,
+                   @Value("${d2tactics.l2.resp.host:localhost}") String host,
+                   @Value("${d2tactics.l2.resp.port:6379}") int port,
+                   @Value("${d2tactics.l2.resp.timeout:PT0.5S}") Duration timeout) {
+        this.json = json;
+        this.blocking = blocking;
+        this.store = open(custom.getIfAvailable(), backend, dir, maxEntries, host, port, timeout);
+        Namespace[] spaces = Namespace.values();
+        String[] results = {"hit", "miss", "error"};
+        this.requests = new Counter[spaces.length][results.length];
+        for (Namespace ns : spaces) {
+            for (int r = 0; r < results.length; r++) {
+                requests[ns.ordinal()][r] = Counter.builder("d2tactics.l2.requests")
+                        .tag("namespace", ns.tag).tag("result", results[r]).register(registry);
+            }
+        }
+    }
+
+    private static L2Store open(L2Store custom, String backend, String dir, int maxEntries,
+                                String host, int port, Duration timeout) {
+        if (custom != null) return custom;
+        String b = backend == null ? "none" : backend.trim().toLowerCase(Locale.ROOT);
+        try {
+            L2Store s = switch (b) {
+                case "file" -> new FileL2Store(Path.of(dir), maxEntries);
+                case "resp", "redis" -> new RespL2Store(host, port, timeout);
+                default -> null;
+            };
+            if (s != null) log.info("L2 cache enabled: {}", b.equals("file") ? "file " + dir : "resp " + host + ":" + port);
+            return s;
+        } catch (IOException e) {
+            log.warn("L2 cache disabled, cannot open {} backend: {}", b, e.toString());
+            return null;
+        }
+    }
+
+    public boolean enabled() {
+        return store != null;
+    }
+
+    /** The cached entry, or empty on a miss, a stale or foreign-version entry, or a store error. */
+    public Mono<Entry> get(Namespace ns, String key) {
+        if (store == null) return Mono.empty();
+        String k = key(ns, key);
+        return Mono.fromCallable(() -> decode(ns, k, store.get(k)))
+                .subscribeOn(blocking)
+                .doOnNext(e -> count(ns, 0))
+                .switchIfEmpty(Mono.fromRunnable(() -> count(ns, 1)))
+                .onErrorResume(e -> {
+                    count(ns, 2);
+                    log.debug("L2 get {} failed: {}", k, e.toString());
+                    return Mono.empty();
+                });
+    }
+
+    /** Writes in the background; callers never wait for the L2. */
+    public void put(Namespace ns, String key, JsonNode value, Duration ttl) {
+        if (store == null || value == null || ttl.isZero() || ttl.isNegative()) return;
+        String k = key(ns, key);
+        Mono.fromCallable(() -> {
+                    store.put(k, encode(ns, value, ttl), ttl);
+                    return k;
+                })
+                .subscribeOn(blocking)
+                .subscribe(null, e -> {
+                    count(ns, 2);
+                    log.debug("L2 put {} failed: {}", k, e.toString());
+                });
+    }
+
+    @Scheduled(initialDelayString = "${d2tactics.l2.sweep-interval:PT10M}",
+            fixedDelayString = "${d2tactics.l2.sweep-interval:PT10M}")
+    public void sweep() {
+        if (store == null) return;
+        try {
+            int removed = store.sweep();
+            if (removed > 0) log.debug("L2 sweep removed {} entries from {}", removed, store.name());
+        } catch (Exception e) {
+            log.warn("L2 sweep of {} failed: {}", store.name(), e.toString());
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (store == null) return;
+        try {
+            store.close();
+        } catch (Exception e) {
+            log.debug("L2 store close failed: {}", e.toString());
+        }
+    }
+
+    private static String key(Namespace ns, String key) {
+        return "d2t:" + ns.tag + ":" + key;
+    }
+
+    private void count(Namespace ns, int result) {
+        requests[ns.ordinal()][result].increment();
+    }
+
+    byte[] encode(Namespace ns, JsonNode value, Duration ttl) throws IOException {
+        byte[] raw = json.writeValueAsBytes(value);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER + raw.length / 3);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            long now = System.currentTimeMillis();
+            ByteBuffer header = ByteBuffer.allocate(HEADER)
+                    .putInt(MAGIC).put(FORMAT).putInt(ns.version).putLong(now).putLong(now + ttl.toMillis());
+            out.write(header.array());
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) out.write(chunk, 0, deflater.deflate(chunk));
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /** Null (a miss) for absent, malformed, other-version or expired entries; the latter are deleted. */
+    Entry decode(Namespace ns, String key, byte[] bytes) throws IOException {
+        if (bytes == null || bytes.length < HEADER) return null;
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        if (buf.getInt() != MAGIC || buf.get() != FORMAT || buf.getInt() != ns.version) return null;
+        buf.getLong(); // writtenAt, kept for debugging with a hex dump
+        long expiresAt = buf.getLong();
+        if (expiresAt <= System.currentTimeMillis()) {
+            store.delete(key);
+            return null;
+        }
+        Inflater inflater = new Inflater();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+        try {
+            inflater.setInput(bytes, HEADER, bytes.length - HEADER);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) return null;
+                out.write(chunk, 0, n);
+            }
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+        return new Entry(json.readTree(out.toByteArray()), expiresAt);
+    }
+}
@@ -0,0 +1,38 @@
+package com.d2tactics.cache;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Backend SPI for the shared second-level cache ({@link L2Cache}).
+ *
+ * Stores opaque byte values under string keys; the tier above handles serialization, versioning and
+ * TTL checks, so a store only has to round-trip bytes (honouring the TTL is optional but keeps it
+ * from growing). Calls may block; the tier always invokes them on the blocking scheduler.
+ * Provide an {@code L2Store} bean to plug in another backend.
+ */
+public interface L2Store extends AutoCloseable {
+
+    /** Value for {@code key}, or null when absent. */
+    byte[] get(String key) throws IOException;
+
+    void put(String key, byte[] value, Duration ttl) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Drops expired entries (and, for bounded stores, the soonest-expiring ones past the cap); returns
+     * how many were removed. For stores that do not expire entries on their own; the tier calls it
+     * every {@code d2tactics.l2.sweep-interval}.
+     */
+    default int sweep() throws IOException {
+        return 0;
+    }
+
+    /** Short name for logs and meters, e.g. "file" or "resp". */
+    String name();
+
+    @Override
+    default void close() throws IOException {
+    }
+}
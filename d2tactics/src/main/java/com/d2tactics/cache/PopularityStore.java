@@ -0,0 +1,169 @@
+package com.d2tactics.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Item popularity for every hero, (heroId, phase, itemId) -> count, kept off the heap.
+ *
+ * Each hero is one direct buffer:
+ * {@code version:i64 | expiresAt:i64 | phaseEnd:i32[4] | (itemId:i32, count:i32)*}, the pairs of each
+ * phase sorted by count, highest first, ties by item id (so {@link Entry#toJson} lists items in that
+ * order, whatever order OpenDota sent them in). An update encodes a new buffer and
+ * publishes it with one atomic swap (copy-on-write), so readers never lock and always see a
+ * complete entry. Versions come from one counter, so two reads of a hero can tell whether it
+ * changed in between; an encode that loses a race to a newer one for the same hero is dropped, so
+ * a hero's version never goes backwards. About 125 heroes at 4 phases of ~40 items is under 200 KB in total, none of
+ * it on the Java heap or traced by the GC. Hero ids past the table (512) are encoded but not kept.
+ */
+@Component
+public class PopularityStore {
+
+    /** Phase order inside an entry; matches the keys of OpenDota's itemPopularity payload. */
+    public static final String[] PHASES = {
+            "start_game_items", "early_game_items", "mid_game_items", "late_game_items"
+    };
+
+    private static final int MAX_HEROES = 512; // hero ids are below 200 today
+    private static final int HEADER = 8 + 8 + 4 * PHASES.length;
+
+    private final AtomicReferenceArray<Entry> slots = new AtomicReferenceArray<>(MAX_HEROES);
+    private final AtomicLong versions = new AtomicLong();
+
+    public PopularityStore(MeterRegistry registry) {
+        Gauge.builder("d2tactics.popularity.store.bytes", this, PopularityStore::offHeapBytes)
+                .description("Off-heap bytes held by the popularity store").register(registry);
+    }
+
+    /** The current entry for a hero (fresh or not), or null. */
+    public Entry get(long heroId) {
+        return heroId >= 0 && heroId < MAX_HEROES ? slots.get((int) heroId) : null;
+    }
+
+    /**
+     * Encodes an itemPopularity payload and publishes it as the hero's new entry; returns the entry now
+     * in place. An id outside the table gets its entry back without it being stored, so callers pass
+     * such heroes through uncached instead of failing after the upstream call.
+     */
+    public Entry put(long heroId, JsonNode payload, long expiresAtMillis) {
+        long[][] phases = new long[PHASES.length][];
+        int pairs = 0;
+        for (int p = 0; p < PHASES.length; p++) {
+            phases[p] = pairs(payload.path(PHASES[p]));
+            pairs += phases[p].length;
+        }
+        ByteBuffer buf = ByteBuffer.allocateDirect(HEADER + pairs * 8).order(ByteOrder.nativeOrder());
+        buf.putLong(versions.incrementAndGet()).putLong(expiresAtMillis);
+        int end = 0;
+        for (long[] phase : phases) buf.putInt(end += phase.length);
+        for (long[] phase : phases) {
+            for (long key : phase) buf.putInt((int) key).putInt(Integer.MAX_VALUE - (int) (key >>> 32));
+        }
+        Entry entry = new Entry(buf.asReadOnlyBuffer().order(ByteOrder.nativeOrder()));
+        if (heroId < 0 || heroId >= MAX_HEROES) return entry;
+        return slots.accumulateAndGet((int) heroId, entry,
+                (cur, next) -> cur == null || cur.version() < next.version() ? next : cur);
+    }
+
+    public long offHeapBytes() {
+        long total = 0;
+        for (int i = 0; i < MAX_HEROES; i++) {
+            Entry e = slots.get(i);
+            if (e != null) total += e.buf.capacity();
+        }
+        return total;
+    }
+
+    /**
+     * {"itemId": count} -> (MAX - count) << 32 | itemId, so one primitive sort gives highest count
+     * first and ties by item id. Negative counts are clamped to 0.
+     */
+    private static long[] pairs(JsonNode phase) {
+        if (!phase.isObject()) return new long[0];
+        long[] out = new long[phase.size()];
+        int n = 0;
+        for (Iterator<Map.Entry<String, JsonNode>> it = phase.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> e = it.next();
+            int itemId;
+            try { itemId = Integer.parseInt(e.getKey()); } catch (NumberFormatException ex) { continue; }
+            int count = Math.max(0, e.getValue().asInt(0));
+            out[n++] = ((long) (Integer.MAX_VALUE - count) << 32) | (itemId & 0xFFFFFFFFL);
+        }
+        long[] sorted = Arrays.copyOf(out, n);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /** One immutable hero snapshot; every accessor is a plain absolute read of the buffer. */
+    public static final class Entry {
+
+        private final ByteBuffer buf;
+
+        private Entry(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        public long version() {
+            return buf.getLong(0);
+        }
+
+        public long expiresAtMillis() {
+            return buf.getLong(8);
+        }
+
+        public boolean fresh(long now) {
+            return now < expiresAtMillis();
+        }
+
+        /** Number of items in phase {@code p} (an index into {@link #PHASES}). */
+        public int size(int p) {
+            return end(p) - start(p);
+        }
+
+        public int itemId(int p, int i) {
+            return buf.getInt(HEADER + (start(p) + i) * 8);
+        }
+
+        public int count(int p, int i) {
+            return buf.getInt(HEADER + (start(p) + i) * 8 + 4);
+        }
+
+        /** Count for an item in a phase, 0 when absent; a phase holds a few dozen items, so a scan. */
+        public int countOf(int p, int itemId) {
+            for (int i = start(p), end = end(p); i < end; i++) {
+                if (buf.getInt(HEADER + i * 8) == itemId) return buf.getInt(HEADER + i * 8 + 4);
+            }
+            return 0;
+        }
+
+        /** Back to OpenDota's payload shape, for the raw endpoint and the L2. */
+        public ObjectNode toJson() {
+            ObjectNode root = JsonNodeFactory.instance.objectNode();
+            for (int p = 0; p < PHASES.length; p++) {
+                ObjectNode phase = root.putObject(PHASES[p]);
+                for (int i = 0, n = size(p); i < n; i++) phase.put(Integer.toString(itemId(p, i)), count(p, i));
+            }
+            return root;
+        }
+
+        private int start(int p) {
+            return p == 0 ? 0 : end(p - 1);
+        }
+
+        private int end(int p) {
+            return buf.getInt(16 + 4 * p);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.d2tactics.cache;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link L2Store} speaking the Redis protocol (RESP2): GET, SET ... PX, DEL.
+ *
+ * A single connection, used by one caller at a time and re-opened after any I/O error. That is
+ * plenty for cache traffic that sits behind the in-process caches and the request coalescer; it
+ * keeps the adapter dependency free. An error reply ({@code -ERR ...}, {@code -OOM ...}) fails that
+ * one call but keeps the connection: it is a complete answer, not a broken stream. Works against
+ * Redis, Valkey, KeyDB or any RESP server.
+ */
+public final class RespL2Store implements L2Store {
+
+    private final String host;
+    private final int port;
+    private final int timeoutMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** An error reply; the connection is still in sync after it. */
+    private record ErrorReply(String message) {
+    }
+
+    private Socket socket;             // guarded by lock
+    private BufferedInputStream in;
+    private BufferedOutputStream out;
+
+    public RespL2Store(String host, int port, Duration timeout) {
+        this.host = host;
+        this.port = port;
+        this.timeoutMillis = (int) Math.max(1, timeout.toMillis());
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+        Object reply = call(bytes("GET"), bytes(key));
+        return reply instanceof byte[] b ? b : null;
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) throws IOException {
+        long px = Math.max(1, ttl.toMillis());
+        call(bytes("SET"), bytes(key), value, bytes("PX"), bytes(Long.toString(px)));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        call(bytes("DEL"), bytes(key));
+    }
+
+    @Override
+    public String name() {
+        return "resp";
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            disconnect();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Object call(byte[]... args) throws IOException {
+        lock.lock();
+        try {
+            if (socket == null) connect();
+            Object reply;
+            try {
+                write(args);
+                reply = read();
+            } catch (IOException e) {
+                disconnect();
+                throw e;
+            }
+            if (reply instanceof ErrorReply err) throw new IOException("RESP error: " + err.message());
+            return reply;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void connect() throws IOException {
+        Socket s = new Socket();
+        s.connect(new InetSocketAddress(host, port), timeoutMillis);
+        s.setSoTimeout(timeoutMillis);
+        s.setTcpNoDelay(true);
+        socket = s;
+        in = new BufferedInputStream(s.getInputStream());
+        out = new BufferedOutputStream(s.getOutputStream());
+    }
+
+    private void disconnect() throws IOException {
+        Socket s = socket;
+        socket = null;
+        in = null;
+        out = null;
+        if (s != null) s.close();
+    }
+
+    private void write(byte[][] args) throws IOException {
+        out.write('*');
+        out.write(bytes(Integer.toString(args.length)));
+        crlf();
+        for (byte[] a : args) {
+            out.write('$');
+            out.write(bytes(Integer.toString(a.length)));
+            crlf();
+            out.write(a);
+            crlf();
+        }
+        out.flush();
+    }
+
+    private void crlf() throws IOException {
+        out.write('\r');
+        out.write('\n');
+    }
+
+    /** One reply: simple string / integer as String/Long, bulk as byte[] (null for nil), error as ErrorReply. */
+    private Object read() throws IOException {
+        int type = in.read();
+        if (type < 0) throw new EOFException("RESP connection closed");
+        String line = readLine();
+        return switch (type) {
+            case '+' -> line;
+            case ':' -> Long.parseLong(line);
+            case '-' -> new ErrorReply(line);
+            case '$' -> {
+                int len = Integer.parseInt(line);
+                if (len < 0) yield null;
+                byte[] data = in.readNBytes(len);
+                if (data.length < len) throw new EOFException("Truncated RESP bulk reply");
+                readLine();
+                yield data;
+            }
+            default -> throw new IOException("Unexpected RESP reply type '" + (char) type + "'");
+        };
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c < 0) throw new EOFException("RESP connection closed");
+            sb.append((char) c);
+        }
+        if (in.read() != '\n') throw new IOException("Malformed RESP line");
+        return sb.toString();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,113 @@
+package com.d2tactics.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental decoder for explorer responses, {"command": ..., "rowCount": n, "rows": [{...}, ...]}.
+ *
+ * Chunks are fed to Jackson's non-blocking parser as they arrive. Each element of the top-level
+ * {@code rows} array is buffered on its own (a TokenBuffer of one row) and bound to the row type, so
+ * memory holds one chunk and the rows decoded from it, never the whole result set. Other fields are
+ * skipped, except a non-empty {@code err} (a failed query), which fails the stream. One decoder per
+ * response; not thread-safe.
+ */
+final class ExplorerRowDecoder<T> {
+
+    private final ObjectMapper mapper;
+    private final Class<T> rowType;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private int depth;          // 1 = inside the root object, 2 = inside one of its values
+    private String field;       // last field name of the root object
+    private boolean inRows;
+    private TokenBuffer row;    // the row being buffered, null between rows
+
+    ExplorerRowDecoder(ObjectMapper mapper, Class<T> rowType) {
+        this.mapper = mapper;
+        this.rowType = rowType;
+        try {
+            this.parser = mapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /** Rows completed by this chunk; the buffer is released. */
+    List<T> feed(DataBuffer chunk) {
+        byte[] bytes = new byte[chunk.readableByteCount()];
+        chunk.read(bytes);
+        DataBufferUtils.release(chunk);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            return drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Rows left once the body is complete (normally none). */
+    List<T> endOfInput() {
+        feeder.endOfInput();
+        try {
+            return drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try { parser.close(); } catch (IOException ignored) { }
+        }
+    }
+
+    private List<T> drain() throws IOException {
+        List<T> out = new ArrayList<>();
+        JsonToken t;
+        while ((t = parser.nextToken()) != null && t != JsonToken.NOT_AVAILABLE) {
+            if (row != null) {
+                row.copyCurrentEvent(parser);
+                if (t.isStructStart()) {
+                    depth++;
+                } else if (t.isStructEnd() && --depth == 2) {
+                    try (JsonParser p = row.asParser(mapper)) {
+                        out.add(mapper.readValue(p, rowType));
+                    }
+                    row = null;
+                }
+                continue;
+            }
+            switch (t) {
+                case FIELD_NAME -> {
+                    if (depth == 1) field = parser.currentName();
+                }
+                case START_OBJECT, START_ARRAY -> {
+                    if (inRows && depth == 2 && t == JsonToken.START_OBJECT) {
+                        row = new TokenBuffer(parser);
+                        row.copyCurrentEvent(parser);
+                    }
+                    if (++depth == 2 && t == JsonToken.START_ARRAY && "rows".equals(field)) inRows = true;
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    if (--depth == 1) inRows = false;
+                }
+                case VALUE_STRING -> {
+                    if (depth == 1 && "err".equals(field) && !parser.getText().isBlank()) {
+                        throw new OpenDotaClient.OpenDotaException("explorer: " + parser.getText());
+                    }
+                }
+                default -> { }
+            }
+        }
+        return out;
+    }
+}
@@ -1,8 +1,11 @@
 package com.d2tactics.client;
 
+import com.d2tactics.metrics.PipelineMetrics;
+import com.d2tactics.metrics.PipelineMetrics.Upstream;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ClientCodecConfigurer;
@@ -12,6 +15,7 @@ import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
@@ -24,12 +28,21 @@ import java.util.Map;
 @Component
 public class OpenDotaClient {
 
+    /** Chunks requested ahead of the row consumer while streaming explorer results. */
+    private static final int EXPLORER_PREFETCH = 4;
+
     private final WebClient client;
+    private final PipelineMetrics metrics;
+    private final ObjectMapper json;
 
     public OpenDotaClient(
             @Value("${opendota.base-url:https://api.opendota.com/api}") String baseUrl,
-            @Value("${opendota.api-key:}") String apiKey
+            @Value("${opendota.api-key:}") String apiKey,
+            PipelineMetrics metrics,
+            ObjectMapper json
     ) {
+        this.metrics = metrics;
+        this.json = json;
         this.client = WebClient.builder()
                 .baseUrl(baseUrl)
                 .defaultHeader("Accept", MediaType.APPLICATION_JSON_VALUE)
@@ -66,7 +79,7 @@ public class OpenDotaClient {
 
     /** GET /health */
     public Mono<JsonNode> getHealth() {
-        return client.get()
+        return metrics.timeUpstream(Upstream.HEALTH, client.get()
                 .uri("/health")
                 .accept(MediaType.APPLICATION_JSON)
                 .retrieve()
@@ -74,12 +87,12 @@ public class OpenDotaClient {
                         resp -> resp.bodyToMono(String.class)
                                 .defaultIfEmpty(statusText(resp.statusCode().value()))
                                 .flatMap(body -> Mono.error(new OpenDotaException(body))))
-                .bodyToMono(JsonNode.class);
+                .bodyToMono(JsonNode.class));
     }
 
     /** GET /heroes/{hero_id}/itemPopularity */
     public Mono<JsonNode> getHeroItemPopularity(long heroId) {
-        return client.get()
+        return metrics.timeUpstream(Upstream.ITEM_POPULARITY, client.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/heroes/{hero_id}/itemPopularity")
                         .build(heroId))
@@ -89,7 +102,7 @@ public class OpenDotaClient {
                         resp -> resp.bodyToMono(String.class)
                                 .defaultIfEmpty("HTTP " + resp.statusCode().value())
                                 .flatMap(body -> Mono.error(new OpenDotaException(body))))
-                .bodyToMono(JsonNode.class);
+                .bodyToMono(JsonNode.class));
     }
 
     private static String statusText(int code) {
@@ -102,39 +115,70 @@ public class OpenDotaClient {
     }
 
     public Mono<JsonNode> getHeroStats() {
-        return client.get()
+        return metrics.timeUpstream(Upstream.HERO_STATS, client.get()
                 .uri("/heroStats")
                 .accept(MediaType.APPLICATION_JSON)
                 .retrieve()
-                .bodyToMono(JsonNode.class);
+                .bodyToMono(JsonNode.class));
     }
 
     public Mono<JsonNode> getHeroAbilities() {
-        return client.get()
+        return metrics.timeUpstream(Upstream.HERO_ABILITIES, client.get()
                 .uri("/constants/hero_abilities")
                 .accept(MediaType.APPLICATION_JSON)
                 .retrieve()
-                .bodyToMono(JsonNode.class);
+                .bodyToMono(JsonNode.class));
+    }
+
+    /** GET /constants/items */
+    public Mono<JsonNode> getItemConstants() {
+        return metrics.timeUpstream(Upstream.ITEM_CONSTANTS, client.get()
+                .uri("/constants/items")
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(JsonNode.class));
+    }
+
+    /** GET /constants/patch: [{name, date, id}], oldest first */
+    public Mono<JsonNode> getPatches() {
+        return metrics.timeUpstream(Upstream.PATCH, client.get()
+                .uri("/constants/patch")
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(JsonNode.class));
     }
 
     public Mono<JsonNode> getAbilities() {
-        return client.get()
+        return metrics.timeUpstream(Upstream.ABILITIES, client.get()
                 .uri("/constants/abilities")
                 .accept(MediaType.APPLICATION_JSON)
                 .retrieve()
-                .bodyToMono(JsonNode.class);
+                .bodyToMono(JsonNode.class));
     }
 
-    public Mono<JsonNode> explorer(String sql) {
-        return client.post()
+    /**
+     * POST /explorer, decoded row by row as the body arrives (see {@link ExplorerRowDecoder}) instead
+     * of buffered into one tree. Chunks are only read as the subscriber takes rows, so a large result
+     * costs a few chunks of memory and a slow consumer slows the download. 404 is an empty result.
+     */
+    public <T> Flux<T> explorerRows(String sql, Class<T> rowType) {
+        return metrics.timeUpstream(Upstream.EXPLORER, client.post()
                 .uri("/explorer")
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON)
                 .bodyValue(Map.of("sql", sql))
-                .retrieve()
-                .onStatus(s -> s.value() == 404, resp -> Mono.empty()) // <-- treat 404 as empty body
-                .bodyToMono(JsonNode.class)
-                .defaultIfEmpty(JsonNodeFactory.instance.objectNode()); // {}
+                .exchangeToFlux(resp -> {
+                    if (resp.statusCode().value() == 404) return resp.releaseBody().thenMany(Flux.<T>empty());
+                    if (resp.statusCode().isError()) {
+                        return resp.bodyToMono(String.class)
+                                .defaultIfEmpty(statusText(resp.statusCode().value()))
+                                .flatMapMany(body -> Flux.<T>error(new OpenDotaException(body)));
+                    }
+                    ExplorerRowDecoder<T> decoder = new ExplorerRowDecoder<>(json, rowType);
+                    return resp.bodyToFlux(DataBuffer.class)
+                            .concatMapIterable(decoder::feed, EXPLORER_PREFETCH)
+                            .concatWith(Flux.defer(() -> Flux.fromIterable(decoder.endOfInput())));
+                }));
     }
 
 
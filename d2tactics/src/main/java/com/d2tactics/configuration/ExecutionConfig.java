@@ -0,0 +1,106 @@
+package com.d2tactics.configuration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedulers for work that must stay off the Netty event loop.
+ *
+ * {@code blockingScheduler}: adapters that block (metadata fetches, file and snapshot I/O).
+ * Runs on virtual threads by default ({@code d2tactics.exec.blocking.mode=virtual}); {@code platform}
+ * uses a fixed pool of {@code d2tactics.exec.blocking.threads} instead.
+ *
+ * {@code cpuScheduler}: CPU-bound batch jobs (precomputation, index rebuilds). A fixed pool below
+ * the core count with a bounded queue, so batch work cannot take every core from request handling;
+ * submissions beyond the queue are rejected rather than piling up.
+ *
+ * Both pools are registered as {@code executor.*} meters (tag {@code name=blocking|cpu}).
+ */
+@Configuration
+public class ExecutionConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler blockingScheduler(MeterRegistry registry,
+                                       @Value("${d2tactics.exec.blocking.mode:virtual}") String mode,
+                                       @Value("${d2tactics.exec.blocking.threads:32}") int threads) {
+        if ("platform".equalsIgnoreCase(mode)) {
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), named("blocking-", false));
+            return Schedulers.fromExecutorService(ExecutorServiceMetrics.monitor(registry, pool, "blocking"), "blocking");
+        }
+        ExecutorService virtual = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("blocking-vt-", 0).factory());
+        // timers only (a plain Executor, so no pool gauges are attempted); the active gauge comes from CountingExecutor
+        Executor timed = ExecutorServiceMetrics.monitor(registry, (Executor) virtual::execute, "blocking");
+        CountingExecutor counting = new CountingExecutor(timed, virtual);
+        Gauge.builder("executor.active", counting.active, AtomicInteger::get)
+                .description("Virtual threads currently running blocking tasks")
+                .tag("name", "blocking").register(registry);
+        return Schedulers.fromExecutorService(counting, "blocking");
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler cpuScheduler(MeterRegistry registry,
+                                  @Value("${d2tactics.exec.cpu.threads:0}") int threads,
+                                  @Value("${d2tactics.exec.cpu.queue:1024}") int queue) {
+        // 0 = leave one core for the event loop
+        int n = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queue)), named("cpu-batch-", true),
+                new ThreadPoolExecutor.AbortPolicy());
+        return Schedulers.fromExecutorService(ExecutorServiceMetrics.monitor(registry, executor, "cpu"), "cpu");
+    }
+
+    private static ThreadFactory named(String prefix, boolean lowPriority) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            if (lowPriority) t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        };
+    }
+
+    /**
+     * Thread-per-task executors expose no pool gauges (and Micrometer's reflective thread count breaks
+     * on some JDK builds), so running tasks are counted here instead.
+     */
+    private static final class CountingExecutor extends AbstractExecutorService {
+        final AtomicInteger active = new AtomicInteger();
+        private final Executor runner;
+        private final ExecutorService delegate;
+
+        CountingExecutor(Executor runner, ExecutorService delegate) {
+            this.runner = runner;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            runner.execute(() -> {
+                active.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                }
+            });
+        }
+
+        @Override public void shutdown() { delegate.shutdown(); }
+        @Override public List<Runnable> shutdownNow() { return delegate.shutdownNow(); }
+        @Override public boolean isShutdown() { return delegate.isShutdown(); }
+        @Override public boolean isTerminated() { return delegate.isTerminated(); }
+        @Override public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.d2tactics.configuration;
+
+import com.d2tactics.metrics.PipelineMetrics;
+import com.d2tactics.metrics.TimedJackson2JsonEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /** Swap in the timed JSON encoder so serialization shows up as its own pipeline stage. */
+    @Bean
+    public CodecCustomizer timedJsonEncoderCustomizer(ObjectMapper objectMapper, PipelineMetrics metrics) {
+        return configurer -> configurer.defaultCodecs()
+                .jackson2JsonEncoder(new TimedJackson2JsonEncoder(objectMapper, metrics));
+    }
+}
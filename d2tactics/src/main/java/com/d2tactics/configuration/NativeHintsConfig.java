@@ -0,0 +1,39 @@
+package com.d2tactics.configuration;
+
+import com.d2tactics.recommend.RulesModel;
+import com.d2tactics.trace.RecommendationTrace;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Hints for ahead-of-time builds (native image, AOT + CDS, see the {@code native} and {@code appcds}
+ * profiles). Spring finds beans on its own; these cover what is only reached reflectively or by
+ * resource name: the rule YAML and compiled bundle, Jackson binding of {@link RulesModel} (counter
+ * rules validation) and JSON-writing {@link RecommendationTrace} records.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.Hints.class)
+public class NativeHintsConfig {
+
+    static final class Hints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources()
+                    .registerPattern("*.yaml")
+                    .registerPattern("rules.bin");
+            for (Class<?> type : new Class<?>[]{
+                    RulesModel.class, RulesModel.Threat.class, RulesModel.ThreatItem.class,
+                    RecommendationTrace.class, RecommendationTrace.Score.class}) {
+                hints.reflection().registerType(type,
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_PUBLIC_METHODS,
+                        MemberCategory.DECLARED_FIELDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.d2tactics.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Enables @Scheduled background refreshes (constants, etc.). */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,8 +1,8 @@
 package com.d2tactics.controller;
 
+import com.d2tactics.service.HeroResolver;
 import com.d2tactics.service.ItemPopularityService;
 import com.d2tactics.service.OpenDotaHeroService;
-import com.d2tactics.util.HeroIdMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -25,11 +25,14 @@ public class DotaDataController {
 
     private final OpenDotaHeroService heroService;
     private final ItemPopularityService itemPopularityService;
+    private final HeroResolver heroes;
 
     public DotaDataController(OpenDotaHeroService heroService,
-                              ItemPopularityService itemPopularityService) {
+                              ItemPopularityService itemPopularityService,
+                              HeroResolver heroes) {
         this.heroService = heroService;
         this.itemPopularityService = itemPopularityService;
+        this.heroes = heroes;
     }
 
     /**
@@ -61,8 +64,8 @@ public class DotaDataController {
             }
         }
 
-        Long allyId = resolveHeroId(ally);
-        Long enemyId = resolveHeroId(enemy); // not used yet, but reserved for future logic
+        Long allyId = heroes.resolve(ally);
+        Long enemyId = heroes.resolve(enemy); // not used yet, but reserved for future logic
 
         if (allyId == null || enemyId == null) {
             ObjectNode err = JsonNodeFactory.instance.objectNode()
@@ -112,7 +115,7 @@ public class DotaDataController {
             @RequestParam(value = "phase", required = false) String phase,
             @RequestParam(value = "named", defaultValue = "false") boolean named
     ) {
-        Long heroId = resolveHeroId(hero);
+        Long heroId = heroes.resolve(hero);
         if (heroId == null) {
             return badRequest("Unknown hero: " + hero);
         }
@@ -151,13 +154,6 @@ public class DotaDataController {
         return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err));
     }
 
-    private Long resolveHeroId(String hero) {
-        Long id = HeroIdMapper.getHeroId(hero); // supports names like "axe"
-        if (id != null) return id;
-        try { return Long.parseLong(hero); } catch (NumberFormatException ignored) { return null; }
-    }
-
-
     // quick probe so you can confirm routing works
     @GetMapping("/ping")
     public Mono<JsonNode> ping() {
@@ -1,8 +1,10 @@
 package com.d2tactics.controller;
 
+import com.d2tactics.service.BuildVariantService;
+import com.d2tactics.service.HeroResolver;
 import com.d2tactics.service.ItemTimingService;
-import com.d2tactics.util.HeroIdMapper;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.http.MediaType;
@@ -15,29 +17,55 @@ import reactor.core.publisher.Mono;
 public class DotaTimingController {
 
     private final ItemTimingService timing;
+    private final BuildVariantService variants;
+    private final HeroResolver heroes;
 
-    public DotaTimingController(ItemTimingService timing) {
+    public DotaTimingController(ItemTimingService timing, BuildVariantService variants, HeroResolver heroes) {
         this.timing = timing;
+        this.variants = variants;
+        this.heroes = heroes;
     }
 
     @GetMapping("/heroes/{hero}/itemTimings")
     public Mono<ResponseEntity<JsonNode>> timings(@PathVariable String hero,
                                                   @RequestParam(defaultValue = "8") int minCount,
                                                   @RequestParam(defaultValue = "60") int limit) {
-        Long heroId = resolveHeroId(hero);
+        Long heroId = heroes.resolve(hero);
         if (heroId == null) {
             ObjectNode err = JsonNodeFactory.instance.objectNode().put("error", "Unknown hero: " + hero);
             return Mono.just(ResponseEntity.badRequest().body(err));
         }
-        return timing.medianTimings(heroId, minCount, limit)
+        return timing.medianTimings(heroId, ItemTimingService.clampMinCount(minCount), ItemTimingService.clampLimit(limit))
                 .map(ResponseEntity::ok)
                 .onErrorResume(e -> Mono.just(ResponseEntity.ok(JsonNodeFactory.instance.objectNode()))); // {}
     }
 
-
-    private Long resolveHeroId(String hero) {
-        Long id = HeroIdMapper.getHeroId(hero);
-        if (id != null) return id;
-        try { return Long.parseLong(hero); } catch (Exception e) { return null; }
+    /**
+     * Build variants clustered from public match purchase logs, at most {@code max} of them.
+     *
+     * Example:
+     *   GET /opendota/heroes/axe/buildVariants?max=3
+     */
+    @GetMapping("/heroes/{hero}/buildVariants")
+    public Mono<ResponseEntity<JsonNode>> buildVariants(@PathVariable String hero,
+                                                        @RequestParam(defaultValue = "3") int max) {
+        Long heroId = heroes.resolve(hero);
+        if (heroId == null) {
+            ObjectNode err = JsonNodeFactory.instance.objectNode().put("error", "Unknown hero: " + hero);
+            return Mono.just(ResponseEntity.badRequest().body(err));
+        }
+        return variants.variants(heroId)
+                .map(body -> {
+                    ObjectNode out = ((ObjectNode) body).deepCopy();
+                    ArrayNode list = (ArrayNode) out.path("variants");
+                    while (list.size() > Math.max(1, max)) list.remove(list.size() - 1);
+                    return ResponseEntity.ok((JsonNode) out);
+                })
+                .onErrorResume(e -> {
+                    ObjectNode empty = JsonNodeFactory.instance.objectNode().put("heroId", heroId);
+                    empty.putArray("variants");
+                    return Mono.just(ResponseEntity.ok(empty));
+                });
     }
+
 }
@@ -0,0 +1,159 @@
+package com.d2tactics.controller;
+
+import com.d2tactics.cache.PopularityStore;
+import com.d2tactics.history.PopularityHistory;
+import com.d2tactics.service.HeroPageService;
+import com.d2tactics.service.HeroResolver;
+import com.d2tactics.service.HeroSimilarityService;
+import com.d2tactics.service.ItemConstantsHolder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+@RestController
+@RequestMapping(value = "/opendota/heroes", produces = MediaType.APPLICATION_JSON_VALUE)
+public class HeroController {
+
+    private static final int MAX_LIMIT = 200;
+
+    private final HeroResolver heroes;
+    private final HeroPageService pages;
+    private final PopularityHistory history;
+    private final ItemConstantsHolder constants;
+    private final HeroSimilarityService similarity;
+
+    public HeroController(HeroResolver heroes, HeroPageService pages, PopularityHistory history,
+                          ItemConstantsHolder constants, HeroSimilarityService similarity) {
+        this.heroes = heroes;
+        this.pages = pages;
+        this.history = history;
+        this.constants = constants;
+        this.similarity = similarity;
+    }
+
+    /**
+     * Hero autocomplete: [{id, slug, name}] matching a name, slug or alias prefix first, then substrings.
+     *
+     * Example:
+     *   GET /opendota/heroes/search?q=anti&limit=5
+     */
+    @GetMapping("/search")
+    public Mono<JsonNode> search(@RequestParam(defaultValue = "") String q,
+                                 @RequestParam(defaultValue = "10") int limit) {
+        ArrayNode out = JsonNodeFactory.instance.arrayNode();
+        for (HeroResolver.Hero h : heroes.search(q, Math.min(limit, MAX_LIMIT))) {
+            out.addObject().put("id", h.id()).put("slug", h.slug()).put("name", h.name());
+        }
+        return Mono.just(out);
+    }
+
+    /**
+     * One round trip for a hero view: popularity, timings, build variants and, with {@code enemy},
+     * recommendations for every phase plus counter items. Sections that miss their deadline are
+     * reported under "sections" and omitted; the rest is still returned.
+     *
+     * Example:
+     *   GET /opendota/heroes/axe/page?enemy=zeus&top=6
+     */
+    @GetMapping("/{hero}/page")
+    public Mono<ResponseEntity<JsonNode>> page(@PathVariable String hero,
+                                               @RequestParam(required = false) String enemy,
+                                               @RequestParam(defaultValue = "6") int top) {
+        Long id = heroes.resolve(hero);
+        HeroResolver.Hero h = id == null ? null : heroes.hero(id);
+        if (h == null) {
+            JsonNode err = JsonNodeFactory.instance.objectNode().put("error", "Unknown hero: " + hero);
+            return Mono.just(ResponseEntity.badRequest().body(err));
+        }
+        String enemySlug = enemy == null || enemy.isBlank() ? null : heroes.canonicalSlug(enemy);
+        return pages.page(h, enemySlug, top).map(body -> ResponseEntity.ok((JsonNode) body));
+    }
+
+    /**
+     * An item's popularity over the last {@code days} (at most the history's retention), from the local
+     * history: {hero, item, itemId, phase, points: [{t, count}]}, oldest first, {@code t} in epoch
+     * seconds. {@code item} is an item key ("blink") or id; {@code phase} is start, early, mid or late.
+     *
+     * Example:
+     *   GET /opendota/heroes/axe/popularity/trend?item=blink&phase=early&days=7
+     */
+    @GetMapping("/{hero}/popularity/trend")
+    public Mono<ResponseEntity<JsonNode>> trend(@PathVariable String hero,
+                                                @RequestParam String item,
+                                                @RequestParam(defaultValue = "mid") String phase,
+                                                @RequestParam(defaultValue = "7") int days) {
+        Long heroId = heroes.resolve(hero);
+        int p = Arrays.asList(PopularityStore.PHASES).indexOf(phase + "_game_items");
+        if (heroId == null || p < 0) {
+            String msg = heroId == null ? "Unknown hero: " + hero : "Unknown phase: " + phase;
+            return Mono.just(ResponseEntity.badRequest().body(JsonNodeFactory.instance.objectNode().put("error", msg)));
+        }
+        Instant to = Instant.now();
+        // older days are pruned, so asking for them would only look complete
+        long maxDays = Math.max(1, history.retention().toDays());
+        Instant from = to.minus(Duration.ofDays(Math.max(1, Math.min(days, maxDays))));
+        return constants.get().flatMap(c -> {
+            ItemConstantsHolder.Item known = c.byKey().get(item);
+            int itemId = known != null ? known.id() : parseItemId(item);
+            if (itemId < 0) {
+                JsonNode err = JsonNodeFactory.instance.objectNode().put("error", "Unknown item: " + item);
+                return Mono.just(ResponseEntity.badRequest().body(err));
+            }
+            return history.trend(heroId, p, itemId, from, to).map(points -> {
+                ObjectNode out = JsonNodeFactory.instance.objectNode()
+                        .put("hero", heroId).put("item", c.idToName().getOrDefault(itemId, item))
+                        .put("itemId", itemId).put("phase", phase);
+                ArrayNode arr = out.putArray("points");
+                points.forEach(pt -> arr.addObject().put("t", pt.epochSeconds()).put("count", pt.count()));
+                return ResponseEntity.ok((JsonNode) out);
+            });
+        });
+    }
+
+    /**
+     * Heroes that build like ({@code kind=build}) or threaten like ({@code kind=threat}) this one,
+     * from the precomputed similarity index: {hero, kind, builtAt, neighbors: [{id, slug, name, similarity}]}.
+     *
+     * Example:
+     *   GET /opendota/heroes/axe/similar?kind=threat&k=5
+     */
+    @GetMapping("/{hero}/similar")
+    public Mono<ResponseEntity<JsonNode>> similar(@PathVariable String hero,
+                                                  @RequestParam(defaultValue = "build") String kind,
+                                                  @RequestParam(defaultValue = "5") int k) {
+        Long id = heroes.resolve(hero);
+        HeroSimilarityService.Kind parsed = "threat".equalsIgnoreCase(kind) ? HeroSimilarityService.Kind.THREAT
+                : "build".equalsIgnoreCase(kind) ? HeroSimilarityService.Kind.BUILD : null;
+        if (id == null || parsed == null) {
+            String msg = id == null ? "Unknown hero: " + hero : "Unknown kind: " + kind;
+            return Mono.just(ResponseEntity.badRequest().body(JsonNodeFactory.instance.objectNode().put("error", msg)));
+        }
+        ObjectNode out = JsonNodeFactory.instance.objectNode()
+                .put("hero", id).put("kind", parsed.name().toLowerCase()).put("builtAt", similarity.builtAtMillis());
+        ArrayNode arr = out.putArray("neighbors");
+        for (var n : similarity.similar(id, parsed, Math.max(1, k))) {
+            HeroResolver.Hero h = heroes.hero(n.heroId());
+            ObjectNode node = arr.addObject().put("id", n.heroId());
+            if (h != null) node.put("slug", h.slug()).put("name", h.name());
+            node.put("similarity", Math.round(n.similarity() * 1000) / 1000.0);
+        }
+        return Mono.just(ResponseEntity.ok((JsonNode) out));
+    }
+
+    private static int parseItemId(String s) {
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.d2tactics.controller;
+
+import com.d2tactics.service.ManifestService;
+import com.d2tactics.service.ManifestService.Manifest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/opendota/manifest")
+public class ManifestController {
+
+    // short max-age, then a conditional request that is almost always a 304
+    private static final CacheControl CACHE = CacheControl.maxAge(Duration.ofMinutes(10)).cachePublic();
+
+    private final ManifestService manifests;
+
+    public ManifestController(ManifestService manifests) {
+        this.manifests = manifests;
+    }
+
+    /**
+     * Item display name -> CDN image path (prefix with https://cdn.cloudflare.steamstatic.com).
+     *
+     * Example:
+     *   GET /opendota/manifest/items
+     */
+    @GetMapping("/items")
+    public Mono<ResponseEntity<byte[]>> items(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return manifests.items().map(m -> respond(m, ifNoneMatch, acceptEncoding));
+    }
+
+    /**
+     * Every hero as {id, slug, name}, ordered by name.
+     *
+     * Example:
+     *   GET /opendota/manifest/heroes
+     */
+    @GetMapping("/heroes")
+    public Mono<ResponseEntity<byte[]>> heroes(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return Mono.fromSupplier(() -> respond(manifests.heroes(), ifNoneMatch, acceptEncoding));
+    }
+
+    /** 304 on a matching ETag, else the precompressed body when the client takes gzip. */
+    private static ResponseEntity<byte[]> respond(Manifest m, String ifNoneMatch, String acceptEncoding) {
+        if (matches(ifNoneMatch, m.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(m.etag()).cacheControl(CACHE).build();
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .eTag(m.etag())
+                .cacheControl(CACHE)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (acceptsGzip(acceptEncoding)) {
+            return ok.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(m.gzip());
+        }
+        return ok.body(m.json());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        String bare = etag.substring(2); // weak comparison: drop W/
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*") || c.equals(etag) || c.equals(bare)) return true;
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equals("gzip")) continue;
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].trim().matches("q=0(\\.0*)?")) return false;
+            }
+            return true;
+        }
+        return false;
+    }
+}
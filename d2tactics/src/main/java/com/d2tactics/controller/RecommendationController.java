@@ -1,7 +1,8 @@
 package com.d2tactics.controller;
 
+import com.d2tactics.service.CounterReasonService;
+import com.d2tactics.service.HeroResolver;
 import com.d2tactics.service.RecommendationService;
-import com.d2tactics.util.HeroIdMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -11,6 +12,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 @RestController
@@ -18,9 +21,15 @@ import java.util.Locale;
 public class RecommendationController {
 
     private final RecommendationService recommendationService;
+    private final CounterReasonService counterReasons;
+    private final HeroResolver heroes;
 
-    public RecommendationController(RecommendationService recommendationService) {
+    public RecommendationController(RecommendationService recommendationService,
+                                    CounterReasonService counterReasons,
+                                    HeroResolver heroes) {
         this.recommendationService = recommendationService;
+        this.counterReasons = counterReasons;
+        this.heroes = heroes;
     }
 
     @GetMapping("/recommend")
@@ -28,17 +37,18 @@ public class RecommendationController {
             @RequestParam String ally,
             @RequestParam String enemy,
             @RequestParam(required = false) String phase,
-            @RequestParam(defaultValue = "6") int top
+            @RequestParam(defaultValue = "6") int top,
+            @RequestParam(defaultValue = "false") boolean debug
     ) {
-        Long allyId = resolveHeroId(ally);
+        Long allyId = heroes.resolve(ally);
         if (allyId == null) return badRequest("Unknown ally: " + ally);
 
-        String enemySlug = canonicalizeHeroSlug(enemy);
+        String enemySlug = heroes.canonicalSlug(enemy);
         if (enemySlug == null || enemySlug.isBlank()) return badRequest("Missing enemy slug");
 
         Mono<JsonNode> body = (phase == null || phase.isBlank())
-                ? recommendationService.recommendAllPhases(allyId, enemySlug, top).map(n -> (JsonNode) n)
-                : recommendationService.recommendPhase(allyId, enemySlug, phase.toLowerCase(Locale.ROOT), top).map(n -> (JsonNode) n);
+                ? recommendationService.recommendAllPhases(allyId, enemySlug, top, debug).map(n -> (JsonNode) n)
+                : recommendationService.recommendPhase(allyId, enemySlug, phase.toLowerCase(Locale.ROOT), top, debug).map(n -> (JsonNode) n);
 
         return body
                 .map(ResponseEntity::ok)
@@ -50,34 +60,23 @@ public class RecommendationController {
                 });
     }
 
+    /** Counter items with reasons for one enemy or a comma separated lineup, e.g. ?enemy=zeus,lina */
+    @GetMapping("/counters")
+    public Mono<ResponseEntity<JsonNode>> counters(
+            @RequestParam String enemy,
+            @RequestParam(defaultValue = "10") int top
+    ) {
+        List<String> slugs = new ArrayList<>();
+        for (String part : enemy.split(",")) {
+            String slug = heroes.canonicalSlug(part);
+            if (slug != null && !slug.isBlank() && !slugs.contains(slug)) slugs.add(slug);
+        }
+        if (slugs.isEmpty()) return badRequest("Missing enemy slug");
+        return counterReasons.lineup(slugs, top).map(n -> ResponseEntity.ok((JsonNode) n));
+    }
 
     private Mono<ResponseEntity<JsonNode>> badRequest(String message) {
         ObjectNode err = JsonNodeFactory.instance.objectNode().put("error", message);
         return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body((JsonNode) err));
     }
-
-    private Long resolveHeroId(String hero) {
-        if (hero == null) return null;
-        Long id = HeroIdMapper.getHeroId(hero);
-        if (id != null) return id;
-        try {
-            return Long.parseLong(hero);
-        } catch (NumberFormatException ignored) {
-            return null;
-        }
-    }
-
-    private String canonicalizeHeroSlug(String input) {
-        if (input == null) return null;
-        String normalized = input.trim().toLowerCase(Locale.ROOT).replace(' ', '_');
-        // Try to resolve to ID first (handles variants like “Doom” vs “doom_bringer”)
-        Long id = resolveHeroId(normalized);
-        if (id != null) {
-            String slug = HeroIdMapper.getSlugById(id);
-            if (slug != null && !slug.isBlank()) return slug;   // <-- canonical slug from your map
-        }
-        // Fallback: normalized
-        return normalized;
-    }
-
 }
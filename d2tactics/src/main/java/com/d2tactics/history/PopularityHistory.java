@@ -0,0 +1,183 @@
+package com.d2tactics.history;
+
+import com.d2tactics.cache.PopularityStore;
+import com.d2tactics.history.SnapshotCodec.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Local history of item popularity, for trends.
+ *
+ * Every upstream popularity fetch is offered here; at most one snapshot per hero per
+ * {@code d2tactics.history.min-interval} is kept, and only if something changed. Snapshots are
+ * appended to one segment file per hero and UTC day ({@code <dir>/<heroId>/<yyyy-MM-dd>.seg}),
+ * delta-encoded against the previous one by {@link SnapshotCodec}; each segment starts with a
+ * keyframe, so days decode independently and retention is deleting files. A torn append (crash
+ * mid-write) is cut off the next time the segment is opened. Appends and queries do file IO and run
+ * on the blocking scheduler.
+ *
+ * A day of hourly snapshots is one keyframe (~0.5 KB) plus small deltas, a few KB per hero.
+ */
+@Component
+public class PopularityHistory {
+
+    private static final Logger log = LoggerFactory.getLogger(PopularityHistory.class);
+
+    /** One observation of an item's count; {@code epochSeconds} is when it was fetched. */
+    public record Point(long epochSeconds, int count) {
+    }
+
+    /** Last snapshot appended for a hero and the day segment it went to; guarded by itself. */
+    private static final class HeroLog {
+        LocalDate day;
+        Snapshot last;
+    }
+
+    private final boolean enabled;
+    private final Path dir;
+    private final long minIntervalSeconds;
+    private final Duration retention;
+    private final Scheduler blocking;
+    private final Map<Long, HeroLog> logs = new ConcurrentHashMap<>();
+
+    public PopularityHistory(@Value("${d2tactics.history.enabled:true}") boolean enabled,
+                             @Value("${d2tactics.history.dir:${java.io.tmpdir}/d2tactics-history}") String dir,
+                             @Value("${d2tactics.history.min-interval:PT1H}") Duration minInterval,
+                             @Value("${d2tactics.history.retention:P30D}") Duration retention,
+                             @Qualifier("blockingScheduler") Scheduler blocking) {
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.minIntervalSeconds = minInterval.toSeconds();
+        this.retention = retention;
+        this.blocking = blocking;
+    }
+
+    /** Offers a freshly fetched entry; returns immediately, the append happens in the background. */
+    public void record(long heroId, PopularityStore.Entry entry) {
+        if (!enabled) return;
+        Snapshot snapshot = Snapshot.of(entry, Instant.now().getEpochSecond());
+        Mono.fromRunnable(() -> append(heroId, snapshot))
+                .subscribeOn(blocking)
+                .subscribe(null, e -> log.warn("Popularity history append for hero {} failed: {}", heroId, e.toString()));
+    }
+
+    /** How far back history is kept; older segments are pruned. */
+    public Duration retention() {
+        return retention;
+    }
+
+    /** Counts of one item in one phase (index into {@link PopularityStore#PHASES}) within [from, to]. */
+    public Mono<List<Point>> trend(long heroId, int phase, int itemId, Instant from, Instant to) {
+        return Mono.fromCallable(() -> {
+            List<Point> out = new ArrayList<>();
+            long lo = from.getEpochSecond(), hi = to.getEpochSecond();
+            for (LocalDate day = dayOf(lo); !day.isAfter(dayOf(hi)); day = day.plusDays(1)) {
+                Path file = segment(heroId, day);
+                if (!Files.isRegularFile(file)) continue;
+                SnapshotCodec.decode(ByteBuffer.wrap(Files.readAllBytes(file)), s -> {
+                    if (s.epochSeconds() >= lo && s.epochSeconds() <= hi) {
+                        out.add(new Point(s.epochSeconds(), s.count(phase, itemId)));
+                    }
+                });
+            }
+            return out;
+        }).subscribeOn(blocking);
+    }
+
+    /** Deletes day segments older than the retention. */
+    @Scheduled(initialDelayString = "${d2tactics.history.prune-delay:PT1M}",
+            fixedDelayString = "${d2tactics.history.prune-interval:PT6H}")
+    public void prune() {
+        if (!enabled || !Files.isDirectory(dir)) return;
+        LocalDate oldest = dayOf(Instant.now().minus(retention).getEpochSecond());
+        try (Stream<Path> files = Files.walk(dir, 2)) {
+            for (Path f : files.filter(p -> p.toString().endsWith(".seg")).toList()) {
+                String name = f.getFileName().toString();
+                try {
+                    if (LocalDate.parse(name.substring(0, name.length() - 4)).isBefore(oldest)) Files.deleteIfExists(f);
+                } catch (RuntimeException ignored) {
+                    // not one of ours
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Popularity history prune failed: {}", e.toString());
+        }
+    }
+
+    private void append(long heroId, Snapshot snapshot) {
+        HeroLog heroLog = logs.computeIfAbsent(heroId, id -> new HeroLog());
+        synchronized (heroLog) {
+            LocalDate day = dayOf(snapshot.epochSeconds());
+            if (!day.equals(heroLog.day)) {
+                heroLog.last = recover(segment(heroId, day));
+                heroLog.day = day;
+            }
+            Snapshot last = heroLog.last;
+            if (last != null && snapshot.epochSeconds() - last.epochSeconds() < minIntervalSeconds) return;
+            ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+            if (SnapshotCodec.encode(last, snapshot, record) == 0) return;
+            write(segment(heroId, day), record.toByteArray());
+            heroLog.last = snapshot;
+        }
+    }
+
+    /** Last snapshot in an existing segment (null for a new one); a torn tail is truncated away. */
+    private static Snapshot recover(Path file) {
+        if (!Files.isRegularFile(file)) return null;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+            Snapshot[] last = new Snapshot[1];
+            int valid = SnapshotCodec.decode(bytes, s -> last[0] = s);
+            if (valid < ch.size()) {
+                log.warn("Truncating torn popularity history segment {} at {} of {} bytes", file, valid, ch.size());
+                ch.truncate(valid);
+            }
+            return last[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(Path file, byte[] record) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ByteBuffer buf = ByteBuffer.wrap(record);
+                while (buf.hasRemaining()) ch.write(buf);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segment(long heroId, LocalDate day) {
+        return dir.resolve(Long.toString(heroId)).resolve(day + ".seg");
+    }
+
+    private static LocalDate dayOf(long epochSeconds) {
+        return LocalDate.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,194 @@
+package com.d2tactics.history;
+
+import com.d2tactics.cache.PopularityStore;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Delta encoding of popularity snapshots for {@link PopularityHistory} segments.
+ *
+ * A record is {@code varint length | body}; the body is
+ * {@code zigzag(seconds - previous seconds) | per phase: varint changes, changes * (varint itemIdGap, zigzag countDelta)}.
+ * Items are walked in id order, so ids are small gaps; an item that disappears is a delta back to 0.
+ * The first record of a segment is encoded against the empty snapshot, which makes it a keyframe
+ * with no special case. Encoding merges two id-sorted lists, so it costs the items present, and
+ * the record itself only holds what changed.
+ */
+public final class SnapshotCodec {
+
+    private static final Snapshot EMPTY = new Snapshot(0, emptyPhases(), emptyPhases());
+
+    /** Counts per phase, {@code items[p]} ascending with {@code counts[p]} aligned; absent = 0. */
+    public record Snapshot(long epochSeconds, int[][] items, int[][] counts) {
+
+        public static Snapshot of(PopularityStore.Entry entry, long epochSeconds) {
+            int phases = PopularityStore.PHASES.length;
+            int[][] items = new int[phases][];
+            int[][] counts = new int[phases][];
+            for (int p = 0; p < phases; p++) {
+                int n = entry.size(p);
+                long[] packed = new long[n]; // itemId << 32 | count, so one sort orders by id
+                for (int i = 0; i < n; i++) packed[i] = ((long) entry.itemId(p, i) << 32) | entry.count(p, i);
+                Arrays.sort(packed);
+                items[p] = new int[n];
+                counts[p] = new int[n];
+                for (int i = 0; i < n; i++) {
+                    items[p][i] = (int) (packed[i] >>> 32);
+                    counts[p][i] = (int) packed[i];
+                }
+            }
+            return new Snapshot(epochSeconds, items, counts);
+        }
+
+        public int count(int phase, int itemId) {
+            int i = Arrays.binarySearch(items[phase], itemId);
+            return i < 0 ? 0 : counts[phase][i];
+        }
+    }
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * Appends {@code next} as a delta against {@code prev} (null = keyframe) to {@code out}.
+     * Returns the number of changed items; with 0 nothing is written.
+     */
+    public static int encode(Snapshot prev, Snapshot next, ByteArrayOutputStream out) {
+        Snapshot base = prev == null ? EMPTY : prev;
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        writeVarLong(body, zigzag(next.epochSeconds() - base.epochSeconds()));
+        int changes = 0;
+        int[] ids = new int[64];
+        int[] deltas = new int[64];
+        for (int p = 0; p < next.items().length; p++) {
+            int[] a = base.items()[p], ac = base.counts()[p];
+            int[] b = next.items()[p], bc = next.counts()[p];
+            int n = 0, i = 0, j = 0;
+            while (i < a.length || j < b.length) {
+                int id, delta;
+                if (j == b.length || (i < a.length && a[i] < b[j])) {
+                    id = a[i]; delta = -ac[i++];                   // gone
+                } else if (i == a.length || b[j] < a[i]) {
+                    id = b[j]; delta = bc[j++];                    // new
+                } else {
+                    id = a[i]; delta = bc[j++] - ac[i++];          // both
+                }
+                if (delta == 0) continue;
+                if (n == ids.length) {
+                    ids = Arrays.copyOf(ids, n * 2);
+                    deltas = Arrays.copyOf(deltas, n * 2);
+                }
+                ids[n] = id;
+                deltas[n++] = delta;
+            }
+            writeVarLong(body, n);
+            int last = 0;
+            for (int k = 0; k < n; k++) {
+                writeVarLong(body, ids[k] - last);
+                writeVarLong(body, zigzag(deltas[k]));
+                last = ids[k];
+            }
+            changes += n;
+        }
+        if (prev != null && changes == 0) return 0;
+        writeVarLong(out, body.size());
+        out.writeBytes(body.toByteArray());
+        return Math.max(changes, 1);
+    }
+
+    /**
+     * Replays a segment from its keyframe, handing every snapshot to {@code sink}. Returns the
+     * length of the well-formed prefix; anything after it is a torn append.
+     */
+    public static int decode(ByteBuffer segment, Consumer<Snapshot> sink) {
+        Snapshot current = EMPTY;
+        int valid = segment.position();
+        try {
+            while (segment.hasRemaining()) {
+                int length = (int) readVarLong(segment);
+                if (length <= 0 || length > segment.remaining()) break;
+                ByteBuffer body = segment.slice(segment.position(), length);
+                segment.position(segment.position() + length);
+                current = apply(current, body);
+                valid = segment.position();
+                sink.accept(current);
+            }
+        } catch (RuntimeException e) {
+            // malformed tail: keep what decoded cleanly
+        }
+        return valid;
+    }
+
+    private static Snapshot apply(Snapshot base, ByteBuffer body) {
+        long seconds = base.epochSeconds() + unzigzag(readVarLong(body));
+        int phases = base.items().length;
+        int[][] items = new int[phases][];
+        int[][] counts = new int[phases][];
+        for (int p = 0; p < phases; p++) {
+            int n = (int) readVarLong(body);
+            int[] dIds = new int[n], dDeltas = new int[n];
+            int last = 0;
+            for (int k = 0; k < n; k++) {
+                last += (int) readVarLong(body);
+                dIds[k] = last;
+                dDeltas[k] = (int) unzigzag(readVarLong(body));
+            }
+            int[] a = base.items()[p], ac = base.counts()[p];
+            int[] outIds = new int[a.length + n], outCounts = new int[a.length + n];
+            int m = 0, i = 0, k = 0;
+            while (i < a.length || k < n) {
+                int id, count;
+                if (k == n || (i < a.length && a[i] < dIds[k])) {
+                    id = a[i]; count = ac[i++];
+                } else if (i == a.length || dIds[k] < a[i]) {
+                    id = dIds[k]; count = dDeltas[k++];
+                } else {
+                    id = a[i]; count = ac[i++] + dDeltas[k++];
+                }
+                if (count != 0) {
+                    outIds[m] = id;
+                    outCounts[m++] = count;
+                }
+            }
+            items[p] = Arrays.copyOf(outIds, m);
+            counts[p] = Arrays.copyOf(outCounts, m);
+        }
+        if (body.hasRemaining()) throw new IllegalStateException("trailing bytes in record");
+        return new Snapshot(seconds, items, counts);
+    }
+
+    private static int[][] emptyPhases() {
+        int[][] out = new int[PopularityStore.PHASES.length][];
+        Arrays.fill(out, new int[0]);
+        return out;
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IllegalStateException("varint too long");
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
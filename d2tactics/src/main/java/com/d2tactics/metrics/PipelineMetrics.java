@@ -0,0 +1,164 @@
+package com.d2tactics.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters for the popularity / recommendation / timing pipelines.
+ *
+ * Every meter is registered up front and kept in arrays indexed by enum ordinal, so recording on
+ * the hot path is an array read plus {@link Timer#record(long, TimeUnit)}: no tag lists, no
+ * builder, no {@code Timer.Sample}.
+ *
+ * d2tactics.metrics.mode:
+ *   detailed (default) - also publishes percentile histograms (Prometheus histogram_quantile)
+ *   lean               - counts/sum/max only, cheapest record path
+ *   off                - nothing is registered, all calls are no-ops
+ */
+@Component
+public class PipelineMetrics {
+
+    public enum Outcome {
+        SUCCESS, ERROR, CANCELLED;
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    /** OpenDota endpoints, tag value mirrors the upstream path. */
+    public enum Upstream {
+        HEALTH("health"),
+        ITEM_POPULARITY("heroes/itemPopularity"),
+        HERO_STATS("heroStats"),
+        HERO_ABILITIES("constants/hero_abilities"),
+        ABILITIES("constants/abilities"),
+        ITEM_CONSTANTS("constants/items"),
+        PATCH("constants/patch"),
+        EXPLORER("explorer");
+
+        final String tag;
+        Upstream(String tag) { this.tag = tag; }
+    }
+
+    /** In-process stages. */
+    public enum Stage {
+        POPULARITY_NAMING, TAG_INFERENCE, BOOST_LOOKUP, SCORING, TIMING_AGGREGATION, SERIALIZATION;
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    public enum Cache {
+        HERO_TAGS, ITEM_CONSTANTS, POPULARITY, TIMINGS;
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final boolean enabled;
+    private final Timer[][] upstream;   // [Upstream][Outcome]
+    private final Timer[][] stages;     // [Stage][Outcome]
+    private final Counter[] hits;       // [Cache]
+    private final Counter[] misses;     // [Cache]
+
+    public PipelineMetrics(MeterRegistry registry,
+                           @Value("${d2tactics.metrics.mode:detailed}") String mode) {
+        String m = mode == null ? "detailed" : mode.trim().toLowerCase(Locale.ROOT);
+        this.enabled = !m.equals("off");
+        boolean histograms = m.equals("detailed");
+
+        Upstream[] ups = Upstream.values();
+        Stage[] sts = Stage.values();
+        Outcome[] outs = Outcome.values();
+        Cache[] caches = Cache.values();
+        this.upstream = new Timer[ups.length][outs.length];
+        this.stages = new Timer[sts.length][outs.length];
+        this.hits = new Counter[caches.length];
+        this.misses = new Counter[caches.length];
+        if (!enabled) return;
+
+        for (Upstream u : ups) {
+            for (Outcome o : outs) {
+                upstream[u.ordinal()][o.ordinal()] = Timer.builder("d2tactics.upstream.latency")
+                        .description("OpenDota call latency by endpoint and outcome")
+                        .tag("endpoint", u.tag)
+                        .tag("outcome", o.tag)
+                        .publishPercentileHistogram(histograms)
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(registry);
+            }
+        }
+        for (Stage s : sts) {
+            for (Outcome o : outs) {
+                stages[s.ordinal()][o.ordinal()] = Timer.builder("d2tactics.stage.latency")
+                        .description("In-process pipeline stage latency")
+                        .tag("stage", s.tag)
+                        .tag("outcome", o.tag)
+                        .publishPercentileHistogram(histograms)
+                        .minimumExpectedValue(Duration.ofNanos(1_000))
+                        .maximumExpectedValue(Duration.ofSeconds(1))
+                        .register(registry);
+            }
+        }
+        for (Cache c : caches) {
+            hits[c.ordinal()] = Counter.builder("d2tactics.cache.requests")
+                    .tag("cache", c.tag).tag("result", "hit").register(registry);
+            misses[c.ordinal()] = Counter.builder("d2tactics.cache.requests")
+                    .tag("cache", c.tag).tag("result", "miss").register(registry);
+        }
+    }
+
+    public boolean enabled() { return enabled; }
+
+    /** Start mark for {@link #record}; 0 when metrics are off so callers need no branch. */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void record(Stage stage, long startNanos) {
+        record(stage, Outcome.SUCCESS, startNanos);
+    }
+
+    public void record(Stage stage, Outcome outcome, long startNanos) {
+        if (!enabled) return;
+        stages[stage.ordinal()][outcome.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void cacheHit(Cache cache) {
+        if (enabled) hits[cache.ordinal()].increment();
+    }
+
+    public void cacheMiss(Cache cache) {
+        if (enabled) misses[cache.ordinal()].increment();
+    }
+
+    /** Times one upstream call from subscription to its terminal signal. */
+    public <T> Mono<T> timeUpstream(Upstream endpoint, Mono<T> call) {
+        if (!enabled) return call;
+        Timer[] byOutcome = upstream[endpoint.ordinal()];
+        return Mono.defer(() -> {
+            long t0 = System.nanoTime();
+            return call
+                    .doOnSuccess(v -> byOutcome[Outcome.SUCCESS.ordinal()].record(System.nanoTime() - t0, TimeUnit.NANOSECONDS))
+                    .doOnError(e -> byOutcome[Outcome.ERROR.ordinal()].record(System.nanoTime() - t0, TimeUnit.NANOSECONDS))
+                    .doOnCancel(() -> byOutcome[Outcome.CANCELLED.ordinal()].record(System.nanoTime() - t0, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /** Flux variant of {@link #timeUpstream(Upstream, Mono)}: subscription to completion of the stream. */
+    public <T> Flux<T> timeUpstream(Upstream endpoint, Flux<T> call) {
+        if (!enabled) return call;
+        Timer[] byOutcome = upstream[endpoint.ordinal()];
+        return Flux.defer(() -> {
+            long t0 = System.nanoTime();
+            return call
+                    .doOnComplete(() -> byOutcome[Outcome.SUCCESS.ordinal()].record(System.nanoTime() - t0, TimeUnit.NANOSECONDS))
+                    .doOnError(e -> byOutcome[Outcome.ERROR.ordinal()].record(System.nanoTime() - t0, TimeUnit.NANOSECONDS))
+                    .doOnCancel(() -> byOutcome[Outcome.CANCELLED.ordinal()].record(System.nanoTime() - t0, TimeUnit.NANOSECONDS));
+        });
+    }
+}
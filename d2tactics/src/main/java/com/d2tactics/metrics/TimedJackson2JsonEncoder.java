@@ -0,0 +1,35 @@
+package com.d2tactics.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+
+import java.util.Map;
+
+/** Jackson JSON encoder that records response serialization time as the SERIALIZATION stage. */
+public class TimedJackson2JsonEncoder extends Jackson2JsonEncoder {
+
+    private final PipelineMetrics metrics;
+
+    public TimedJackson2JsonEncoder(ObjectMapper mapper, PipelineMetrics metrics) {
+        super(mapper);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        long t0 = metrics.start();
+        try {
+            DataBuffer out = super.encodeValue(value, bufferFactory, valueType, mimeType, hints);
+            metrics.record(PipelineMetrics.Stage.SERIALIZATION, t0);
+            return out;
+        } catch (RuntimeException e) {
+            metrics.record(PipelineMetrics.Stage.SERIALIZATION, PipelineMetrics.Outcome.ERROR, t0);
+            throw e;
+        }
+    }
+}
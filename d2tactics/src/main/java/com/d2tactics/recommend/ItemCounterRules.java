@@ -2,53 +2,131 @@
 package com.d2tactics.recommend;
 
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import org.springframework.core.io.ClassPathResource;
+import com.d2tactics.repository.ReloadableRules;
+import com.d2tactics.repository.RuleBundle;
+import com.d2tactics.repository.RuleBundleCompiler;
+import com.d2tactics.repository.RuleBundleLoader;
+import com.d2tactics.repository.RuleTable;
+import com.d2tactics.repository.RulesChange;
+import com.d2tactics.symbol.SymbolTable;
+import com.d2tactics.symbol.TagSet;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.stereotype.Component;
 
-import java.io.InputStream;
 import java.util.*;
 
 @Component
-public class ItemCounterRules {
+public class ItemCounterRules implements ReloadableRules {
 
-    private final RulesModel rules;
+    static final String FILE = "item-counters.yaml";
 
-    public ItemCounterRules() {
-        try (InputStream in = new ClassPathResource("item-counters.yaml").getInputStream()) {
-            ObjectMapper yaml = new ObjectMapper(new YAMLFactory());
-            this.rules = yaml.readValue(in, RulesModel.class);
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to load item-counters.yaml", e);
+    /**
+     * threats rows: (item name, reason); hero_tags rows: threat names.
+     * {@code threatRowByTag} maps a tag id to its threats row (-1 = none); threats share the tag namespace.
+     */
+    private record Snapshot(long version, RuleTable threats, RuleTable heroTags, TagSet threatTags,
+                            int[] threatRowByTag, int[][] threatItems, TagSet[] heroThreats) {
+    }
+
+    private final SymbolTable symbols;
+    private volatile Snapshot snapshot;
+
+    public ItemCounterRules(RuleBundleLoader bundles, SymbolTable symbols) {
+        this.symbols = symbols;
+        RuleBundle.Section section = bundles.section(FILE);
+        if (section == null) throw new IllegalStateException("Failed to load item-counters.yaml");
+        this.snapshot = compile(section, 0L);
+    }
+
+    private Snapshot compile(RuleBundle.Section section, long version) {
+        RuleTable threats = section.table("threats");
+        RuleTable heroTags = section.table("hero_tags");
+        for (int r = 0; r < threats.rows(); r++) symbols.tag(threats.key(r));
+        int[] rowByTag = new int[symbols.tagCount()];
+        Arrays.fill(rowByTag, -1);
+        int[][] items = new int[threats.rows()][];
+        TagSet.Builder threatTags = TagSet.builder();
+        for (int r = 0; r < threats.rows(); r++) {
+            rowByTag[symbols.tag(threats.key(r))] = r;
+            threatTags.add(symbols.tag(threats.key(r)));
+            items[r] = new int[threats.size(r)];
+            for (int i = 0; i < items[r].length; i++) items[r][i] = symbols.item(threats.value(r, i));
         }
+        return new Snapshot(version, threats, heroTags, threatTags.build(), rowByTag, items,
+                heroTags.valueTags(symbols));
     }
 
-    /** Normalize hero key: lowercase, remove spaces, apostrophes, punctuation */
+    /**
+     * Normalize hero key: lowercase, remove spaces, apostrophes, punctuation.
+     * Single pass without regex; returns the input itself when it is already normalized.
+     */
     public static String normHero(String s) {
         if (s == null) return null;
-        return s.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+        int n = s.length();
+        int i = 0;
+        while (i < n && isNormChar(s.charAt(i))) i++;
+        if (i == n) return s;
+        StringBuilder sb = new StringBuilder(n).append(s, 0, i);
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 'A' && c <= 'Z') sb.append((char) (c + ('a' - 'A')));
+            else if (isNormChar(c)) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isNormChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
     }
 
-    public Set<String> tagsForHero(String heroNameOrKey) {
-        String key = normHero(heroNameOrKey);
-        if (key == null || rules.getHero_tags() == null) return Collections.emptySet();
-        List<String> tags = rules.getHero_tags().get(key);
-        return tags == null ? Collections.emptySet() : new LinkedHashSet<>(tags);
+    public TagSet tagsForHero(String heroNameOrKey) {
+        Snapshot s = snapshot;
+        return RuleTable.tagsAt(s.heroThreats(), s.heroTags().find(normHero(heroNameOrKey)));
     }
 
-    public List<ItemSuggestion> itemsForThreats(Set<String> threats) {
-        if (threats == null || threats.isEmpty() || rules.getThreats() == null) return List.of();
-        Map<String, ItemSuggestion> acc = new LinkedHashMap<>();
+    /** The subset of {@code tags} that are threats defined in item-counters.yaml. */
+    public TagSet threatsIn(TagSet tags) {
+        return tags.intersect(snapshot.threatTags());
+    }
+
+    /** Counter items for the given threats, merged per item; names and reasons only appear here. */
+    public List<ItemSuggestion> itemsForThreats(TagSet threats) {
+        Snapshot s = snapshot;
+        if (threats == null || threats.isEmpty()) return List.of();
+        Map<Integer, ItemSuggestion> acc = new LinkedHashMap<>();
 
-        for (String threat : threats) {
-            var t = rules.getThreats().get(threat);
-            if (t == null || t.getItems() == null) continue;
-            for (var ti : t.getItems()) {
-                ItemSuggestion s = acc.computeIfAbsent(ti.getName(), ItemSuggestion::new);
-                s.addReason(ti.getReason()).addThreat(threat);
+        threats.forEach(threat -> {
+            int row = threat < s.threatRowByTag().length ? s.threatRowByTag()[threat] : -1;
+            if (row < 0) return;
+            int[] items = s.threatItems()[row];
+            for (int i = 0; i < items.length; i++) {
+                ItemSuggestion sug = acc.computeIfAbsent(items[i], id -> new ItemSuggestion(symbols.itemName(id)));
+                sug.addReason(s.threats().qualifier(row, i)).addThreat(symbols.tagName(threat));
             }
-        }
+        });
         return new ArrayList<>(acc.values());
     }
+
+    @Override
+    public String fileName() { return FILE; }
+
+    @Override
+    public long version() { return snapshot.version(); }
+
+    /** Changed keys are prefixed: "threat:&lt;name&gt;" and "hero:&lt;key&gt;". */
+    @Override
+    public RulesChange reload(JsonNode root, long version) {
+        Snapshot next;
+        try {
+            next = compile(RuleBundleCompiler.section(FILE, root), version);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid item-counters.yaml: " + e.getMessage(), e);
+        }
+        Snapshot prev = snapshot;
+        snapshot = next;
+        Set<String> changed = new HashSet<>();
+        RuleTable.diff(prev.threats(), next.threats()).forEach(k -> changed.add("threat:" + k));
+        RuleTable.diff(prev.heroTags(), next.heroTags()).forEach(k -> changed.add("hero:" + k));
+        return new RulesChange(FILE, version, changed, false);
+    }
 }
@@ -1,38 +1,53 @@
 package com.d2tactics.repository;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.d2tactics.symbol.SymbolTable;
+import com.d2tactics.symbol.TagSet;
 import com.fasterxml.jackson.databind.JsonNode;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
 
 @Component
-public class HeroTagsRepository {
-
-    private final Map<String, Set<String>> heroToTags;
-
-    public HeroTagsRepository(@Qualifier("yamlObjectMapper") ObjectMapper yaml) {
-        try {
-            var res = new ClassPathResource("/hero-tags.yaml");
-            JsonNode root = yaml.readTree(res.getInputStream());
-            Map<String, Set<String>> map = new HashMap<>();
-            var obj = root.path("hero_tags");
-            obj.fieldNames().forEachRemaining(slug -> {
-                Set<String> tags = new HashSet<>();
-                obj.get(slug).forEach(n -> tags.add(n.asText()));
-                map.put(slug, tags);
-            });
-            heroToTags = Collections.unmodifiableMap(map);
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to load hero-tags.yaml", e);
-        }
+public class HeroTagsRepository implements ReloadableRules {
+
+    static final String FILE = "hero-tags.yaml";
+
+    private record Snapshot(long version, RuleTable heroToTags, TagSet[] tagsByRow) {
+    }
+
+    private final SymbolTable symbols;
+    private volatile Snapshot snapshot;
+
+    public HeroTagsRepository(RuleBundleLoader bundles, SymbolTable symbols) {
+        this.symbols = symbols;
+        RuleBundle.Section section = bundles.section(FILE);
+        if (section == null) throw new IllegalStateException("Failed to load hero-tags.yaml");
+        snapshot = compile(section, 0L);
     }
 
-    /** Returns lowercased slug key set or empty set */
-    public Set<String> tagsForHero(String heroSlug) {
-        if (heroSlug == null) return Set.of();
-        return heroToTags.getOrDefault(heroSlug.toLowerCase(Locale.ROOT), Set.of());
+    private Snapshot compile(RuleBundle.Section section, long version) {
+        RuleTable table = section.table("hero_tags");
+        return new Snapshot(version, table, table.valueTags(symbols));
+    }
+
+    /** Tags for a slug (case-insensitive) or the empty set */
+    public TagSet tagsForHero(String heroSlug) {
+        if (heroSlug == null) return TagSet.EMPTY;
+        Snapshot s = snapshot;
+        return RuleTable.tagsAt(s.tagsByRow(), s.heroToTags().find(heroSlug.toLowerCase(Locale.ROOT)));
+    }
+
+    @Override
+    public String fileName() { return FILE; }
+
+    @Override
+    public long version() { return snapshot.version(); }
+
+    @Override
+    public RulesChange reload(JsonNode root, long version) {
+        var next = compile(RuleBundleCompiler.section(FILE, root), version);
+        var prev = snapshot;
+        snapshot = next;
+        return new RulesChange(FILE, version, RuleTable.diff(prev.heroToTags(), next.heroToTags()), false);
     }
 }
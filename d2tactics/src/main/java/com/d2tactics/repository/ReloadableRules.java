@@ -0,0 +1,19 @@
+package com.d2tactics.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/** A rules holder backed by one YAML file whose compiled snapshot can be swapped at runtime. */
+public interface ReloadableRules {
+
+    /** File name inside the rules directory / classpath, e.g. "tag-rules.yaml". */
+    String fileName();
+
+    /** Version of the snapshot currently served (0 = loaded from the classpath at startup). */
+    long version();
+
+    /**
+     * Compiles {@code root} into a new immutable snapshot and publishes it atomically.
+     * Must throw (and keep serving the old snapshot) when the document is invalid.
+     */
+    RulesChange reload(JsonNode root, long version);
+}
@@ -0,0 +1,136 @@
+package com.d2tactics.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Read side of the compiled rule bundle ({@code rules.bin}), written at build time by
+ * {@link RuleBundleCompiler} from the rule YAML files.
+ *
+ * <pre>
+ * bundle  := "D2RB" format sectionCount {nameLen:u16 name:utf8 crc32 offset length}* section*
+ * section := stringCount stringOffsets[stringCount+1] utf8 (pad 4) tableCount {nameId offset}* table*
+ * table   := rows entries rowOf[stringCount] rowKey[rows] rowStart[rows+1]
+ *            value[entries] qualifier[entries] weight:f64[entries]
+ * </pre>
+ * Big-endian; offsets are relative to the enclosing bundle/section, string ids index the section's
+ * string table (-1 = absent). Only the string table is decoded on open; tables are read in place.
+ */
+public final class RuleBundle {
+
+    static final int MAGIC = 0x44325242; // "D2RB"
+    static final int FORMAT = 1;
+
+    private final Map<String, Section> sections;
+    private final Map<String, Integer> sourceCrcs;
+
+    private RuleBundle(Map<String, Section> sections, Map<String, Integer> sourceCrcs) {
+        this.sections = sections;
+        this.sourceCrcs = sourceCrcs;
+    }
+
+    /** Memory-maps a bundle file read-only. */
+    public static RuleBundle map(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    public static RuleBundle read(ByteBuffer buf) {
+        ByteBuffer b = buf.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (b.limit() < 12 || b.getInt(0) != MAGIC) throw new IllegalArgumentException("not a rule bundle");
+        int format = b.getInt(4);
+        if (format != FORMAT) throw new IllegalArgumentException("unsupported rule bundle format " + format);
+        int count = b.getInt(8);
+        int pos = 12;
+        Map<String, Section> sections = new LinkedHashMap<>();
+        Map<String, Integer> crcs = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[Short.toUnsignedInt(b.getShort(pos))];
+            b.get(pos + 2, name);
+            pos += 2 + name.length;
+            String file = new String(name, StandardCharsets.UTF_8);
+            crcs.put(file, b.getInt(pos));
+            sections.put(file, Section.read(b.slice(b.getInt(pos + 4), b.getInt(pos + 8))));
+            pos += 12;
+        }
+        return new RuleBundle(Collections.unmodifiableMap(sections), Collections.unmodifiableMap(crcs));
+    }
+
+    /** Compiled section for a YAML file name, or null when the bundle has none. */
+    public Section section(String file) {
+        return sections.get(file);
+    }
+
+    /** CRC32 of the YAML bytes the section was compiled from. */
+    public int sourceCrc(String file) {
+        return sourceCrcs.getOrDefault(file, 0);
+    }
+
+    public Set<String> files() {
+        return sections.keySet();
+    }
+
+    /** One compiled YAML file: its interned strings and named tables. */
+    public static final class Section {
+
+        private final String[] strings;
+        private final Map<String, Integer> ids;
+        private final Map<String, RuleTable> tables = new LinkedHashMap<>();
+
+        private Section(String[] strings) {
+            this.strings = strings;
+            this.ids = new HashMap<>(strings.length * 2);
+            for (int i = 0; i < strings.length; i++) ids.put(strings[i], i);
+        }
+
+        public static Section read(ByteBuffer buf) {
+            ByteBuffer b = buf.slice().order(ByteOrder.BIG_ENDIAN);
+            int n = b.getInt(0);
+            int bytesAt = 4 + 4 * (n + 1);
+            String[] strings = new String[n];
+            for (int i = 0; i < n; i++) {
+                int start = b.getInt(4 + 4 * i);
+                byte[] raw = new byte[b.getInt(8 + 4 * i) - start];
+                b.get(bytesAt + start, raw);
+                strings[i] = new String(raw, StandardCharsets.UTF_8);
+            }
+            Section s = new Section(strings);
+            int pos = align(bytesAt + b.getInt(4 + 4 * n));
+            int tableCount = b.getInt(pos);
+            pos += 4;
+            for (int t = 0; t < tableCount; t++, pos += 8) {
+                s.tables.put(strings[b.getInt(pos)], new RuleTable(b, b.getInt(pos + 4), s));
+            }
+            return s;
+        }
+
+        /** Table by name; an empty table when the section has none. */
+        public RuleTable table(String name) {
+            return tables.getOrDefault(name, RuleTable.EMPTY);
+        }
+
+        String string(int id) {
+            return id < 0 ? null : strings[id];
+        }
+
+        int id(String s) {
+            Integer id = s == null ? null : ids.get(s);
+            return id == null ? -1 : id;
+        }
+
+        int stringCount() {
+            return strings.length;
+        }
+    }
+
+    static int align(int pos) {
+        return (pos + 3) & ~3;
+    }
+}
@@ -0,0 +1,450 @@
+package com.d2tactics.repository;
+
+import com.d2tactics.recommend.ItemCounterRules;
+import com.d2tactics.recommend.RulesModel;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+
+/**
+ * Compiles the rule YAML files into the binary {@link RuleBundle} format.
+ *
+ * Runs at build time (process-classes) to produce {@code rules.bin}, failing the build on
+ * structural errors (wrong shapes, unknown phases, non-numeric weights, tags that look like
+ * misspellings of known ones) and printing warnings for softer issues. Hot reload compiles single
+ * files through {@link #compileSection} so both paths share one set of rules.
+ *
+ *   java ... RuleBundleCompiler &lt;resources dir&gt; &lt;output file&gt; [--strict=true]
+ */
+public final class RuleBundleCompiler {
+
+    static final String BOOSTS = TagBoostsRepository.FILE;
+    static final String HERO_TAGS = HeroTagsRepository.FILE;
+    static final String TAG_RULES = TagRulesRepository.FILE;
+    static final String COUNTERS = "item-counters.yaml";
+    static final List<String> FILES = List.of(BOOSTS, HERO_TAGS, TAG_RULES, COUNTERS);
+
+    private static final Set<String> PHASES = Set.of("start", "early", "mid", "late");
+    private static final ObjectMapper YAML = new ObjectMapper(new YAMLFactory());
+
+    private RuleBundleCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) throw new IllegalArgumentException("usage: RuleBundleCompiler <resources dir> <output file>");
+        Path dir = Path.of(args[0]);
+        Path out = Path.of(args[1]);
+        boolean strict = args.length > 2 && args[2].equals("--strict=true");
+
+        Problems problems = new Problems();
+        Map<String, JsonNode> docs = new LinkedHashMap<>();
+        Map<String, byte[]> sections = new LinkedHashMap<>();
+        Map<String, Integer> crcs = new HashMap<>();
+        for (String file : FILES) {
+            Path src = dir.resolve(file);
+            if (!Files.isRegularFile(src)) {
+                if (!file.equals(TAG_RULES)) problems.error("%s: missing", file);
+                continue;
+            }
+            byte[] raw = Files.readAllBytes(src);
+            JsonNode doc = YAML.readTree(raw);
+            docs.put(file, doc);
+            crcs.put(file, crc(raw));
+            sections.put(file, compile(file, doc, problems));
+        }
+        crossCheck(docs, problems);
+
+        problems.warnings.forEach(w -> System.out.println("[rules] WARN  " + w));
+        problems.errors.forEach(e -> System.out.println("[rules] ERROR " + e));
+        if (!problems.errors.isEmpty() || (strict && !problems.warnings.isEmpty())) {
+            throw new IllegalStateException("rule compilation failed: " + problems.errors.size() + " error(s), "
+                    + problems.warnings.size() + " warning(s)");
+        }
+        byte[] bundle = bundle(sections, crcs);
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        Files.write(out, bundle);
+        System.out.printf("[rules] %s: %d sections, %d bytes, %d warning(s)%n",
+                out.getFileName(), sections.size(), bundle.length, problems.warnings.size());
+    }
+
+    /** Compiles one YAML document; throws IllegalArgumentException listing every error found. */
+    public static byte[] compileSection(String file, JsonNode root) {
+        Problems problems = new Problems();
+        byte[] out = compile(file, root, problems);
+        if (!problems.errors.isEmpty()) throw new IllegalArgumentException(String.join("; ", problems.errors));
+        return out;
+    }
+
+    /** {@link #compileSection} read back as a section, for in-process compilation (hot reload, no bundle). */
+    public static RuleBundle.Section section(String file, JsonNode root) {
+        return RuleBundle.Section.read(ByteBuffer.wrap(compileSection(file, root)));
+    }
+
+    static int crc(byte[] raw) {
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] compile(String file, JsonNode root, Problems p) {
+        SectionWriter w = new SectionWriter();
+        switch (file) {
+            case BOOSTS -> boosts(root, w, p.in(file));
+            case HERO_TAGS -> lists(root.path("hero_tags"), "hero_tags", w.table("hero_tags"), UnaryOperator.identity(), true, p.in(file));
+            case TAG_RULES -> tagRules(root, w, p.in(file));
+            case COUNTERS -> counters(root, w, p.in(file));
+            default -> throw new IllegalArgumentException("not a rule file: " + file);
+        }
+        return w.toBytes();
+    }
+
+    private static void boosts(JsonNode root, SectionWriter w, Problems.Scoped p) {
+        JsonNode tags = root.path("tag_boosts");
+        if (!tags.isObject()) {
+            p.error("missing 'tag_boosts' mapping");
+            return;
+        }
+        TableWriter t = w.table("tag_boosts");
+        tags.fields().forEachRemaining(tag -> {
+            t.row(tag.getKey());
+            JsonNode phases = tag.getValue();
+            if (phases.isNull()) return;
+            if (!phases.isObject()) {
+                p.error("tag_boosts.%s: expected a phase mapping", tag.getKey());
+                return;
+            }
+            phases.fields().forEachRemaining(phase -> {
+                String where = "tag_boosts." + tag.getKey() + "." + phase.getKey();
+                if (!PHASES.contains(phase.getKey())) p.error("%s: unknown phase (start/early/mid/late)", where);
+                JsonNode items = phase.getValue();
+                if (items.isNull()) return;
+                if (!items.isObject()) {
+                    p.error("%s: expected an item -> weight mapping", where);
+                    return;
+                }
+                items.fields().forEachRemaining(item -> {
+                    JsonNode weight = item.getValue();
+                    if (!weight.isNumber() || !Double.isFinite(weight.asDouble())) {
+                        p.error("%s.%s: weight '%s' is not a number", where, item.getKey(), weight.asText());
+                    } else if (weight.asDouble() < 0) {
+                        p.warn("%s.%s: negative weight is ignored by scoring", where, item.getKey());
+                    }
+                    t.add(item.getKey(), phase.getKey(), weight.asDouble(0.0));
+                });
+            });
+        });
+    }
+
+    private static void tagRules(JsonNode doc, SectionWriter w, Problems.Scoped p) {
+        JsonNode root = doc.path("rules");
+        if (!root.isObject()) {
+            p.error("missing 'rules' mapping");
+            return;
+        }
+        lists(root.path("roles_to_tags"), "rules.roles_to_tags", w.table("roles_to_tags"), UnaryOperator.identity(), false, p);
+        lists(root.path("ability_keywords"), "rules.ability_keywords", w.table("ability_keywords"),
+                k -> k.toLowerCase(Locale.ROOT), false, p);
+        lists(root.path("patches"), "rules.patches", w.table("patches"), UnaryOperator.identity(), false, p);
+    }
+
+    private static void counters(JsonNode root, SectionWriter w, Problems.Scoped p) {
+        if (!root.isObject()) {
+            p.error("not a mapping");
+            return;
+        }
+        RulesModel model;
+        try {
+            model = YAML.treeToValue(root, RulesModel.class);
+        } catch (JsonProcessingException e) {
+            p.error("%s", e.getOriginalMessage());
+            return;
+        }
+        TableWriter threats = w.table("threats");
+        if (model.getThreats() != null) {
+            model.getThreats().forEach((threat, t) -> {
+                threats.row(threat);
+                if (t == null || t.getItems() == null || t.getItems().isEmpty()) {
+                    p.warn("threats.%s: no items", threat);
+                    return;
+                }
+                for (var item : t.getItems()) {
+                    if (item.getName() == null || item.getName().isBlank()) {
+                        p.error("threats.%s: item without a name", threat);
+                        continue;
+                    }
+                    if (item.getReason() == null || item.getReason().isBlank()) {
+                        p.warn("threats.%s.%s: no reason", threat, item.getName());
+                    }
+                    threats.add(item.getName(), item.getReason(), 0.0);
+                }
+            });
+        }
+        // stored normalized, so "skywrath_mage", "Skywrath Mage" and "skywrathmage" all find the row
+        lists(root.path("hero_tags"), "hero_tags", w.table("hero_tags"), ItemCounterRules::normHero, false, p);
+    }
+
+    /** key -> [string, ...] mapping; null values count as empty lists. */
+    private static void lists(JsonNode map, String where, TableWriter t, UnaryOperator<String> keys,
+                              boolean required, Problems.Scoped p) {
+        if (map.isMissingNode() || map.isNull()) {
+            if (required) p.error("missing '%s' mapping", where);
+            return;
+        }
+        if (!map.isObject()) {
+            p.error("%s: expected a mapping", where);
+            return;
+        }
+        Set<String> rows = new HashSet<>();
+        map.fields().forEachRemaining(e -> {
+            String key = keys.apply(e.getKey());
+            if (!rows.add(key)) p.warn("%s.%s: same key as an earlier entry ('%s'); lists are merged", where, e.getKey(), key);
+            t.row(key);
+            JsonNode list = e.getValue();
+            if (list.isNull()) return;
+            if (!list.isArray()) {
+                p.error("%s.%s: expected a list", where, e.getKey());
+                return;
+            }
+            Set<String> seen = new HashSet<>();
+            for (JsonNode n : list) {
+                if (!n.isValueNode() || n.asText().isBlank()) {
+                    p.error("%s.%s: entries must be non-empty strings", where, e.getKey());
+                } else if (!seen.add(n.asText())) {
+                    p.warn("%s.%s: duplicate '%s'", where, e.getKey(), n.asText());
+                } else {
+                    t.add(n.asText(), null, 0.0);
+                }
+            }
+        });
+    }
+
+    /**
+     * Tags are free-form strings shared across files, so a typo silently disables a rule.
+     * Unknown tags close to a known one are errors; other unknown tags are only reported.
+     */
+    private static void crossCheck(Map<String, JsonNode> docs, Problems p) {
+        Set<String> boostTags = fieldNames(docs.get(BOOSTS), "tag_boosts");
+        Map<String, String> used = new TreeMap<>(); // tag -> first place it is used
+        collectTags(docs.get(HERO_TAGS), List.of("hero_tags"), HERO_TAGS, used);
+        collectTags(docs.get(TAG_RULES), List.of("rules", "roles_to_tags"), TAG_RULES, used);
+        collectTags(docs.get(TAG_RULES), List.of("rules", "ability_keywords"), TAG_RULES, used);
+        collectTags(docs.get(TAG_RULES), List.of("rules", "patches"), TAG_RULES, used);
+        checkKnown(used, boostTags, "tag", "without boosts", p);
+
+        Set<String> threats = fieldNames(docs.get(COUNTERS), "threats");
+        Map<String, String> threatRefs = new TreeMap<>();
+        collectTags(docs.get(COUNTERS), List.of("hero_tags"), COUNTERS, threatRefs);
+        checkKnown(threatRefs, threats, "threat", "not defined under threats", p);
+    }
+
+    private static void checkKnown(Map<String, String> used, Set<String> known, String kind, String softMessage,
+                                   Problems p) {
+        List<String> soft = new ArrayList<>();
+        used.forEach((name, where) -> {
+            if (known.contains(name)) return;
+            String near = known.stream().filter(k -> isNearMiss(name, k)).findFirst().orElse(null);
+            if (near != null) p.error("%s: unknown %s '%s', did you mean '%s'?", where, kind, name, near);
+            else soft.add(name);
+        });
+        if (!soft.isEmpty()) p.warn("%s(s) %s (%d): %s", kind, softMessage, soft.size(), soft);
+    }
+
+    private static void collectTags(JsonNode doc, List<String> path, String file, Map<String, String> out) {
+        if (doc == null) return;
+        JsonNode map = doc;
+        for (String segment : path) map = map.path(segment);
+        String where = file + ":" + String.join(".", path);
+        map.fields().forEachRemaining(e -> e.getValue().forEach(n ->
+                out.putIfAbsent(n.asText(), where + "." + e.getKey())));
+    }
+
+    private static Set<String> fieldNames(JsonNode doc, String field) {
+        Set<String> out = new HashSet<>();
+        if (doc != null) doc.path(field).fieldNames().forEachRemaining(out::add);
+        return out;
+    }
+
+    /** Edit distance of at most 1 (2 for longer names), i.e. most likely a typo. */
+    static boolean isNearMiss(String a, String b) {
+        int limit = Math.min(a.length(), b.length()) >= 8 ? 2 : 1;
+        if (Math.abs(a.length() - b.length()) > limit) return false;
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            }
+            int[] tmp = prev; prev = cur; cur = tmp;
+        }
+        return prev[b.length()] <= limit;
+    }
+
+    static byte[] bundle(Map<String, byte[]> sections, Map<String, Integer> crcs) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            int header = 12;
+            for (String file : sections.keySet()) header += 2 + file.getBytes(StandardCharsets.UTF_8).length + 12;
+            out.writeInt(RuleBundle.MAGIC);
+            out.writeInt(RuleBundle.FORMAT);
+            out.writeInt(sections.size());
+            int offset = RuleBundle.align(header);
+            for (var e : sections.entrySet()) {
+                byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeInt(crcs.getOrDefault(e.getKey(), 0));
+                out.writeInt(offset);
+                out.writeInt(e.getValue().length);
+                offset = RuleBundle.align(offset + e.getValue().length);
+            }
+            for (byte[] section : sections.values()) {
+                pad(out);
+                out.write(section);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void pad(DataOutputStream out) throws IOException {
+        while (out.size() % 4 != 0) out.writeByte(0);
+    }
+
+    /** Interns strings and lays out the tables of one section. */
+    static final class SectionWriter {
+        private final Map<String, Integer> ids = new LinkedHashMap<>();
+        private final Map<String, TableWriter> tables = new LinkedHashMap<>();
+
+        int intern(String s) {
+            if (s == null) return -1;
+            return ids.computeIfAbsent(s, k -> ids.size());
+        }
+
+        TableWriter table(String name) {
+            intern(name);
+            return tables.computeIfAbsent(name, n -> new TableWriter(this));
+        }
+
+        byte[] toBytes() {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                List<byte[]> utf8 = ids.keySet().stream().map(s -> s.getBytes(StandardCharsets.UTF_8)).toList();
+                out.writeInt(utf8.size());
+                int off = 0;
+                out.writeInt(0);
+                for (byte[] s : utf8) out.writeInt(off += s.length);
+                for (byte[] s : utf8) out.write(s);
+                pad(out);
+
+                out.writeInt(tables.size());
+                int offset = out.size() + 8 * tables.size();
+                for (var e : tables.entrySet()) {
+                    out.writeInt(ids.get(e.getKey()));
+                    out.writeInt(offset);
+                    offset += e.getValue().byteSize(ids.size());
+                }
+                for (TableWriter t : tables.values()) t.write(out, ids.size());
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    static final class TableWriter {
+        private record Entry(int value, int qualifier, double weight) {
+        }
+
+        private final SectionWriter strings;
+        private final Map<Integer, List<Entry>> rows = new LinkedHashMap<>();
+        private List<Entry> current;
+
+        TableWriter(SectionWriter strings) {
+            this.strings = strings;
+        }
+
+        void row(String key) {
+            current = rows.computeIfAbsent(strings.intern(key), k -> new ArrayList<>());
+        }
+
+        void add(String value, String qualifier, double weight) {
+            current.add(new Entry(strings.intern(value), strings.intern(qualifier), weight));
+        }
+
+        int byteSize(int stringCount) {
+            int entries = rows.values().stream().mapToInt(List::size).sum();
+            return 8 + 4 * stringCount + 4 * rows.size() + 4 * (rows.size() + 1) + 16 * entries;
+        }
+
+        void write(DataOutputStream out, int stringCount) throws IOException {
+            List<Entry> all = new ArrayList<>();
+            rows.values().forEach(all::addAll);
+            out.writeInt(rows.size());
+            out.writeInt(all.size());
+            int[] rowOf = new int[stringCount];
+            Arrays.fill(rowOf, -1);
+            int r = 0;
+            for (int key : rows.keySet()) rowOf[key] = r++;
+            for (int row : rowOf) out.writeInt(row);
+            for (int key : rows.keySet()) out.writeInt(key);
+            int start = 0;
+            out.writeInt(0);
+            for (List<Entry> entries : rows.values()) out.writeInt(start += entries.size());
+            for (Entry e : all) out.writeInt(e.value());
+            for (Entry e : all) out.writeInt(e.qualifier());
+            for (Entry e : all) out.writeDouble(e.weight());
+        }
+    }
+
+    static final class Problems {
+        final List<String> errors = new ArrayList<>();
+        final List<String> warnings = new ArrayList<>();
+
+        Scoped in(String file) {
+            return new Scoped(file);
+        }
+
+        final class Scoped {
+            private final String file;
+
+            Scoped(String file) {
+                this.file = file;
+            }
+
+            void error(String format, Object... args) {
+                errors.add(file + ": " + String.format(format, args));
+            }
+
+            void warn(String format, Object... args) {
+                warnings.add(file + ": " + String.format(format, args));
+            }
+        }
+
+        void error(String format, Object... args) {
+            errors.add(String.format(format, args));
+        }
+
+        void warn(String format, Object... args) {
+            warnings.add(String.format(format, args));
+        }
+    }
+}
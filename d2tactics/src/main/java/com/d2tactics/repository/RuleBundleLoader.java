@@ -0,0 +1,87 @@
+package com.d2tactics.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Locates the compiled rule bundle at startup and hands out its sections.
+ *
+ * Lookup order: {@code d2tactics.rules.bundle} (memory-mapped), {@code rules.bin} on the classpath
+ * (memory-mapped when exploded, copied into a direct buffer when inside the jar), and finally the
+ * rule YAML compiled in-process. A section whose YAML no longer matches the bundle's checksum
+ * (resources edited without re-running the build) is compiled from the YAML as well.
+ */
+@Component
+public class RuleBundleLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleBundleLoader.class);
+    static final String RESOURCE = "rules.bin";
+
+    private final ObjectMapper yaml;
+    private final RuleBundle bundle;
+    private final boolean checkSources;
+
+    public RuleBundleLoader(@Value("${d2tactics.rules.bundle:}") String path,
+                            @Qualifier("yamlObjectMapper") ObjectMapper yaml) {
+        this.yaml = yaml;
+        RuleBundle opened = null;
+        boolean exploded = false;
+        try {
+            if (path != null && !path.isBlank()) {
+                opened = RuleBundle.map(Path.of(path));
+                log.info("Rules mapped from {}", path);
+            } else {
+                var res = new ClassPathResource(RESOURCE);
+                if (res.isFile()) {
+                    opened = RuleBundle.map(res.getFile().toPath());
+                    exploded = true;
+                } else if (res.exists()) {
+                    try (InputStream in = res.getInputStream()) {
+                        byte[] raw = in.readAllBytes();
+                        opened = RuleBundle.read(ByteBuffer.allocateDirect(raw.length).put(raw).flip());
+                    }
+                } else {
+                    log.info("No {} on the classpath; compiling rule YAML at startup", RESOURCE);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Unusable rule bundle ({}); compiling rule YAML at startup", e.toString());
+        }
+        this.bundle = opened;
+        this.checkSources = exploded;
+    }
+
+    /** Compiled rules for one YAML file, or null when neither the bundle nor the classpath has it. */
+    public RuleBundle.Section section(String file) {
+        var res = new ClassPathResource(file);
+        try {
+            RuleBundle.Section section = bundle == null ? null : bundle.section(file);
+            if (section != null && !(checkSources && res.exists() && stale(file, res))) return section;
+            if (!res.exists()) return section;
+            try (InputStream in = res.getInputStream()) {
+                return RuleBundleCompiler.section(file, yaml.readTree(in));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load " + file, e);
+        }
+    }
+
+    private boolean stale(String file, ClassPathResource res) throws IOException {
+        try (InputStream in = res.getInputStream()) {
+            if (RuleBundleCompiler.crc(in.readAllBytes()) == bundle.sourceCrc(file)) return false;
+        }
+        log.warn("{} is newer than {}; compiling it from YAML (run the build to refresh the bundle)", file, RESOURCE);
+        return true;
+    }
+}
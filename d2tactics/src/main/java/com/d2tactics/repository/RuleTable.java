@@ -0,0 +1,124 @@
+package com.d2tactics.repository;
+
+import com.d2tactics.symbol.SymbolTable;
+import com.d2tactics.symbol.TagSet;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * One keyed table of a compiled rule section, read in place from the bundle buffer.
+ *
+ * Each row has a key and a list of entries; an entry is a value string, an optional qualifier
+ * string and a weight. E.g. tag_boosts rows are tags with (item, phase, weight) entries,
+ * hero_tags rows are heroes with (tag, -, 0) entries, threats are (item, reason, 0).
+ */
+public final class RuleTable {
+
+    static final RuleTable EMPTY = new RuleTable(null, 0, null);
+
+    private final ByteBuffer buf;
+    private final RuleBundle.Section strings;
+    private final int rows;
+    private final int rowOfAt;
+    private final int rowKeyAt;
+    private final int rowStartAt;
+    private final int valueAt;
+    private final int qualifierAt;
+    private final int weightAt;
+
+    RuleTable(ByteBuffer buf, int base, RuleBundle.Section strings) {
+        this.buf = buf;
+        this.strings = strings;
+        this.rows = buf == null ? 0 : buf.getInt(base);
+        int entries = buf == null ? 0 : buf.getInt(base + 4);
+        int n = strings == null ? 0 : strings.stringCount();
+        this.rowOfAt = base + 8;
+        this.rowKeyAt = rowOfAt + 4 * n;
+        this.rowStartAt = rowKeyAt + 4 * rows;
+        this.valueAt = rowStartAt + 4 * (rows + 1);
+        this.qualifierAt = valueAt + 4 * entries;
+        this.weightAt = qualifierAt + 4 * entries;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /** Row for a key, or -1. */
+    public int find(String key) {
+        if (rows == 0) return -1;
+        int id = strings.id(key);
+        return id < 0 ? -1 : buf.getInt(rowOfAt + 4 * id);
+    }
+
+    public String key(int row) {
+        return strings.string(buf.getInt(rowKeyAt + 4 * row));
+    }
+
+    public int size(int row) {
+        return buf.getInt(rowStartAt + 4 * (row + 1)) - buf.getInt(rowStartAt + 4 * row);
+    }
+
+    public String value(int row, int i) {
+        return strings.string(buf.getInt(valueAt + 4 * entry(row, i)));
+    }
+
+    /** Qualifier of an entry (phase, reason, ...) or null. */
+    public String qualifier(int row, int i) {
+        return strings.string(buf.getInt(qualifierAt + 4 * entry(row, i)));
+    }
+
+    public double weight(int row, int i) {
+        return buf.getDouble(weightAt + 8 * entry(row, i));
+    }
+
+    /** Per row, its values interned as tags. */
+    public TagSet[] valueTags(SymbolTable symbols) {
+        TagSet[] out = new TagSet[rows];
+        for (int r = 0; r < rows; r++) {
+            TagSet.Builder b = TagSet.builder();
+            for (int i = 0, n = size(r); i < n; i++) b.add(symbols.tag(value(r, i)));
+            out[r] = b.build();
+        }
+        return out;
+    }
+
+    /** Tag set of a row from {@link #valueTags}; empty for a missing row. */
+    public static TagSet tagsAt(TagSet[] byRow, int row) {
+        return row < 0 ? TagSet.EMPTY : byRow[row];
+    }
+
+    public List<String> keys() {
+        String[] out = new String[rows];
+        for (int r = 0; r < rows; r++) out[r] = key(r);
+        return List.of(out);
+    }
+
+    private int entry(int row, int i) {
+        return buf.getInt(rowStartAt + 4 * row) + i;
+    }
+
+    /** Keys added, removed or whose entries differ (compared by string content, in order). */
+    public static Set<String> diff(RuleTable before, RuleTable after) {
+        Set<String> changed = new HashSet<>();
+        for (int r = 0; r < after.rows(); r++) {
+            String key = after.key(r);
+            if (!sameRow(before, before.find(key), after, r)) changed.add(key);
+        }
+        for (int r = 0; r < before.rows(); r++) {
+            if (after.find(before.key(r)) < 0) changed.add(before.key(r));
+        }
+        return changed;
+    }
+
+    private static boolean sameRow(RuleTable a, int ra, RuleTable b, int rb) {
+        if (ra < 0 || a.size(ra) != b.size(rb)) return false;
+        for (int i = 0; i < a.size(ra); i++) {
+            if (!Objects.equals(a.value(ra, i), b.value(rb, i))
+                    || !Objects.equals(a.qualifier(ra, i), b.qualifier(rb, i))
+                    || Double.compare(a.weight(ra, i), b.weight(rb, i)) != 0) return false;
+        }
+        return true;
+    }
+}
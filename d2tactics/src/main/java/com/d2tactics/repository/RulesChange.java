@@ -0,0 +1,19 @@
+package com.d2tactics.repository;
+
+import java.util.Set;
+
+/**
+ * What a rules reload changed, so derived caches can drop only the affected entries.
+ *
+ * @param file        the YAML file name, e.g. "tag-item-boosts.yaml"
+ * @param version     version number the new snapshot was published with
+ * @param changedKeys top-level keys whose value was added, removed or modified
+ *                    (tags for boosts, hero slugs for hero tags / patches, threats and heroes for counters)
+ * @param structural  true when something every entry depends on changed (e.g. role or keyword rules)
+ */
+public record RulesChange(String file, long version, Set<String> changedKeys, boolean structural) {
+
+    public boolean isEmpty() {
+        return !structural && changedKeys.isEmpty();
+    }
+}
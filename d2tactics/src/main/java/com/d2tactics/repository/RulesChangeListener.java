@@ -0,0 +1,7 @@
+package com.d2tactics.repository;
+
+/** Implemented by components holding caches derived from the rule files. */
+public interface RulesChangeListener {
+
+    void onRulesChanged(RulesChange change);
+}
@@ -0,0 +1,129 @@
+package com.d2tactics.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hot reload for the rule YAML files.
+ *
+ * When {@code d2tactics.rules.dir} points at a directory, any of the rule files found there
+ * override the classpath copies, and the directory is watched with NIO {@link WatchService}.
+ * Changed files are compiled on the watcher thread into a new immutable snapshot, published
+ * under a new version number and swapped in atomically by the owning {@link ReloadableRules}.
+ * A file that fails to parse is rejected and the previous snapshot keeps serving.
+ * {@link RulesChangeListener}s are told which keys changed so they can drop only affected entries.
+ */
+@Component
+public class RulesReloader implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RulesReloader.class);
+    private static final long DEBOUNCE_MILLIS = 250;
+
+    private final String dir;
+    private final ObjectMapper yaml;
+    private final Map<String, ReloadableRules> byFile = new HashMap<>();
+    private final ObjectProvider<RulesChangeListener> listeners;
+    private final AtomicLong versions = new AtomicLong();
+
+    private WatchService watcher;
+    private Thread thread;
+
+    public RulesReloader(@Value("${d2tactics.rules.dir:}") String dir,
+                         @Qualifier("yamlObjectMapper") ObjectMapper yaml,
+                         List<ReloadableRules> rules,
+                         ObjectProvider<RulesChangeListener> listeners) {
+        this.dir = dir;
+        this.yaml = yaml;
+        this.listeners = listeners;
+        rules.forEach(r -> byFile.put(r.fileName(), r));
+    }
+
+    /** Latest version handed out (0 = classpath rules only). */
+    public long version() {
+        return versions.get();
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (dir == null || dir.isBlank()) return;
+        Path root = Path.of(dir).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            log.warn("d2tactics.rules.dir={} is not a directory; hot reload disabled", root);
+            return;
+        }
+        for (String file : byFile.keySet()) {
+            if (Files.isRegularFile(root.resolve(file))) reload(root, file);
+        }
+        watcher = root.getFileSystem().newWatchService();
+        root.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(() -> watchLoop(root), "rules-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching {} for rule changes: {}", root, byFile.keySet());
+    }
+
+    private void watchLoop(Path root) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watcher.take();
+                Set<String> changed = new TreeSet<>();
+                collect(key, changed);
+                // editors often write in several steps; let the burst settle before compiling
+                WatchKey more;
+                while ((more = watcher.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(more, changed);
+                }
+                for (String file : changed) reload(root, file);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void collect(WatchKey key, Set<String> changed) {
+        for (WatchEvent<?> ev : key.pollEvents()) {
+            if (ev.context() instanceof Path p && byFile.containsKey(p.getFileName().toString())) {
+                changed.add(p.getFileName().toString());
+            }
+        }
+        key.reset();
+    }
+
+    private void reload(Path root, String file) {
+        ReloadableRules target = byFile.get(file);
+        try (InputStream in = Files.newInputStream(root.resolve(file))) {
+            JsonNode doc = yaml.readTree(in);
+            if (doc == null || doc.isMissingNode()) throw new IllegalArgumentException("empty document");
+            long version = versions.incrementAndGet();
+            RulesChange change = target.reload(doc, version);
+            log.info("Rules {} published as v{} (changed={}, structural={})",
+                    file, version, change.changedKeys().size(), change.structural());
+            if (!change.isEmpty()) {
+                listeners.orderedStream().forEach(l -> l.onRulesChanged(change));
+            }
+        } catch (Exception e) {
+            log.warn("Rejected {} (still serving v{}): {}", file, target.version(), e.toString());
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (thread != null) thread.interrupt();
+        if (watcher != null) watcher.close();
+    }
+}
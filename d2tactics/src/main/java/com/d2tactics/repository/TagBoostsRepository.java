@@ -1,58 +1,105 @@
 package com.d2tactics.repository;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.d2tactics.symbol.ItemWeights;
+import com.d2tactics.symbol.SymbolTable;
+import com.d2tactics.symbol.TagSet;
 import com.fasterxml.jackson.databind.JsonNode;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
-public class TagBoostsRepository {
-
-    // tag -> phase (start/early/mid/late) -> itemName -> weight
-    private final Map<String, Map<String, Map<String, Double>>> boosts;
-
-    public TagBoostsRepository(@Qualifier("yamlObjectMapper") ObjectMapper yaml) {
-        try {
-            var res = new ClassPathResource("/tag-item-boosts.yaml");
-            JsonNode root = yaml.readTree(res.getInputStream());
-            Map<String, Map<String, Map<String, Double>>> tmp = new HashMap<>();
-
-            var tags = root.path("tag_boosts");
-            tags.fieldNames().forEachRemaining(tag -> {
-                Map<String, Map<String, Double>> byPhase = new HashMap<>();
-                JsonNode phases = tags.get(tag);
-                phases.fieldNames().forEachRemaining(phase -> {
-                    Map<String, Double> items = new HashMap<>();
-                    JsonNode itemNode = phases.get(phase);
-                    itemNode.fieldNames().forEachRemaining(item -> {
-                        items.put(item, itemNode.get(item).asDouble(0.0));
-                    });
-                    byPhase.put(phase, items);
-                });
-                tmp.put(tag, byPhase);
-            });
-
-            boosts = Collections.unmodifiableMap(tmp);
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to load tag-item-boosts.yaml", e);
-        }
+public class TagBoostsRepository implements ReloadableRules {
+
+    static final String FILE = "tag-item-boosts.yaml";
+    static final List<String> PHASES = List.of("start", "early", "mid", "late");
+    private static final int MAX_MEMO = 10_000;
+
+    /**
+     * Immutable compiled rules; swapped as a whole on reload.
+     * {@code byTag[tagId][phase]} is that tag's item vector (null = none).
+     */
+    private record Snapshot(long version, RuleTable boosts, ItemWeights[][] byTag) {
+    }
+
+    /** Memo key for a summed boost vector: same tags in the same phase give the same vector. */
+    private record BoostKey(int phase, TagSet tags) {
+    }
+
+    private final SymbolTable symbols;
+    private volatile Snapshot snapshot;
+    // (phase, tags) -> summed boosts; entries are dropped selectively when their tags change
+    private final Map<BoostKey, ItemWeights> memo = new ConcurrentHashMap<>();
+
+    public TagBoostsRepository(RuleBundleLoader bundles, SymbolTable symbols) {
+        this.symbols = symbols;
+        RuleBundle.Section section = bundles.section(FILE);
+        if (section == null) throw new IllegalStateException("Failed to load tag-item-boosts.yaml");
+        snapshot = compile(section.table("tag_boosts"), 0L);
     }
 
-    /** Sum weights of all tags for this phase for each item */
-    public Map<String, Double> boostsFor(Set<String> tags, String phase) {
-        Map<String, Double> sum = new HashMap<>();
-        for (String tag : tags) {
-            Map<String, Map<String, Double>> byPhase = boosts.get(tag);
-            if (byPhase == null) continue;
-            Map<String, Double> items = byPhase.get(phase);
-            if (items == null) continue;
-            for (var e : items.entrySet()) {
-                sum.merge(e.getKey(), e.getValue(), Double::sum);
+    private Snapshot compile(RuleTable table, long version) {
+        for (int r = 0; r < table.rows(); r++) symbols.tag(table.key(r));
+        ItemWeights[][] byTag = new ItemWeights[symbols.tagCount()][];
+        for (int r = 0; r < table.rows(); r++) {
+            int n = table.size(r);
+            int[][] items = new int[PHASES.size()][n];
+            double[][] weights = new double[PHASES.size()][n];
+            int[] counts = new int[PHASES.size()];
+            for (int i = 0; i < n; i++) {
+                int phase = PHASES.indexOf(table.qualifier(r, i));
+                if (phase < 0) continue;
+                items[phase][counts[phase]] = symbols.item(table.value(r, i));
+                weights[phase][counts[phase]++] = table.weight(r, i);
             }
+            ItemWeights[] byPhase = new ItemWeights[PHASES.size()];
+            for (int p = 0; p < byPhase.length; p++) {
+                if (counts[p] > 0) {
+                    byPhase[p] = ItemWeights.of(Arrays.copyOf(items[p], counts[p]), Arrays.copyOf(weights[p], counts[p]));
+                }
+            }
+            byTag[symbols.tag(table.key(r))] = byPhase;
         }
-        return sum;
+        return new Snapshot(version, table, byTag);
+    }
+
+    /** Sum weights of all tags for this phase for each item (memoized, read-only result) */
+    public ItemWeights boostsFor(TagSet tags, String phase) {
+        int p = PHASES.indexOf(phase);
+        if (p < 0) return ItemWeights.EMPTY;
+        BoostKey key = new BoostKey(p, tags);
+        ItemWeights hit = memo.get(key);
+        if (hit != null) return hit;
+
+        Snapshot current = snapshot;
+        ItemWeights[][] byTag = current.byTag();
+        List<ItemWeights> parts = new ArrayList<>();
+        tags.forEach(tag -> {
+            if (tag < byTag.length && byTag[tag] != null && byTag[tag][p] != null) parts.add(byTag[tag][p]);
+        });
+        ItemWeights result = ItemWeights.sum(parts);
+        if (memo.size() >= MAX_MEMO) memo.clear();
+        memo.put(key, result);
+        if (snapshot != current) memo.remove(key); // a reload raced us; don't keep a possibly stale vector
+        return result;
+    }
+
+    @Override
+    public String fileName() { return FILE; }
+
+    @Override
+    public long version() { return snapshot.version(); }
+
+    @Override
+    public RulesChange reload(JsonNode root, long version) {
+        var next = compile(RuleBundleCompiler.section(FILE, root).table("tag_boosts"), version);
+        var prev = snapshot;
+        snapshot = next;
+        Set<String> changedTags = RuleTable.diff(prev.boosts(), next.boosts());
+        // only vectors that include a changed tag are stale
+        TagSet changed = symbols.tags(changedTags);
+        memo.keySet().removeIf(k -> k.tags().intersects(changed));
+        return new RulesChange(FILE, version, changedTags, false);
     }
 }
@@ -1,64 +1,78 @@
 // com/d2tactics/repository/TagRulesRepository.java
 package com.d2tactics.repository;
 
+import com.d2tactics.symbol.SymbolTable;
+import com.d2tactics.symbol.TagSet;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger; import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
 
 @Component
-public class TagRulesRepository {
+public class TagRulesRepository implements ReloadableRules {
     private static final Logger log = LoggerFactory.getLogger(TagRulesRepository.class);
 
-    private final Map<String, Set<String>> roleToTags;
-    private final Map<String, Set<String>> abilityKeywordToTags;
-    private final Map<String, Set<String>> heroPatches;
+    static final String FILE = "tag-rules.yaml";
 
-    public TagRulesRepository(@Qualifier("yamlObjectMapper") ObjectMapper yaml) {
-        Map<String, Set<String>> r2t = new HashMap<>();
-        Map<String, Set<String>> k2t = new HashMap<>();
-        Map<String, Set<String>> patches = new HashMap<>();
-        try {
-            var res = new ClassPathResource("/tag-rules.yaml");
-            if (!res.exists()) {
-                log.warn("tag-rules.yaml not found; auto inference disabled.");
-            } else {
-                JsonNode root = yaml.readTree(res.getInputStream()).path("rules");
-                JsonNode roles = root.path("roles_to_tags");
-                roles.fieldNames().forEachRemaining(role -> {
-                    Set<String> tags = new HashSet<>();
-                    roles.get(role).forEach(n -> tags.add(n.asText()));
-                    r2t.put(role, tags);
-                });
-                JsonNode ab = root.path("ability_keywords");
-                ab.fieldNames().forEachRemaining(kw -> {
-                    Set<String> tags = new HashSet<>();
-                    ab.get(kw).forEach(n -> tags.add(n.asText()));
-                    k2t.put(kw.toLowerCase(Locale.ROOT), tags);
-                });
-                JsonNode p = root.path("patches");
-                if (!p.isMissingNode()) {
-                    p.fieldNames().forEachRemaining(slug -> {
-                        Set<String> tags = new HashSet<>();
-                        p.get(slug).forEach(n -> tags.add(n.asText()));
-                        patches.put(slug, tags);
-                    });
-                }
-            }
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to load tag-rules.yaml", e);
-        }
-        roleToTags = Collections.unmodifiableMap(r2t);
-        abilityKeywordToTags = Collections.unmodifiableMap(k2t);
-        heroPatches = Collections.unmodifiableMap(patches);
-        log.info("TagRules loaded: roles={}, abilityKeywords={}, patches={}", roleToTags.size(), abilityKeywordToTags.size(), heroPatches.size());
+    /** Tables plus their rows pre-resolved to tag sets; keywords keep file order. */
+    private record Snapshot(long version,
+                            RuleTable roleToTags, TagSet[] roleTags,
+                            RuleTable abilityKeywordToTags, List<String> abilityKeywords, TagSet[] keywordTags,
+                            RuleTable heroPatches, TagSet[] patchTags) {
     }
 
-    public Map<String, Set<String>> roleToTags() { return roleToTags; }
-    public Map<String, Set<String>> abilityKeywordToTags() { return abilityKeywordToTags; }
-    public Set<String> patchesFor(String slug) { return heroPatches.getOrDefault(slug, Set.of()); }
+    private final SymbolTable symbols;
+    private volatile Snapshot snapshot;
+
+    public TagRulesRepository(RuleBundleLoader bundles, SymbolTable symbols) {
+        this.symbols = symbols;
+        RuleBundle.Section section = bundles.section(FILE);
+        if (section == null) log.warn("tag-rules.yaml not found; auto inference disabled.");
+        snapshot = compile(section, 0L);
+        log.info("TagRules loaded: roles={}, abilityKeywords={}, patches={}",
+                snapshot.roleToTags().rows(), snapshot.abilityKeywordToTags().rows(), snapshot.heroPatches().rows());
+    }
+
+    private Snapshot compile(RuleBundle.Section section, long version) {
+        RuleTable roles = section == null ? RuleTable.EMPTY : section.table("roles_to_tags");
+        RuleTable keywords = section == null ? RuleTable.EMPTY : section.table("ability_keywords");
+        RuleTable patches = section == null ? RuleTable.EMPTY : section.table("patches");
+        return new Snapshot(version,
+                roles, roles.valueTags(symbols),
+                keywords, keywords.keys(), keywords.valueTags(symbols),
+                patches, patches.valueTags(symbols));
+    }
+
+    public TagSet tagsForRole(String role) {
+        Snapshot s = snapshot;
+        return RuleTable.tagsAt(s.roleTags(), s.roleToTags().find(role));
+    }
+
+    /** Lowercased keywords, in file order; index i pairs with {@link #tagsForKeyword(int)}. */
+    public List<String> abilityKeywords() { return snapshot.abilityKeywords(); }
+
+    public TagSet tagsForKeyword(int index) { return snapshot.keywordTags()[index]; }
+
+    public TagSet patchesFor(String slug) {
+        Snapshot s = snapshot;
+        return RuleTable.tagsAt(s.patchTags(), s.heroPatches().find(slug));
+    }
+
+    @Override
+    public String fileName() { return FILE; }
+
+    @Override
+    public long version() { return snapshot.version(); }
+
+    /** Patch-only edits invalidate just those heroes; role/keyword edits affect every inference. */
+    @Override
+    public RulesChange reload(JsonNode root, long version) {
+        var next = compile(RuleBundleCompiler.section(FILE, root), version);
+        var prev = snapshot;
+        snapshot = next;
+        boolean structural = !RuleTable.diff(prev.roleToTags(), next.roleToTags()).isEmpty()
+                || !RuleTable.diff(prev.abilityKeywordToTags(), next.abilityKeywordToTags()).isEmpty();
+        return new RulesChange(FILE, version, RuleTable.diff(prev.heroPatches(), next.heroPatches()), structural);
+    }
 }
@@ -1,119 +1,269 @@
 package com.d2tactics.service;
 
 import com.d2tactics.client.OpenDotaClient;
+import com.d2tactics.metrics.PipelineMetrics;
+import com.d2tactics.metrics.PipelineMetrics.Cache;
+import com.d2tactics.metrics.PipelineMetrics.Outcome;
+import com.d2tactics.metrics.PipelineMetrics.Stage;
 import com.d2tactics.repository.HeroTagsRepository;
+import com.d2tactics.repository.RulesChange;
+import com.d2tactics.repository.RulesChangeListener;
 import com.d2tactics.repository.TagRulesRepository;
+import com.d2tactics.symbol.TagSet;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger; import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.fasterxml.jackson.databind.node.NullNode;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Infers hero tags from OpenDota metadata (roles, ability texts) and tag-rules.yaml.
+ *
+ * The metadata and everything inferred from it belong to one game patch: they are refetched when
+ * {@link PatchVersionService} reports a new one, not on a timer. The three metadata documents are
+ * published together as one {@link Metadata} snapshot, and each cached inference remembers the
+ * snapshot it came from: a refresh never mixes documents of two fetches, and it invalidates every
+ * cached hero at once without clearing the map under concurrent inferences.
+ *
+ * Only inferences from a snapshot of the current patch are cached. A failed or empty fetch keeps the
+ * previous snapshot; until a fetch succeeds, lookups serve what they have (the previous patch's tags,
+ * or none) and the next lookup after {@code d2tactics.tags.metadata-retry} fetches again.
+ */
 @Service
-public class AutoHeroTagService {
+public class AutoHeroTagService implements RulesChangeListener, PatchChangeListener {
     private static final Logger log = LoggerFactory.getLogger(AutoHeroTagService.class);
 
     private final OpenDotaClient client;
     private final TagRulesRepository rules;
     private final HeroTagsRepository manual; // your current YAML repo
+    private final PipelineMetrics metrics;
+    private final Scheduler blocking;
+    private final PatchVersionService patch;
 
-    // in-memory cache: slug -> tags
-    private final Map<String, Set<String>> cache = new ConcurrentHashMap<>();
-    // throttle metadata refresh
-    private volatile long lastRefreshMillis = 0L;
-    private volatile JsonNode heroStatsCache;       // array of heroes
-    private volatile JsonNode heroAbilitiesCache;   // map slug -> ["ability_1","ability_2",...]
-    private volatile JsonNode abilitiesCache;       // map ability -> details (name, desc, etc.)
+    /**
+     * One fetch of the metadata: heroStats (array of heroes), hero_abilities (slug -> ["ability_1",...])
+     * and abilities (ability -> details). {@code patch} is the patch it was fetched for, null only for
+     * {@link #NONE} (nothing fetched yet).
+     */
+    private record Metadata(String patch, JsonNode heroStats, JsonNode heroAbilities, JsonNode abilities) {
+        static final Metadata NONE = new Metadata(null, NullNode.getInstance(), NullNode.getInstance(), NullNode.getInstance());
+    }
+
+    /**
+     * Inferred tags and the metadata they came from; a hit only while that is the current snapshot and
+     * belongs to the current patch.
+     */
+    private record Inferred(TagSet tags, Metadata from) {
+    }
+
+    // in-memory cache: slug -> tags, for heroes present in the metadata
+    private final Map<String, Inferred> cache = new ConcurrentHashMap<>();
+    private volatile Metadata metadata = Metadata.NONE;
+    // a lock rather than synchronized: the refresh blocks, and synchronized would pin virtual threads
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final Duration retryBackoff;
+    private volatile long retryAtMillis; // no fetch before this after a failed one; 0 = fetch right away
 
-    public AutoHeroTagService(OpenDotaClient client, TagRulesRepository rules, HeroTagsRepository manual) {
+    public AutoHeroTagService(OpenDotaClient client, TagRulesRepository rules, HeroTagsRepository manual,
+                              PipelineMetrics metrics, @Qualifier("blockingScheduler") Scheduler blocking,
+                              PatchVersionService patch,
+                              @Value("${d2tactics.tags.metadata-retry:PT30S}") Duration retryBackoff) {
         this.client = client;
         this.rules = rules;
         this.manual = manual;
+        this.metrics = metrics;
+        this.blocking = blocking;
+        this.patch = patch;
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * Non-blocking variant for reactive callers: answers inline when the hero is cached, otherwise
+     * runs the inference (and any metadata fetch it needs) on the blocking scheduler.
+     */
+    public Mono<TagSet> tagsForHeroAsync(String slug) {
+        if (slug == null) return Mono.just(TagSet.EMPTY);
+        String key = slug.toLowerCase(Locale.ROOT);
+        Inferred hit = cache.get(key);
+        if (hit != null && current(hit)) return Mono.fromSupplier(() -> tagsForHero(key));
+        return Mono.fromCallable(() -> tagsForHero(key)).subscribeOn(blocking);
+    }
+
+    /** Patch the metadata in use was fetched for; null before the first successful fetch. */
+    public String metadataPatch() {
+        return metadata.patch();
     }
 
     /** Public entry: merged manual + inferred (manual wins by union). */
-    public Set<String> tagsForHero(String slug) {
-        if (slug == null) return Set.of();
+    public TagSet tagsForHero(String slug) {
+        if (slug == null) return TagSet.EMPTY;
         slug = slug.toLowerCase(Locale.ROOT);
         // union: manual + inferred
-        Set<String> merged = new HashSet<>(manual.tagsForHero(slug));
-        merged.addAll(inferTags(slug));
-        return merged;
+        return manual.tagsForHero(slug).union(inferTags(slug));
     }
 
     /** Infer tags (cached). */
-    private Set<String> inferTags(String slug) {
-        return cache.computeIfAbsent(slug, s -> {
-            try {
-                ensureMetadata();
-                Set<String> tags = new HashSet<>();
-                // 1) roles -> tags
-                Optional<JsonNode> hero = findHeroBySlug(slug);
-                hero.ifPresent(h -> {
-                    JsonNode roles = h.path("roles");
-                    if (roles.isArray()) {
-                        for (JsonNode r : roles) {
-                            String role = r.asText();
-                            var mapped = rules.roleToTags().get(role);
-                            if (mapped != null) tags.addAll(mapped);
-                        }
+    private TagSet inferTags(String slug) {
+        Metadata meta = metadata;
+        Inferred hit = cache.get(slug);
+        if (hit != null && hit.from() == meta && fresh(meta)) {
+            metrics.cacheHit(Cache.HERO_TAGS);
+            return hit.tags();
+        }
+        metrics.cacheMiss(Cache.HERO_TAGS);
+        if (!fresh(meta)) {
+            if (Schedulers.isInNonBlockingThread()) {
+                // never block an event loop: fetch in the background and answer with what we have
+                // this time (the next call after the refresh infers properly)
+                if (System.currentTimeMillis() >= retryAtMillis) {
+                    Mono.fromRunnable(this::ensureMetadata).subscribeOn(blocking)
+                            .subscribe(null, e -> log.warn("AutoTag metadata refresh failed: {}", e.toString()));
+                }
+                return hit != null ? hit.tags() : TagSet.EMPTY;
+            }
+            meta = ensureMetadata();
+            // still another patch's (or no) metadata: serve the previous inference, or infer uncached,
+            // so the next call after a successful fetch infers again
+            if (!fresh(meta)) return hit != null ? hit.tags() : infer(slug, meta);
+        }
+        Metadata from = meta;
+        // only heroes in the metadata are cached, so arbitrary slugs from requests cannot grow the map
+        if (findHeroBySlug(from, slug).isEmpty()) return infer(slug, from);
+        // an entry another thread inferred meanwhile from the same or the current snapshot is kept; one
+        // inferred here from a snapshot that was replaced meanwhile is a miss on the next call
+        return cache.compute(slug, (s, cur) ->
+                cur != null && (cur.from() == from || cur.from() == metadata) ? cur : new Inferred(infer(s, from), from)
+        ).tags();
+    }
+
+    private TagSet infer(String slug, Metadata meta) {
+        long t0 = metrics.start();
+        try {
+            TagSet.Builder tags = TagSet.builder();
+            // 1) roles -> tags
+            Optional<JsonNode> hero = findHeroBySlug(meta, slug);
+            hero.ifPresent(h -> {
+                JsonNode roles = h.path("roles");
+                if (roles.isArray()) {
+                    for (JsonNode r : roles) {
+                        String role = r.asText();
+                        tags.addAll(rules.tagsForRole(role));
                     }
-                });
-
-                // 2) abilities -> tags via keyword matching
-                List<String> abilityKeys = getHeroAbilityKeys(slug);
-                Map<String, Set<String>> kw = rules.abilityKeywordToTags();
-                for (String abKey : abilityKeys) {
-                    JsonNode ab = abilitiesCache.path(abKey);
-                    if (ab.isMissingNode()) continue;
-                    String name = ab.path("dname").asText(""); // display name
-                    String desc = textBlob(ab);
-                    String hay = (name + " " + desc).toLowerCase(Locale.ROOT);
-                    for (var e : kw.entrySet()) {
-                        if (hay.contains(e.getKey())) {
-                            tags.addAll(e.getValue());
-                        }
+                }
+            });
+
+            // 2) abilities -> tags via keyword matching
+            List<String> abilityKeys = getHeroAbilityKeys(meta, slug);
+            List<String> keywords = rules.abilityKeywords();
+            for (String abKey : abilityKeys) {
+                JsonNode ab = meta.abilities().path(abKey);
+                if (ab.isMissingNode()) continue;
+                String name = ab.path("dname").asText(""); // display name
+                String desc = textBlob(ab);
+                String hay = (name + " " + desc).toLowerCase(Locale.ROOT);
+                for (int i = 0; i < keywords.size(); i++) {
+                    if (hay.contains(keywords.get(i))) {
+                        tags.addAll(rules.tagsForKeyword(i));
                     }
                 }
+            }
+
+            // 3) optional per-hero patch
+            tags.addAll(rules.patchesFor(slug));
+
+            TagSet inferred = tags.build();
+            log.debug("Inferred tags for {} => {}", slug, inferred);
+            metrics.record(Stage.TAG_INFERENCE, t0);
+            return inferred;
+        } catch (Exception e) {
+            metrics.record(Stage.TAG_INFERENCE, Outcome.ERROR, t0);
+            log.warn("Failed inferring tags for {}: {}", slug, e.toString());
+            return TagSet.EMPTY;
+        }
+    }
+
+    private boolean current(Inferred hit) {
+        Metadata m = metadata;
+        return hit.from() == m && fresh(m);
+    }
 
-                // 3) optional per-hero patch
-                tags.addAll(rules.patchesFor(slug));
+    private boolean fresh(Metadata m) {
+        return m.patch() != null && patch.tag().equals(m.patch());
+    }
+
+    /**
+     * Blocking; callers are the blocking scheduler or the warmup thread, never an event loop. Returns
+     * the current snapshot, fetching it first when it belongs to another patch, unless a fetch failed
+     * less than {@link #retryBackoff} ago. A failed fetch keeps the current snapshot.
+     */
+    private Metadata ensureMetadata() {
+        Metadata m = metadata;
+        if (fresh(m)) return m;
 
-                log.debug("Inferred tags for {} => {}", slug, tags);
-                return Collections.unmodifiableSet(tags);
-            } catch (Exception e) {
-                log.warn("Failed inferring tags for {}: {}", slug, e.toString());
-                return Set.of();
+        // refresh once per patch (subsequent threads hit cached data)
+        refreshLock.lock();
+        try {
+            m = metadata;
+            if (fresh(m) || System.currentTimeMillis() < retryAtMillis) return m;
+            String tag = patch.tag();
+            try {
+                // the three fetches run concurrently; only this thread waits
+                var all = Mono.zip(client.getHeroStats(), client.getHeroAbilities(), client.getAbilities())
+                        .block(Duration.ofSeconds(10));
+                if (all == null) throw new IllegalStateException("empty metadata response");
+                m = new Metadata(tag, all.getT1(), all.getT2(), all.getT3());
+            } catch (RuntimeException e) {
+                retryAtMillis = System.currentTimeMillis() + retryBackoff.toMillis();
+                log.warn("AutoTag metadata refresh for patch {} failed, retrying in {}: {}", tag, retryBackoff, e.toString());
+                return m;
             }
-        });
-    }
-
-    private void ensureMetadata() {
-        long now = System.currentTimeMillis();
-        if (heroStatsCache != null && (now - lastRefreshMillis) < Duration.ofMinutes(30).toMillis()) return;
-
-        // refresh synchronously once per 30m (subsequent threads hit cached data)
-        synchronized (this) {
-            if (heroStatsCache != null && (now - lastRefreshMillis) < Duration.ofMinutes(30).toMillis()) return;
-            JsonNode stats = client.getHeroStats().block(Duration.ofSeconds(10));
-            JsonNode heroAb = client.getHeroAbilities().block(Duration.ofSeconds(10));
-            JsonNode abilities = client.getAbilities().block(Duration.ofSeconds(10));
-            this.heroStatsCache = stats == null ? NullNode.getInstance() : stats;
-            this.heroAbilitiesCache = heroAb == null ? NullNode.getInstance() : heroAb;
-            this.abilitiesCache = abilities == null ? NullNode.getInstance() : abilities;
-            this.cache.clear(); // invalidate per-hero inference cache
-            this.lastRefreshMillis = System.currentTimeMillis();
-            log.info("AutoTag metadata refreshed: stats={}, hero_abilities={}, abilities={}",
-                    arraySize(heroStatsCache), heroAbilitiesCache.size(), abilitiesCache.size());
+            retryAtMillis = 0;
+            // one volatile write: readers see all three documents or none, and every cached hero of
+            // the previous snapshot turns into a miss
+            metadata = m;
+            log.info("AutoTag metadata refreshed for patch {}: stats={}, hero_abilities={}, abilities={}",
+                    tag, arraySize(m.heroStats()), m.heroAbilities().size(), m.abilities().size());
+            return m;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Inferred tags depend on tag-rules.yaml only: patch edits drop just those heroes, role/keyword
+     * edits drop everything. hero-tags.yaml is merged per call, so nothing cached depends on it.
+     */
+    @Override
+    public void onRulesChanged(RulesChange change) {
+        if (!change.file().equals(rules.fileName())) return;
+        if (change.structural()) {
+            cache.clear();
+        } else {
+            change.changedKeys().forEach(cache::remove);
         }
     }
 
-    private Optional<JsonNode> findHeroBySlug(String slug) {
-        if (heroStatsCache == null || !heroStatsCache.isArray()) return Optional.empty();
-        for (JsonNode h : heroStatsCache) {
+    /** Refetches the metadata in the background; the refresh drops every inferred tag set. */
+    @Override
+    public void onPatchChanged(PatchVersionService.PatchVersion previous, PatchVersionService.PatchVersion next) {
+        if (next.id().equals(metadata.patch())) return;
+        retryAtMillis = 0; // a failure on the previous patch does not hold back this one
+        Mono.fromRunnable(this::ensureMetadata).subscribeOn(blocking)
+                .subscribe(null, e -> log.warn("AutoTag metadata refresh after patch failed: {}", e.toString()));
+    }
+
+    private static Optional<JsonNode> findHeroBySlug(Metadata meta, String slug) {
+        if (!meta.heroStats().isArray()) return Optional.empty();
+        for (JsonNode h : meta.heroStats()) {
             // OpenDota heroStats holds "id", "localized_name", "name": "npc_dota_hero_axe"
             String name = h.path("name").asText(""); // e.g., npc_dota_hero_crystal_maiden
             String s = name.replace("npc_dota_hero_", "");
@@ -122,8 +272,8 @@ public class AutoHeroTagService {
         return Optional.empty();
     }
 
-    private List<String> getHeroAbilityKeys(String slug) {
-        JsonNode arr = heroAbilitiesCache.path(slug);
+    private static List<String> getHeroAbilityKeys(Metadata meta, String slug) {
+        JsonNode arr = meta.heroAbilities().path(slug);
         List<String> keys = new ArrayList<>();
         if (arr.isArray()) {
             for (JsonNode n : arr) {
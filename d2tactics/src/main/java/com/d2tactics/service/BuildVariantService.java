@@ -0,0 +1,232 @@
+package com.d2tactics.service;
+
+import com.d2tactics.build.BuildVariantEngine;
+import com.d2tactics.build.BuildVariantEngine.Purchase;
+import com.d2tactics.build.BuildVariantEngine.Variant;
+import com.d2tactics.cache.L2Cache;
+import com.d2tactics.cache.L2Cache.Namespace;
+import com.d2tactics.client.OpenDotaClient;
+import com.d2tactics.service.ItemConstantsHolder.Item;
+import com.d2tactics.service.ItemConstantsHolder.ItemConstants;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Build variants per hero, clustered from explorer purchase logs by {@link BuildVariantEngine}.
+ *
+ * Results are tagged with the patch they were computed under ({@link PatchVersionService}): cached
+ * in process and in the L2 (keyed by patch) until the patch changes, with
+ * {@code d2tactics.variants.ttl} only as a safety net. Concurrent misses for one hero share a
+ * single explorer query. Warmup precomputes the popular heroes in parallel and a patch change
+ * recomputes every cached hero, both through the L2 like requests; the clustering itself runs on
+ * the CPU pool.
+ */
+@Service
+public class BuildVariantService implements PatchChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(BuildVariantService.class);
+
+    private final OpenDotaClient client;
+    private final ItemConstantsHolder constants;
+    private final L2Cache l2;
+    private final PatchVersionService patch;
+    private final Scheduler cpu;
+    private final Duration ttl;
+    private final int matchLimit;
+    private final int minItemCost;
+    private final int maxVariants;
+    private final int concurrency;
+    private final RequestCoalescer<Long, JsonNode> calls;
+
+    // heroId -> last computed variants (only non-empty results are stored)
+    private final Map<Long, Cached> cache = new ConcurrentHashMap<>();
+
+    private record Cached(JsonNode body, String patch, long expiresAtMillis) {
+        boolean fresh(String currentPatch, long now) { return patch.equals(currentPatch) && now < expiresAtMillis; }
+    }
+
+    public BuildVariantService(OpenDotaClient client,
+                               ItemConstantsHolder constants,
+                               L2Cache l2,
+                               PatchVersionService patch,
+                               @Qualifier("cpuScheduler") Scheduler cpu,
+                               MeterRegistry registry,
+                               @Value("${d2tactics.variants.ttl:PT24H}") Duration ttl,
+                               @Value("${d2tactics.variants.match-limit:2000}") int matchLimit,
+                               @Value("${d2tactics.variants.min-item-cost:1000}") int minItemCost,
+                               @Value("${d2tactics.variants.max:4}") int maxVariants,
+                               @Value("${d2tactics.variants.precompute-concurrency:4}") int concurrency) {
+        this.client = client;
+        this.constants = constants;
+        this.l2 = l2;
+        this.patch = patch;
+        this.cpu = cpu;
+        this.ttl = ttl;
+        this.matchLimit = matchLimit;
+        this.minItemCost = minItemCost;
+        this.maxVariants = maxVariants;
+        this.concurrency = Math.max(1, concurrency);
+        this.calls = new RequestCoalescer<>("build_variants", 256, registry);
+    }
+
+    /**
+     * {heroId, matches, variants: [{matches, share, items: [{key, name, share, position, minute}]}]},
+     * variants ordered by how many matches they cover, items in typical purchase order.
+     */
+    public Mono<JsonNode> variants(long heroId) {
+        Cached cached = cache.get(heroId);
+        if (cached != null && cached.fresh(patch.tag(), System.currentTimeMillis())) return Mono.just(cached.body());
+        return load(heroId);
+    }
+
+    /**
+     * Loads the given heroes in parallel (bounded) the way a request would, so a hero already cached
+     * here or published to the L2 by another replica is not recomputed; emits how many have variants.
+     */
+    public Mono<Integer> precompute(Collection<Long> heroIds) {
+        return Flux.fromIterable(heroIds)
+                .flatMap(id -> variants(id)
+                        .onErrorResume(e -> {
+                            log.debug("Build variants for hero {} failed: {}", id, e.toString());
+                            return Mono.empty();
+                        }), concurrency)
+                .filter(body -> !body.path("variants").isEmpty())
+                .count()
+                .map(Long::intValue);
+    }
+
+    /** Recomputes every hero cached under an older patch; until then they are treated as misses. */
+    @Override
+    public void onPatchChanged(PatchVersionService.PatchVersion previous, PatchVersionService.PatchVersion next) {
+        List<Long> heroes = new ArrayList<>();
+        cache.forEach((id, cached) -> { if (!cached.patch().equals(next.id())) heroes.add(id); });
+        if (heroes.isEmpty()) return;
+        precompute(heroes).subscribe(
+                n -> log.info("Build variants recomputed for patch {}: {}/{} heroes", next.id(), n, heroes.size()),
+                e -> log.warn("Build variants recompute failed: {}", e.toString()));
+    }
+
+    private Mono<JsonNode> load(long heroId) {
+        return calls.get(heroId, id -> {
+            String tag = patch.tag();
+            if (!PatchVersionService.known(tag)) return compute(id); // placeholder tag: nothing shared
+            return l2.get(Namespace.BUILD_VARIANTS, id + "@" + tag)
+                    .doOnNext(e -> cache.put(id, new Cached(e.value(), tag, e.expiresAtMillis())))
+                    .map(L2Cache.Entry::value)
+                    .switchIfEmpty(Mono.defer(() -> compute(id)));
+        });
+    }
+
+    private Mono<JsonNode> compute(long heroId) {
+        String tag = patch.tag();
+        return Mono.zip(queryPurchases(heroId), constants.get())
+                .publishOn(cpu)
+                .map(t -> {
+                    ItemConstants items = t.getT2();
+                    List<Variant> variants = BuildVariantEngine.infer(t.getT1(), key -> isCore(items, key),
+                            BuildVariantEngine.Params.defaults(maxVariants));
+                    return toJson(heroId, t.getT1().size(), variants, items);
+                })
+                .doOnNext(body -> {
+                    if (body.path("variants").isEmpty()) return;
+                    cache.put(heroId, new Cached(body, tag, System.currentTimeMillis() + ttl.toMillis()));
+                    if (PatchVersionService.known(tag)) l2.put(Namespace.BUILD_VARIANTS, heroId + "@" + tag, body, ttl);
+                });
+    }
+
+    /** Finished items worth clustering on: no consumables, components or recipes. */
+    private boolean isCore(ItemConstants items, String key) {
+        if (key.startsWith("recipe_")) return false;
+        Item item = items.byKey().get(key);
+        return item != null && item.cost() >= minItemCost;
+    }
+
+    /** One explorer row of the purchases query. */
+    record PurchaseRow(@JsonProperty("match_id") long matchId, String purchases) {
+    }
+
+    private Mono<List<List<Purchase>>> queryPurchases(long heroId) {
+        // one row per match: "key:seconds,key:seconds,..." in purchase order
+        String sql = """
+            WITH pm AS (
+              SELECT pm.match_id, pm.purchase_log
+              FROM player_matches pm
+              WHERE pm.hero_id = %d
+              AND pm.purchase_log IS NOT NULL
+              LIMIT %d
+            )
+            SELECT pm.match_id,
+                   string_agg((pl->>'key') || ':' || (pl->>'time'), ',' ORDER BY (pl->>'time')::int) AS purchases
+            FROM pm, LATERAL jsonb_array_elements(pm.purchase_log) AS pl
+            WHERE (pl->>'time') ~ '^-?[0-9]+$'
+            GROUP BY pm.match_id;
+            """.formatted(heroId, Math.max(100, matchLimit));
+
+        // each row is parsed into its log as it arrives; only the logs are kept, not the response
+        return client.explorerRows(sql, PurchaseRow.class)
+                .filter(row -> row.purchases() != null && !row.purchases().isEmpty())
+                .map(row -> parseLog(row.purchases()))
+                .collectList()
+                .timeout(Duration.ofSeconds(20));
+    }
+
+    private static List<Purchase> parseLog(String purchases) {
+        List<Purchase> log = new ArrayList<>();
+        for (String entry : purchases.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) continue;
+            try {
+                log.add(new Purchase(entry.substring(0, colon), Integer.parseInt(entry.substring(colon + 1))));
+            } catch (NumberFormatException ignored) {
+                // malformed entry, skip it
+            }
+        }
+        return log;
+    }
+
+    private static JsonNode toJson(long heroId, int matches, List<Variant> variants, ItemConstants items) {
+        ObjectNode root = JsonNodeFactory.instance.objectNode();
+        root.put("heroId", heroId);
+        root.put("matches", matches);
+        ArrayNode arr = root.putArray("variants");
+        for (Variant v : variants) {
+            ObjectNode vn = arr.addObject();
+            vn.put("matches", v.matches());
+            vn.put("share", round(v.share()));
+            ArrayNode steps = vn.putArray("items");
+            for (BuildVariantEngine.Step s : v.steps()) {
+                Item item = items.byKey().get(s.key());
+                steps.addObject()
+                        .put("key", s.key())
+                        .put("name", item != null ? item.name() : s.key())
+                        .put("share", round(s.share()))
+                        .put("position", round(s.avgPosition()))
+                        .put("minute", round(s.medianMinute()));
+            }
+        }
+        return root;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.d2tactics.service;
+
+import com.d2tactics.recommend.ItemCounterRules;
+import com.d2tactics.recommend.ItemSuggestion;
+import com.d2tactics.repository.RulesChange;
+import com.d2tactics.repository.RulesChangeListener;
+import com.d2tactics.symbol.SymbolTable;
+import com.d2tactics.symbol.TagSet;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counter items with reasons for an enemy hero or a whole lineup.
+ *
+ * An enemy's threats are its item-counters.yaml hero_tags plus any of its hero tags that are
+ * defined threats. The resulting suggestion list is built once per hero and reused until the
+ * hero's tags or the counter rules change; lineups merge the per-hero lists. Only heroes the
+ * {@link HeroResolver} knows are kept, so arbitrary enemy= values cannot grow the cache.
+ */
+@Service
+public class CounterReasonService implements RulesChangeListener {
+
+    /** Counters for one enemy, best first, plus an item-id index. Built once and never mutated afterwards. */
+    public record Counters(String enemy, TagSet enemyTags, TagSet threats,
+                           List<ItemSuggestion> items, Map<Integer, ItemSuggestion> byItem) {
+    }
+
+    private final ItemCounterRules rules;
+    private final AutoHeroTagService autoTags;
+    private final SymbolTable symbols;
+    private final HeroResolver heroes;
+
+    // normalized hero key -> precomputed counters, resolvable heroes only
+    private final Map<String, Counters> byHero = new ConcurrentHashMap<>();
+
+    public CounterReasonService(ItemCounterRules rules, AutoHeroTagService autoTags, SymbolTable symbols,
+                                HeroResolver heroes) {
+        this.rules = rules;
+        this.autoTags = autoTags;
+        this.symbols = symbols;
+        this.heroes = heroes;
+    }
+
+    /** Counters for one enemy given its current tags (see {@link AutoHeroTagService#tagsForHeroAsync}). */
+    public Counters forEnemy(String slug, TagSet enemyTags) {
+        // names the index does not know (junk, heroes newer than it) are built every time, not cached
+        Long id = slug == null ? null : heroes.resolve(slug);
+        String known = id == null ? null : heroes.slugOf(id);
+        if (known == null) return build(slug, enemyTags);
+        String key = ItemCounterRules.normHero(known);
+        Counters hit = byHero.get(key);
+        // inferred tags refresh on their own schedule; a different tag set means the list is stale
+        if (hit != null && hit.enemyTags().equals(enemyTags)) return hit;
+        Counters built = build(known, enemyTags);
+        byHero.put(key, built);
+        return built;
+    }
+
+    private Counters build(String slug, TagSet enemyTags) {
+        TagSet threats = rules.tagsForHero(slug).union(rules.threatsIn(enemyTags));
+        List<ItemSuggestion> items = new ArrayList<>(rules.itemsForThreats(threats));
+        items.forEach(s -> s.score(s.getFromThreats().size()));
+        items.sort(Comparator.comparingInt(ItemSuggestion::getScore).reversed());
+        Map<Integer, ItemSuggestion> byItem = new HashMap<>();
+        items.forEach(s -> byItem.put(symbols.item(s.getName()), s));
+        return new Counters(slug, enemyTags, threats, List.copyOf(items), Collections.unmodifiableMap(byItem));
+    }
+
+    /** Merged counters for several enemies; an item's score is the number of enemy threats it answers. */
+    public Mono<ObjectNode> lineup(List<String> slugs, int top) {
+        return Flux.fromIterable(slugs)
+                .concatMap(slug -> autoTags.tagsForHeroAsync(slug).map(tags -> forEnemy(slug, tags)))
+                .collectList()
+                .map(all -> lineupJson(all, top));
+    }
+
+    private ObjectNode lineupJson(List<Counters> lineup, int top) {
+        ObjectNode out = JsonNodeFactory.instance.objectNode();
+        ArrayNode enemies = out.putArray("enemies");
+        ObjectNode threatsByEnemy = out.putObject("threats");
+        Map<String, ItemSuggestion> merged = new LinkedHashMap<>();
+        for (Counters c : lineup) {
+            enemies.add(c.enemy());
+            ArrayNode t = threatsByEnemy.putArray(c.enemy());
+            c.threats().forEach(id -> t.add(symbols.tagName(id)));
+            for (ItemSuggestion s : c.items()) {
+                ItemSuggestion m = merged.computeIfAbsent(s.getName(), ItemSuggestion::new);
+                s.getReasons().forEach(m::addReason);
+                s.getFromThreats().forEach(m::addThreat);
+                m.score(m.getScore() + s.getScore());
+            }
+        }
+        List<ItemSuggestion> ranked = new ArrayList<>(merged.values());
+        ranked.sort(Comparator.comparingInt(ItemSuggestion::getScore).reversed());
+        out.set("items", itemsJson(ranked, top));
+        return out;
+    }
+
+    /** [{name, reasons, threats, score}] for the first {@code top} suggestions. */
+    public static ArrayNode itemsJson(List<ItemSuggestion> items, int top) {
+        ArrayNode arr = JsonNodeFactory.instance.arrayNode();
+        for (int i = 0; i < Math.min(Math.max(1, top), items.size()); i++) arr.add(itemJson(items.get(i)));
+        return arr;
+    }
+
+    /** {reasons, threats} for one item, as merged into recommendation responses. */
+    public static ObjectNode explanationJson(ItemSuggestion s) {
+        ObjectNode n = JsonNodeFactory.instance.objectNode();
+        s.getReasons().forEach(n.putArray("reasons")::add);
+        s.getFromThreats().forEach(n.putArray("threats")::add);
+        return n;
+    }
+
+    private static ObjectNode itemJson(ItemSuggestion s) {
+        ObjectNode n = JsonNodeFactory.instance.objectNode().put("name", s.getName());
+        n.setAll(explanationJson(s));
+        n.put("score", s.getScore());
+        return n;
+    }
+
+    /** Counter-rule edits drop the heroes or threats they touch; tag changes are caught by the tag check. */
+    @Override
+    public void onRulesChanged(RulesChange change) {
+        if (!change.file().equals(rules.fileName())) return;
+        for (String key : change.changedKeys()) {
+            if (key.startsWith("hero:")) {
+                byHero.remove(key.substring("hero:".length()));
+            } else if (key.startsWith("threat:")) {
+                int threat = symbols.tagIfPresent(key.substring("threat:".length()));
+                byHero.values().removeIf(c -> threat < 0
+                        || c.threats().contains(threat) || c.enemyTags().contains(threat));
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.d2tactics.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Decaying access frequency per hero id, which ranks heroes for {@link PopularityPrefetcher}.
+ *
+ * TinyLFU-style aging: each access bumps a saturating counter, and after every
+ * {@code d2tactics.prefetch.decay-sample} accesses all counters are halved, so the ranking follows
+ * recent demand instead of all-time totals. Hero ids are small, so the table is indexed by id
+ * directly; recording is a single atomic increment.
+ */
+@Component
+public class HeroAccessTracker {
+
+    private static final int SIZE = 512; // hero ids are below 200 today
+    private static final int MAX_COUNT = 0xFFFF;
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(SIZE);
+    private final AtomicInteger sinceAging = new AtomicInteger();
+    private final int sample;
+
+    public HeroAccessTracker(@Value("${d2tactics.prefetch.decay-sample:2000}") int sample) {
+        this.sample = Math.max(16, sample);
+    }
+
+    public void record(long heroId) {
+        if (heroId < 0 || heroId >= SIZE) return;
+        int slot = (int) heroId;
+        if (counts.get(slot) < MAX_COUNT) counts.incrementAndGet(slot);
+        if (sinceAging.incrementAndGet() % sample == 0) age();
+    }
+
+    public int frequency(long heroId) {
+        return heroId < 0 || heroId >= SIZE ? 0 : counts.get((int) heroId);
+    }
+
+    /** Up to {@code limit} hero ids that were accessed recently, most frequent first. */
+    public long[] hottest(int limit) {
+        long[] packed = new long[SIZE]; // count << 32 | id, so one sort orders by count
+        int n = 0;
+        for (int id = 0; id < SIZE; id++) {
+            int c = counts.get(id);
+            if (c > 0) packed[n++] = ((long) c << 32) | id;
+        }
+        Arrays.sort(packed, 0, n);
+        int k = Math.min(limit, n);
+        long[] out = new long[k];
+        for (int i = 0; i < k; i++) out[i] = packed[n - 1 - i] & 0xFFFFFFFFL;
+        return out;
+    }
+
+    private void age() {
+        for (int i = 0; i < SIZE; i++) {
+            int c;
+            do {
+                c = counts.get(i);
+            } while (c != 0 && !counts.compareAndSet(i, c, c >>> 1));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.d2tactics.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Everything one hero view needs, in one response.
+ *
+ * Sections are fetched in parallel: popularity (named), median timings, build variants and, with
+ * an enemy, recommendations for all phases plus the enemy's counter items. Popularity is loaded
+ * and named once and shared with the recommendations, which score a copy with borrowed counts
+ * added (the popularity section shows the hero's own). Each section has its own deadline
+ * ({@code d2tactics.hero-page.deadline.*}); a section that times out or fails is reported in
+ * {@code sections} and left out, the others are still returned:
+ *
+ *   {"hero": {...}, "enemy": "zeus",
+ *    "sections": {"popularity": {"status": "ok", "ms": 12}, "timings": {"status": "timeout", "ms": 4000}, ...},
+ *    "popularity": {...}, "variants": {...}, "recommendations": {...}, "counters": {...}}
+ *
+ * Status is one of ok, timeout, error or skipped (no enemy given).
+ */
+@Service
+public class HeroPageService {
+
+    private final ItemPopularityService popularity;
+    private final ItemTimingService timings;
+    private final BuildVariantService variants;
+    private final RecommendationService recommendations;
+    private final CounterReasonService counters;
+
+    private final Duration popularityDeadline;
+    private final Duration timingsDeadline;
+    private final Duration variantsDeadline;
+    private final Duration recommendationsDeadline;
+    private final Duration countersDeadline;
+
+    private record Section(String name, String status, JsonNode body, long millis) {
+    }
+
+    public HeroPageService(ItemPopularityService popularity,
+                           ItemTimingService timings,
+                           BuildVariantService variants,
+                           RecommendationService recommendations,
+                           CounterReasonService counters,
+                           @Value("${d2tactics.hero-page.deadline.popularity:PT3S}") Duration popularityDeadline,
+                           @Value("${d2tactics.hero-page.deadline.timings:PT4S}") Duration timingsDeadline,
+                           @Value("${d2tactics.hero-page.deadline.variants:PT4S}") Duration variantsDeadline,
+                           @Value("${d2tactics.hero-page.deadline.recommendations:PT3S}") Duration recommendationsDeadline,
+                           @Value("${d2tactics.hero-page.deadline.counters:PT2S}") Duration countersDeadline) {
+        this.popularity = popularity;
+        this.timings = timings;
+        this.variants = variants;
+        this.recommendations = recommendations;
+        this.counters = counters;
+        this.popularityDeadline = popularityDeadline;
+        this.timingsDeadline = timingsDeadline;
+        this.variantsDeadline = variantsDeadline;
+        this.recommendationsDeadline = recommendationsDeadline;
+        this.countersDeadline = countersDeadline;
+    }
+
+    /** {@code enemySlug} may be null: recommendations and counters are then skipped. */
+    public Mono<ObjectNode> page(HeroResolver.Hero hero, String enemySlug, int top) {
+        Mono<JsonNode> named = popularity.getItemPopularityNamed(hero.id()).cache();
+        // the section shows the hero's own counts; recommendations score with borrowed ones on top
+        Mono<JsonNode> scoring = named.flatMap(n -> popularity.withBorrowed(hero.id(), n));
+        boolean withEnemy = enemySlug != null && !enemySlug.isBlank();
+
+        List<Mono<Section>> parts = new ArrayList<>();
+        parts.add(section("popularity", named, popularityDeadline));
+        parts.add(section("timings", timings.medianTimings(hero.id(), 8, 60), timingsDeadline));
+        parts.add(section("variants", variants.variants(hero.id()), variantsDeadline));
+        if (withEnemy) {
+            parts.add(section("recommendations",
+                    recommendations.recommendAllPhases(hero.id(), enemySlug, top, false, scoring), recommendationsDeadline));
+            parts.add(section("counters", counters.lineup(List.of(enemySlug), top), countersDeadline));
+        }
+
+        return Flux.merge(parts).collectList().map(done -> {
+            ObjectNode root = JsonNodeFactory.instance.objectNode();
+            root.putObject("hero").put("id", hero.id()).put("slug", hero.slug()).put("name", hero.name());
+            if (withEnemy) root.put("enemy", enemySlug);
+            ObjectNode sections = root.putObject("sections");
+            for (String name : List.of("popularity", "timings", "variants", "recommendations", "counters")) {
+                Section s = done.stream().filter(d -> d.name().equals(name)).findFirst().orElse(null);
+                if (s == null) {
+                    sections.putObject(name).put("status", "skipped");
+                    continue;
+                }
+                sections.putObject(name).put("status", s.status()).put("ms", s.millis());
+                if (s.body() != null) root.set(name, s.body());
+            }
+            return root;
+        });
+    }
+
+    private static Mono<Section> section(String name, Mono<? extends JsonNode> work, Duration deadline) {
+        return Mono.defer(() -> {
+            long t0 = System.nanoTime();
+            return work
+                    .<JsonNode>map(body -> body)
+                    .defaultIfEmpty(JsonNodeFactory.instance.objectNode())
+                    .timeout(deadline)
+                    .map(body -> new Section(name, "ok", body, elapsed(t0)))
+                    .onErrorResume(e -> Mono.just(new Section(name,
+                            e instanceof TimeoutException ? "timeout" : "error", null, elapsed(t0))));
+        });
+    }
+
+    private static long elapsed(long t0) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+    }
+}
@@ -0,0 +1,376 @@
+package com.d2tactics.service;
+
+import com.d2tactics.client.OpenDotaClient;
+import com.d2tactics.util.HeroIdMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Shared hero name resolution: internal slugs ("doom_bringer", "furion"), localized names
+ * ("Doom", "Nature's Prophet"), common aliases ("pa", "qop", "np") and numeric ids.
+ *
+ * The index is precomputed and swapped as a whole. It starts from {@link HeroIdMapper} and is
+ * enriched from /heroStats (localized names, heroes newer than the static map) at startup and
+ * whenever {@link PatchVersionService} sees a new patch, which is when new heroes ship.
+ * Lookups normalize on the fly (lowercase a-z0-9, everything else dropped) against an
+ * open-addressing table, so resolving a name allocates nothing. Names that miss get one fuzzy
+ * pass (edit distance 1, or 2 for longer names) to absorb typos like "juggernot"; autocomplete
+ * applies the same tolerance to prefixes ("juggar" still finds Juggernaut).
+ */
+@Component
+public class HeroResolver implements PatchChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(HeroResolver.class);
+    private static final String NPC_PREFIX = "npc_dota_hero_";
+
+    /** Community shorthands and old names; keys are normalized, values are internal slugs. */
+    private static final Map<String, String> ALIASES = Map.ofEntries(
+            Map.entry("am", "antimage"), Map.entry("cm", "crystal_maiden"), Map.entry("es", "earthshaker"),
+            Map.entry("sf", "shadow_fiend"), Map.entry("pl", "phantom_lancer"), Map.entry("sk", "sand_king"),
+            Map.entry("ss", "shadow_shaman"), Map.entry("vs", "vengeful_spirit"), Map.entry("wr", "windranger"),
+            Map.entry("windrunner", "windranger"), Map.entry("wd", "witch_doctor"), Map.entry("qop", "queenofpain"),
+            Map.entry("fv", "faceless_void"), Map.entry("wk", "skeleton_king"), Map.entry("dp", "death_prophet"),
+            Map.entry("pa", "phantom_assassin"), Map.entry("ta", "templar_assassin"), Map.entry("dk", "dragon_knight"),
+            Map.entry("clock", "rattletrap"), Map.entry("np", "furion"), Map.entry("ls", "life_stealer"),
+            Map.entry("naix", "life_stealer"), Map.entry("ds", "dark_seer"), Map.entry("omni", "omniknight"),
+            Map.entry("bh", "bounty_hunter"), Map.entry("bat", "batrider"), Map.entry("aa", "ancient_apparition"),
+            Map.entry("sb", "spirit_breaker"), Map.entry("bara", "spirit_breaker"), Map.entry("gyro", "gyrocopter"),
+            Map.entry("od", "obsidian_destroyer"), Map.entry("brew", "brewmaster"), Map.entry("ld", "lone_druid"),
+            Map.entry("ck", "chaos_knight"), Map.entry("ogre", "ogre_magi"), Map.entry("kotl", "keeper_of_the_light"),
+            Map.entry("io", "wisp"), Map.entry("bb", "bristleback"), Map.entry("sky", "skywrath_mage"),
+            Map.entry("et", "elder_titan"), Map.entry("lc", "legion_commander"), Map.entry("ember", "ember_spirit"),
+            Map.entry("underlord", "abyssal_underlord"), Map.entry("tb", "terrorblade"), Map.entry("ww", "winter_wyvern"),
+            Map.entry("mk", "monkey_king"), Map.entry("pango", "pangolier"), Map.entry("void", "void_spirit"),
+            Map.entry("timber", "shredder"), Map.entry("magnus", "magnataur"), Map.entry("necro", "necrolyte"),
+            Map.entry("sd", "shadow_demon"), Map.entry("nyx", "nyx_assassin"), Map.entry("naga", "naga_siren"),
+            Map.entry("tiny", "tiny"), Map.entry("veno", "venomancer"), Map.entry("troll", "troll_warlord"),
+            Map.entry("arc", "arc_warden"), Map.entry("cent", "centaur"), Map.entry("ns", "night_stalker"),
+            Map.entry("bs", "bloodseeker"), Map.entry("jugg", "juggernaut"), Map.entry("morph", "morphling"),
+            Map.entry("ench", "enchantress"), Map.entry("alch", "alchemist"), Map.entry("treant", "treant"),
+            Map.entry("wyvern", "winter_wyvern"), Map.entry("dazz", "dazzle"), Map.entry("invo", "invoker")
+    );
+
+    /** One resolvable hero: id, internal slug, display name. */
+    public record Hero(long id, String slug, String name) {
+    }
+
+    private final OpenDotaClient client;
+    private volatile Index index;
+
+    public HeroResolver(OpenDotaClient client) {
+        this.client = client;
+        this.index = Index.build(seed());
+    }
+
+    /**
+     * Hero id for any accepted spelling, a numeric id, or null. A typo resolves only when a single hero
+     * is closest to it ("lin" is as near lina as lion, so it is null).
+     */
+    public Long resolve(String input) {
+        if (input == null) return null;
+        long numeric = parseId(input);
+        if (numeric >= 0) return numeric;
+        Index idx = index;
+        int id = idx.find(input);
+        if (id < 0) id = idx.fuzzy(input);
+        return id < 0 ? null : (long) id;
+    }
+
+    /** Internal slug (e.g. "doom_bringer") for an id, or null. */
+    public String slugOf(long id) {
+        Index idx = index;
+        return id >= 0 && id < idx.slugById.length ? idx.slugById[(int) id] : null;
+    }
+
+    /** The hero for an id, or null when the id is unknown. */
+    public Hero hero(long id) {
+        Index idx = index;
+        return id >= 0 && id < idx.heroById.length ? idx.heroById[(int) id] : null;
+    }
+
+    /**
+     * Canonical slug for any accepted spelling ("Doom" -> "doom_bringer"). Unknown names fall back to
+     * the trimmed, lowercased input with spaces as underscores, so heroes newer than the index still
+     * reach the rule lookups.
+     */
+    public String canonicalSlug(String input) {
+        if (input == null) return null;
+        Long id = resolve(input.trim());
+        String slug = id == null ? null : slugOf(id);
+        return slug != null ? slug : input.trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+    }
+
+    /**
+     * Autocomplete: heroes whose name, slug or alias starts with {@code query}, then those that merely
+     * contain it, then, while there is room, those that start with something a typo away from it
+     * (same tolerance as {@link #resolve}, closest first); each hero once, alphabetical within the
+     * first two groups. An empty query lists heroes by name.
+     */
+    public List<Hero> search(String query, int limit) {
+        Index idx = index;
+        String q = normalize(query == null ? "" : query);
+        int max = Math.max(1, limit);
+        LinkedHashSet<Integer> hits = new LinkedHashSet<>();
+        if (q.isEmpty()) {
+            for (Hero h : idx.byName) {
+                if (hits.size() >= max) break;
+                hits.add((int) h.id());
+            }
+        } else {
+            // prefix matches via binary search over the sorted keys
+            int lo = Arrays.binarySearch(idx.sortedKeys, q);
+            if (lo < 0) lo = -lo - 1;
+            List<Hero> starts = new ArrayList<>();
+            for (int i = lo; i < idx.sortedKeys.length && idx.sortedKeys[i].startsWith(q); i++) {
+                starts.add(idx.heroById[idx.sortedIds[i]]);
+            }
+            starts.sort(Comparator.comparing(Hero::name));
+            for (Hero h : starts) hits.add((int) h.id());
+            for (int i = 0; i < idx.sortedKeys.length && hits.size() < max; i++) {
+                if (idx.sortedKeys[i].contains(q)) hits.add(idx.sortedIds[i]);
+            }
+            idx.fuzzyPrefix(q, hits, max);
+        }
+        List<Hero> out = new ArrayList<>();
+        for (int id : hits) {
+            if (out.size() >= max) break;
+            out.add(idx.heroById[id]);
+        }
+        return out;
+    }
+
+    /** Every known hero, ordered by display name. */
+    public List<Hero> all() {
+        return index.byName;
+    }
+
+    @Override
+    public void onPatchChanged(PatchVersionService.PatchVersion previous, PatchVersionService.PatchVersion next) {
+        refresh().subscribe(null, e -> log.warn("Hero index refresh failed, keeping current index: {}", e.toString()));
+    }
+
+    /** Rebuilds the index from /heroStats on top of the static map; emits the number of heroes. */
+    public Mono<Integer> refresh() {
+        return client.getHeroStats()
+                .timeout(Duration.ofSeconds(10))
+                .map(stats -> {
+                    Map<Long, Hero> heroes = seed();
+                    if (stats.isArray()) {
+                        for (JsonNode h : stats) {
+                            long id = h.path("id").asLong(-1);
+                            String internal = h.path("name").asText("");
+                            if (id < 0 || !internal.startsWith(NPC_PREFIX)) continue;
+                            Hero known = heroes.get(id);
+                            String slug = known != null ? known.slug() : internal.substring(NPC_PREFIX.length());
+                            heroes.put(id, new Hero(id, slug, h.path("localized_name").asText(slug)));
+                        }
+                    }
+                    Index next = Index.build(heroes);
+                    index = next;
+                    log.info("Hero index built: {} heroes, {} keys", next.byName.size(), next.sortedKeys.length);
+                    return next.byName.size();
+                });
+    }
+
+    private static Map<Long, Hero> seed() {
+        Map<Long, Hero> heroes = new HashMap<>();
+        HeroIdMapper.all().values().forEach(id -> {
+            String slug = HeroIdMapper.getSlugById(id);
+            heroes.putIfAbsent(id, new Hero(id, slug, prettify(slug)));
+        });
+        return heroes;
+    }
+
+    private static String prettify(String slug) {
+        StringBuilder sb = new StringBuilder(slug.length());
+        boolean upper = true;
+        for (char c : slug.toCharArray()) {
+            if (c == '_') { sb.append(' '); upper = true; continue; }
+            sb.append(upper ? Character.toUpperCase(c) : c);
+            upper = false;
+        }
+        return sb.toString();
+    }
+
+    /** Digits-only input parsed without allocating; -1 otherwise. */
+    private static long parseId(String s) {
+        int n = s.length();
+        if (n == 0 || n > 6) return -1;
+        long v = 0;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    /** Lowercase ASCII letter/digit, 0 for characters that are dropped by normalization. */
+    private static char fold(char c) {
+        if (c >= 'A' && c <= 'Z') return (char) (c + ('a' - 'A'));
+        if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) return c;
+        return 0;
+    }
+
+    static String normalize(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = fold(s.charAt(i));
+            if (c != 0) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /** Immutable lookup structures for one build. */
+    private static final class Index {
+        final String[] keys;      // open addressing, normalized names
+        final int[] ids;
+        final int mask;
+        final String[] slugById;  // dense id -> internal slug
+        final Hero[] heroById;
+        final List<Hero> byName;
+        final String[] sortedKeys; // for prefix search, parallel to sortedIds
+        final int[] sortedIds;
+
+        private Index(Map<String, Integer> names, Map<Long, Hero> heroes) {
+            int cap = Integer.highestOneBit(Math.max(4, names.size() * 2) - 1) << 1;
+            keys = new String[cap];
+            ids = new int[cap];
+            mask = cap - 1;
+            for (var e : names.entrySet()) {
+                int i = hash(e.getKey()) & mask;
+                while (keys[i] != null) i = (i + 1) & mask;
+                keys[i] = e.getKey();
+                ids[i] = e.getValue();
+            }
+            int maxId = heroes.keySet().stream().mapToInt(Long::intValue).max().orElse(0);
+            slugById = new String[maxId + 1];
+            heroById = new Hero[maxId + 1];
+            heroes.forEach((id, h) -> {
+                slugById[id.intValue()] = h.slug();
+                heroById[id.intValue()] = h;
+            });
+            byName = heroes.values().stream().sorted(Comparator.comparing(Hero::name)).toList();
+            sortedKeys = names.keySet().stream().sorted().toArray(String[]::new);
+            sortedIds = new int[sortedKeys.length];
+            for (int i = 0; i < sortedKeys.length; i++) sortedIds[i] = names.get(sortedKeys[i]);
+        }
+
+        static Index build(Map<Long, Hero> heroes) {
+            Map<String, Integer> names = new HashMap<>();
+            Map<String, Integer> bySlug = new HashMap<>();
+            for (Hero h : heroes.values()) {
+                int id = (int) h.id();
+                names.putIfAbsent(normalize(h.slug()), id);
+                names.putIfAbsent(normalize(h.name()), id);
+                bySlug.put(h.slug(), id);
+            }
+            HeroIdMapper.all().forEach((name, id) -> names.putIfAbsent(normalize(name), id.intValue()));
+            ALIASES.forEach((alias, slug) -> {
+                Integer id = bySlug.get(slug);
+                if (id != null) names.putIfAbsent(alias, id);
+            });
+            return new Index(names, heroes);
+        }
+
+        /** Exact lookup on the normalized form of {@code raw}, without building that form. */
+        int find(CharSequence raw) {
+            int h = 0;
+            int len = 0;
+            for (int i = 0; i < raw.length(); i++) {
+                char c = fold(raw.charAt(i));
+                if (c != 0) { h = 31 * h + c; len++; }
+            }
+            if (len == 0) return -1;
+            for (int i = mix(h) & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (keys[i].length() == len && matches(keys[i], raw)) return ids[i];
+            }
+            return -1;
+        }
+
+        int fuzzy(String raw) {
+            String q = normalize(raw);
+            if (q.length() < 3) return -1;
+            int limit = q.length() >= 8 ? 2 : 1;
+            int best = -1;
+            int bestDistance = limit + 1;
+            boolean tied = false; // another hero is as close as best
+            for (int i = 0; i < sortedKeys.length; i++) {
+                String k = sortedKeys[i];
+                if (k.length() < 3 || Math.abs(k.length() - q.length()) > limit) continue;
+                int d = distance(q, k, bestDistance + 1, false); // one past the best, so ties are seen too
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = sortedIds[i];
+                    tied = false;
+                } else if (d == bestDistance && d <= limit && sortedIds[i] != best) {
+                    tied = true;
+                }
+            }
+            return tied ? -1 : best;
+        }
+
+        /** Adds heroes with a key starting within the typo limit of normalized {@code q}, closest first. */
+        void fuzzyPrefix(String q, Set<Integer> into, int max) {
+            if (q.length() < 3) return;
+            int limit = q.length() >= 8 ? 2 : 1;
+            for (int d = 1; d <= limit && into.size() < max; d++) {
+                for (int i = 0; i < sortedKeys.length && into.size() < max; i++) {
+                    String k = sortedKeys[i];
+                    if (k.length() >= 3 && distance(q, k, d + 1, true) == d) into.add(sortedIds[i]);
+                }
+            }
+        }
+
+        private static boolean matches(String key, CharSequence raw) {
+            int k = 0;
+            for (int i = 0; i < raw.length(); i++) {
+                char c = fold(raw.charAt(i));
+                if (c == 0) continue;
+                if (key.charAt(k++) != c) return false;
+            }
+            return true;
+        }
+
+        private static int hash(String key) {
+            int h = 0;
+            for (int i = 0; i < key.length(); i++) h = 31 * h + key.charAt(i);
+            return mix(h);
+        }
+
+        private static int mix(int h) {
+            return h ^ (h >>> 16);
+        }
+
+        /**
+         * Levenshtein distance from {@code a} to {@code b}, or with {@code prefix} to the closest prefix
+         * of {@code b}; gives up (returning {@code cap}) once it cannot beat it.
+         */
+        private static int distance(String a, String b, int cap, boolean prefix) {
+            int[] prev = new int[b.length() + 1];
+            int[] cur = new int[b.length() + 1];
+            for (int j = 0; j <= b.length(); j++) prev[j] = j;
+            for (int i = 1; i <= a.length(); i++) {
+                cur[0] = i;
+                int rowMin = cur[0];
+                for (int j = 1; j <= b.length(); j++) {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                    rowMin = Math.min(rowMin, cur[j]);
+                }
+                if (rowMin >= cap) return cap;
+                int[] tmp = prev; prev = cur; cur = tmp;
+            }
+            if (!prefix) return prev[b.length()];
+            int min = cap;
+            for (int v : prev) min = Math.min(min, v);
+            return min;
+        }
+    }
+}
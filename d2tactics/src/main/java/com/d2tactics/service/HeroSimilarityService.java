@@ -0,0 +1,158 @@
+package com.d2tactics.service;
+
+import com.d2tactics.cache.PopularityStore;
+import com.d2tactics.similarity.SimilarityIndex;
+import com.d2tactics.similarity.VectorMath;
+import com.d2tactics.symbol.SymbolTable;
+import com.d2tactics.symbol.TagSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.function.Tuples;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * "Builds like" and "threatens like" neighbors for every hero, served from precomputed indexes.
+ *
+ * Heroes are embedded as dense float vectors and compared by cosine similarity
+ * ({@link SimilarityIndex}, Vector API when available):
+ *   BUILD  - item shares of the early, mid and late phases from the {@link PopularityStore} (what
+ *            is cached, nothing is fetched for this), plus the hero's tags at a lower weight so
+ *            heroes without popularity data still place somewhere sensible
+ *   THREAT - the hero's tags (manual + inferred) only
+ * Both indexes are rebuilt in the background every {@code d2tactics.similarity.rebuild-interval}
+ * and on a new patch, and swapped in as a whole; lookups never wait for a rebuild.
+ */
+@Service
+public class HeroSimilarityService implements PatchChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(HeroSimilarityService.class);
+    private static final int[] BUILD_PHASES = {1, 2, 3}; // early, mid, late: starting items say little
+    private static final float TAG_WEIGHT_IN_BUILD = 0.35f;
+
+    public enum Kind { BUILD, THREAT }
+
+    private record Indexes(SimilarityIndex build, SimilarityIndex threat, long builtAtMillis) {
+    }
+
+    private final HeroResolver heroes;
+    private final AutoHeroTagService autoTags;
+    private final PopularityStore store;
+    private final SymbolTable symbols;
+    private final Scheduler cpu;
+    private final int k;
+    private volatile Indexes indexes = new Indexes(SimilarityIndex.EMPTY, SimilarityIndex.EMPTY, 0);
+
+    public HeroSimilarityService(HeroResolver heroes,
+                                 AutoHeroTagService autoTags,
+                                 PopularityStore store,
+                                 SymbolTable symbols,
+                                 @Qualifier("cpuScheduler") Scheduler cpu,
+                                 @Value("${d2tactics.similarity.k:10}") int k) {
+        this.heroes = heroes;
+        this.autoTags = autoTags;
+        this.store = store;
+        this.symbols = symbols;
+        this.cpu = cpu;
+        this.k = Math.max(1, k);
+    }
+
+    /** Up to {@code limit} (at most {@code d2tactics.similarity.k}) most similar heroes, best first. */
+    public List<SimilarityIndex.Neighbor> similar(long heroId, Kind kind, int limit) {
+        Indexes current = indexes;
+        return (kind == Kind.BUILD ? current.build() : current.threat()).neighbors(heroId, limit);
+    }
+
+    /** When the indexes in use were built (epoch millis), 0 before the first build. */
+    public long builtAtMillis() {
+        return indexes.builtAtMillis();
+    }
+
+    @Scheduled(initialDelayString = "${d2tactics.similarity.rebuild-interval:PT10M}",
+            fixedDelayString = "${d2tactics.similarity.rebuild-interval:PT10M}")
+    public void scheduledRebuild() {
+        rebuild().subscribe(null, e -> log.warn("Similarity index rebuild failed, keeping current one: {}", e.toString()));
+    }
+
+    @Override
+    public void onPatchChanged(PatchVersionService.PatchVersion previous, PatchVersionService.PatchVersion next) {
+        if (previous == PatchVersionService.UNKNOWN) return; // first poll: warmup builds the indexes
+        scheduledRebuild();
+    }
+
+    /** Gathers tags (may fetch metadata), then embeds and indexes on the CPU pool; emits the hero count. */
+    public Mono<Integer> rebuild() {
+        List<HeroResolver.Hero> all = heroes.all();
+        return Flux.fromIterable(all)
+                .concatMap(h -> autoTags.tagsForHeroAsync(h.slug()).map(tags -> Tuples.of(h.id(), tags)))
+                .collectList()
+                .publishOn(cpu)
+                .map(rows -> {
+                    long t0 = System.nanoTime();
+                    long[] ids = new long[rows.size()];
+                    TagSet[] tags = new TagSet[rows.size()];
+                    for (int r = 0; r < ids.length; r++) {
+                        ids[r] = rows.get(r).getT1();
+                        tags[r] = rows.get(r).getT2();
+                    }
+                    Indexes next = new Indexes(buildIndex(ids, tags, true), buildIndex(ids, tags, false),
+                            System.currentTimeMillis());
+                    indexes = next;
+                    log.debug("Similarity indexes rebuilt for {} heroes in {} us",
+                            ids.length, (System.nanoTime() - t0) / 1_000);
+                    return ids.length;
+                });
+    }
+
+    private SimilarityIndex buildIndex(long[] ids, TagSet[] tags, boolean withItems) {
+        // item columns: every item id seen in a cached entry, numbered densely
+        Map<Integer, Integer> itemColumns = new HashMap<>();
+        PopularityStore.Entry[] entries = new PopularityStore.Entry[ids.length];
+        if (withItems) {
+            for (int r = 0; r < ids.length; r++) {
+                entries[r] = store.get(ids[r]);
+                if (entries[r] == null) continue;
+                for (int p : BUILD_PHASES) {
+                    for (int i = 0; i < entries[r].size(p); i++) {
+                        itemColumns.putIfAbsent(entries[r].itemId(p, i), itemColumns.size());
+                    }
+                }
+            }
+        }
+        int tagDim = symbols.tagCount();
+        int itemDim = itemColumns.size();
+        int dim = tagDim + itemDim;
+        float[] matrix = new float[ids.length * dim];
+        for (int r = 0; r < ids.length; r++) {
+            int base = r * dim;
+            int row = base;
+            tags[r].forEach(t -> { if (t < tagDim) matrix[row + t] = 1f; });
+            VectorMath.normalize(matrix, base, tagDim);
+            PopularityStore.Entry e = entries[r];
+            if (e != null) {
+                for (int p : BUILD_PHASES) {
+                    long total = 0;
+                    for (int i = 0; i < e.size(p); i++) total += e.count(p, i);
+                    if (total == 0) continue;
+                    for (int i = 0; i < e.size(p); i++) {
+                        // share of the phase, square-rooted so a few dominant items don't decide alone
+                        matrix[base + tagDim + itemColumns.get(e.itemId(p, i))] += (float) Math.sqrt((double) e.count(p, i) / total);
+                    }
+                }
+                VectorMath.normalize(matrix, base + tagDim, itemDim);
+                for (int i = 0; i < tagDim; i++) matrix[base + i] *= TAG_WEIGHT_IN_BUILD;
+            }
+            VectorMath.normalize(matrix, base, dim);
+        }
+        return SimilarityIndex.build(ids, matrix, dim, k);
+    }
+}
@@ -0,0 +1,180 @@
+package com.d2tactics.service;
+
+import com.d2tactics.cache.L2Cache;
+import com.d2tactics.cache.L2Cache.Namespace;
+import com.d2tactics.client.OpenDotaClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Refreshable holder for /constants/items.
+ *
+ * Unlike {@code Mono.cache()}, a failed load is never memoized: callers that arrive while nothing
+ * has been loaded yet share one in-flight attempt, and once that attempt fails the next caller
+ * starts a fresh one. After the first success the last good snapshot is always served; a new one
+ * is loaded and swapped in atomically only when {@link PatchVersionService} reports a new patch
+ * (so item renames show up without a restart, and nothing is refetched between patches). A failed
+ * reload just keeps the previous snapshot. A load belongs to the patch it started for: callers only
+ * join a load of the current patch, and a load that finishes after the patch moved on is not
+ * published, so quick successive patches cannot leave an older snapshot in place.
+ *
+ * Loads consult the shared L2 first, keyed by patch, so replicas take turns hitting
+ * /constants/items: whichever loads first publishes the payload for that patch. A load before the
+ * first patch poll skips the L2, since its placeholder tag does not name a patch.
+ */
+@Component
+public class ItemConstantsHolder implements PatchChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemConstantsHolder.class);
+
+    /**
+     * Immutable snapshot of the item constants; {@code nameToImg} maps display name to the CDN image
+     * path, {@code byKey} is keyed by the internal name used in purchase logs ("blink").
+     */
+    public record ItemConstants(Map<Integer, String> idToName, Map<String, String> nameToImg,
+                                Map<String, Item> byKey, String patch, long loadedAtMillis) {
+    }
+
+    public record Item(int id, String name, int cost) {
+    }
+
+    private final OpenDotaClient client;
+    private final L2Cache l2;
+    private final PatchVersionService patch;
+    private final Duration ttl;
+    private final AtomicReference<ItemConstants> current = new AtomicReference<>();
+    private Load inFlight; // guarded by this
+
+    private record Load(String tag, Mono<ItemConstants> result) {
+    }
+
+    public ItemConstantsHolder(OpenDotaClient client, L2Cache l2, PatchVersionService patch,
+                               @Value("${d2tactics.constants.ttl:PT24H}") Duration ttl) {
+        this.client = client;
+        this.l2 = l2;
+        this.patch = patch;
+        this.ttl = ttl;
+    }
+
+    /** Last good snapshot, or a (shared) load when nothing has been loaded yet. */
+    public Mono<ItemConstants> get() {
+        ItemConstants snapshot = current.get();
+        return snapshot != null ? Mono.just(snapshot) : load();
+    }
+
+    /** Whether a snapshot is available without going upstream. */
+    public boolean isLoaded() {
+        return current.get() != null;
+    }
+
+    /** Reloads unless the current snapshot already belongs to the new patch. */
+    @Override
+    public void onPatchChanged(PatchVersionService.PatchVersion previous, PatchVersionService.PatchVersion next) {
+        ItemConstants snapshot = current.get();
+        if (snapshot != null && snapshot.patch().equals(next.id())) return;
+        load().subscribe(
+                c -> log.info("Item constants reloaded for patch {}: {} items", c.patch(), c.idToName().size()),
+                e -> log.warn("Item constants reload failed, keeping last good snapshot: {}", e.toString()));
+    }
+
+    /**
+     * Starts (or joins) a load for the current patch; the shared Mono is dropped when it terminates,
+     * success or not.
+     */
+    private synchronized Mono<ItemConstants> load() {
+        String tag = patch.tag();
+        if (inFlight != null && inFlight.tag().equals(tag)) return inFlight.result();
+        Load[] self = new Load[1];
+        Mono<ItemConstants> result = fetch(tag)
+                .doOnNext(this::publish)
+                .doFinally(signal -> clearInFlight(self[0]))
+                .cache();
+        self[0] = inFlight = new Load(tag, result);
+        return result;
+    }
+
+    private synchronized void clearInFlight(Load load) {
+        if (inFlight == load) inFlight = null;
+    }
+
+    /** Swaps in a loaded snapshot unless the current one belongs to the current patch and it does not. */
+    private void publish(ItemConstants loaded) {
+        String tag = patch.tag();
+        current.accumulateAndGet(loaded, (prev, next) ->
+                prev == null || next.patch().equals(tag) || !prev.patch().equals(tag) ? next : prev);
+    }
+
+    private Mono<ItemConstants> fetch(String tag) {
+        return Mono.defer(() -> {
+            Mono<JsonNode> upstream = client.getItemConstants()
+                    .timeout(Duration.ofSeconds(10))
+                    .retryWhen(Retry.backoff(3, Duration.ofMillis(500)).maxBackoff(Duration.ofSeconds(5)));
+            // before the first patch poll nothing is shared: items@unknown-0 would outlive the placeholder
+            if (!PatchVersionService.known(tag)) return upstream.map(json -> parse(json, tag));
+            String key = "items@" + tag;
+            return l2.get(Namespace.ITEM_CONSTANTS, key)
+                    .map(L2Cache.Entry::value)
+                    .switchIfEmpty(Mono.defer(() -> upstream
+                            .doOnNext(json -> l2.put(Namespace.ITEM_CONSTANTS, key, json, ttl))))
+                    .map(json -> parse(json, tag));
+        });
+    }
+
+    /** Build reverse map itemId -> display name, plus display name -> img path and key -> item, from /constants/items */
+    private static ItemConstants parse(JsonNode json, String patch) {
+        Map<Integer, String> map = new HashMap<>();
+        Map<String, String> images = new TreeMap<>();
+        Map<String, Item> byKey = new HashMap<>();
+        if (json != null && json.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> it = json.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> e = it.next();
+                JsonNode node = e.getValue();
+                if (node == null || !node.isObject()) continue;
+
+                int id = node.path("id").asInt(-1);
+                if (id < 0) continue;
+
+                String display = node.path("dname").asText(null);
+                if (display == null || display.isBlank()) {
+                    display = prettifySlug(e.getKey());
+                }
+                map.put(id, display);
+                byKey.put(e.getKey(), new Item(id, display, node.path("cost").asInt(0)));
+
+                String img = node.path("img").asText("");
+                if (!img.isEmpty()) images.putIfAbsent(display, img);
+            }
+        }
+        return new ItemConstants(Collections.unmodifiableMap(map), Collections.unmodifiableMap(images),
+                Collections.unmodifiableMap(byKey), patch, System.currentTimeMillis());
+    }
+
+    private static String prettifySlug(String slug) {
+        if (slug == null || slug.isBlank()) return slug;
+        String[] parts = slug.split("_");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            String p = parts[i];
+            if (!p.isEmpty()) {
+                sb.append(Character.toUpperCase(p.charAt(0)));
+                if (p.length() > 1) sb.append(p.substring(1));
+            }
+            if (i < parts.length - 1) sb.append(' ');
+        }
+        return sb.toString();
+    }
+}
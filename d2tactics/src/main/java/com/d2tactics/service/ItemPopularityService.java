@@ -1,122 +1,123 @@
 package com.d2tactics.service;
 
+import com.d2tactics.cache.PopularityStore;
+import com.d2tactics.metrics.PipelineMetrics;
+import com.d2tactics.metrics.PipelineMetrics.Cache;
+import com.d2tactics.metrics.PipelineMetrics.Stage;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.springframework.http.MediaType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.ExchangeStrategies;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
-import java.util.Iterator;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class ItemPopularityService {
 
-    private static final String[] PHASES = {
-            "start_game_items", "early_game_items", "mid_game_items", "late_game_items"
-    };
-
     private final OpenDotaHeroService heroService;
-    private final WebClient openDota; // for /constants/items
-    private final Mono<Map<Integer, String>> itemIdToNameCache;
-
-    public ItemPopularityService(OpenDotaHeroService heroService) {
+    private final ItemConstantsHolder constants; // /constants/items, refreshed in the background
+    private final PipelineMetrics metrics;
+    private final HeroSimilarityService similarity;
+    private final PopularityStore store;
+    private final int borrowBelow;
+
+    public ItemPopularityService(OpenDotaHeroService heroService, ItemConstantsHolder constants, PipelineMetrics metrics,
+                                 HeroSimilarityService similarity, PopularityStore store,
+                                 @Value("${d2tactics.similarity.borrow-below:200}") int borrowBelow) {
         this.heroService = heroService;
-
-        // WebClient with larger in-memory buffer for /constants/items (default is 256 KB)
-        ExchangeStrategies strategies = ExchangeStrategies.builder()
-                .codecs(c -> c.defaultCodecs().maxInMemorySize(8 * 1024 * 1024)) // 8 MB
-                .build();
-
-        this.openDota = WebClient.builder()
-                .baseUrl("https://api.opendota.com/api")
-                .exchangeStrategies(strategies)
-                .defaultHeader("Accept", MediaType.APPLICATION_JSON_VALUE)
-                .build();
-
-        // cache the item map for the life of the app
-        this.itemIdToNameCache = fetchItemMap().cache();
+        this.constants = constants;
+        this.metrics = metrics;
+        this.similarity = similarity;
+        this.store = store;
+        this.borrowBelow = borrowBelow;
     }
 
-    /** Controller uses this when ?named=true */
+    /** Controller uses this when ?named=true: the hero's own counts, keyed by item display name. */
     public Mono<JsonNode> getItemPopularityNamed(Long heroId) {
+        if (constants.isLoaded()) metrics.cacheHit(Cache.ITEM_CONSTANTS);
+        else metrics.cacheMiss(Cache.ITEM_CONSTANTS);
         return Mono.zip(
-                heroService.fetchHeroItemPopularity(heroId), // Json: phases with itemId->count
-                itemIdToNameCache                            // Map<Integer,String>
+                heroService.heroItemPopularity(heroId), // off-heap phases of (itemId, count)
+                constants.get()                         // last good id -> name snapshot
         ).map(tuple -> {
-            JsonNode raw = tuple.getT1();
-            Map<Integer, String> id2name = tuple.getT2();
+            long t0 = metrics.start();
+            PopularityStore.Entry raw = tuple.getT1();
+            Map<Integer, String> id2name = tuple.getT2().idToName();
 
             ObjectNode root = JsonNodeFactory.instance.objectNode();
 
-            for (String phase : PHASES) {
-                JsonNode phaseNode = raw.get(phase);
-                ObjectNode named = JsonNodeFactory.instance.objectNode();
-
-                if (phaseNode != null && phaseNode.isObject()) {
-                    Iterator<Map.Entry<String, JsonNode>> it = phaseNode.fields();
-                    while (it.hasNext()) {
-                        Map.Entry<String, JsonNode> e = it.next();
-                        String idStr = e.getKey();
-                        int count = e.getValue().asInt(0);
-                        Integer itemId;
-                        try { itemId = Integer.valueOf(idStr); } catch (NumberFormatException ex) { continue; }
-                        String display = id2name.getOrDefault(itemId, "item#" + itemId);
-                        named.put(display, count);
-                    }
+            for (int p = 0; p < PopularityStore.PHASES.length; p++) {
+                ObjectNode named = root.putObject(PopularityStore.PHASES[p]);
+                for (int i = 0, n = raw.size(p); i < n; i++) {
+                    int itemId = raw.itemId(p, i);
+                    String display = id2name.getOrDefault(itemId, "item#" + itemId);
+                    named.put(display, raw.count(p, i));
                 }
-                root.set(phase, named);
             }
+            metrics.record(Stage.POPULARITY_NAMING, t0);
             return root; // ← JSON object, NOT String
         });
     }
 
-    /** Build reverse map: itemId -> display name from /constants/items */
-    private Mono<Map<Integer, String>> fetchItemMap() {
-        return openDota.get()
-                .uri("/constants/items")
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .map(json -> {
-                    Map<Integer, String> map = new ConcurrentHashMap<>();
-                    if (json != null && json.isObject()) {
-                        Iterator<Map.Entry<String, JsonNode>> it = json.fields();
-                        while (it.hasNext()) {
-                            Map.Entry<String, JsonNode> e = it.next();
-                            JsonNode node = e.getValue();
-                            if (node == null || !node.isObject()) continue;
-
-                            int id = node.path("id").asInt(-1);
-                            if (id < 0) continue;
+    /** Named popularity for scoring recommendations; see {@link #withBorrowed}. */
+    public Mono<JsonNode> getItemPopularityForScoring(Long heroId) {
+        return getItemPopularityNamed(heroId).flatMap(named -> withBorrowed(heroId, named));
+    }
 
-                            String display = node.path("dname").asText(null);
-                            if (display == null || display.isBlank()) {
-                                display = prettifySlug(e.getKey());
-                            }
-                            map.put(id, display);
-                        }
-                    }
-                    return map;
-                });
+    /**
+     * For scoring only, never for display: a hero with fewer than {@code d2tactics.similarity.borrow-below}
+     * purchases in total borrows from its closest BUILD neighbor that has enough (and is already
+     * cached). The neighbor's counts, scaled by similarity to fill the gap, are added to a copy of
+     * {@code named}; {@code named} itself is left as is.
+     */
+    public Mono<JsonNode> withBorrowed(long heroId, JsonNode named) {
+        long ownTotal = total(named);
+        if (ownTotal >= borrowBelow) return Mono.just(named);
+        return constants.get().map(c -> borrow(heroId, ownTotal, c.idToName(), named));
     }
 
-    private static String prettifySlug(String slug) {
-        if (slug == null || slug.isBlank()) return slug;
-        String[] parts = slug.split("_");
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < parts.length; i++) {
-            String p = parts[i];
-            if (!p.isEmpty()) {
-                sb.append(Character.toUpperCase(p.charAt(0)));
-                if (p.length() > 1) sb.append(p.substring(1));
+    private JsonNode borrow(long heroId, long ownTotal, Map<Integer, String> id2name, JsonNode named) {
+        for (var n : similarity.similar(heroId, HeroSimilarityService.Kind.BUILD, 5)) {
+            PopularityStore.Entry other = store.get(n.heroId());
+            long otherTotal = other == null ? 0 : total(other);
+            if (otherTotal < borrowBelow) continue;
+            double weight = n.similarity() * (double) (borrowBelow - ownTotal) / otherTotal;
+            ObjectNode root = named.deepCopy();
+            for (int p = 0; p < PopularityStore.PHASES.length; p++) {
+                ObjectNode phase = (ObjectNode) root.get(PopularityStore.PHASES[p]);
+                for (int i = 0; i < other.size(p); i++) {
+                    int add = (int) Math.round(weight * other.count(p, i));
+                    if (add == 0) continue;
+                    int itemId = other.itemId(p, i);
+                    String display = id2name.getOrDefault(itemId, "item#" + itemId);
+                    phase.put(display, phase.path(display).asInt(0) + add);
+                }
             }
-            if (i < parts.length - 1) sb.append(' ');
+            return root;
         }
-        return sb.toString();
+        return named;
+    }
+
+    private static long total(PopularityStore.Entry e) {
+        long sum = 0;
+        for (int p = 0; p < PopularityStore.PHASES.length; p++) {
+            for (int i = 0; i < e.size(p); i++) sum += e.count(p, i);
+        }
+        return sum;
+    }
+
+    private static long total(JsonNode named) {
+        long sum = 0;
+        for (String phase : PopularityStore.PHASES) {
+            for (JsonNode count : named.path(phase)) sum += count.asLong(0);
+        }
+        return sum;
+    }
+
+    /** Resolves once the item map is loaded; lets startup warmup pay for /constants/items. */
+    public Mono<Integer> warmItemMap() {
+        return constants.get().map(c -> c.idToName().size());
     }
 }
@@ -1,9 +1,16 @@
 package com.d2tactics.service;
 
+import com.d2tactics.cache.L2Cache;
+import com.d2tactics.cache.L2Cache.Namespace;
 import com.d2tactics.client.OpenDotaClient;
+import com.d2tactics.metrics.PipelineMetrics;
+import com.d2tactics.metrics.PipelineMetrics.Cache;
+import com.d2tactics.metrics.PipelineMetrics.Stage;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
@@ -11,16 +18,119 @@ import java.time.Duration;
 import java.util.*;
 
 @Service
-public class ItemTimingService {
+public class ItemTimingService implements PatchChangeListener {
+
+    // (hero, minCount, limit) combinations kept in process; the parameters come from requests
+    private static final int MAX_CACHED = 1024;
+    // bounds the query is run with, so out-of-range parameters share one key
+    private static final int MIN_COUNT_FLOOR = 5, MIN_COUNT_CEILING = 1000;
+    private static final int LIMIT_FLOOR = 10, LIMIT_CEILING = 300;
 
     private final OpenDotaClient client;
+    private final PipelineMetrics metrics;
+    private final L2Cache l2;
+    private final PatchVersionService patch;
+    private final Duration ttl;
+    private final RequestCoalescer<String, JsonNode> calls;
+
+    // "heroId:minCount:limit" -> last non-empty result, least recently used first; guarded by itself
+    private final Map<String, Cached> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
 
-    public ItemTimingService(OpenDotaClient client) {
+    private record Cached(JsonNode body, String patch, long expiresAtMillis) {
+        boolean fresh(String currentPatch, long now) { return patch.equals(currentPatch) && now < expiresAtMillis; }
+    }
+
+    public ItemTimingService(OpenDotaClient client, PipelineMetrics metrics, L2Cache l2, PatchVersionService patch,
+                             MeterRegistry registry,
+                             @Value("${d2tactics.timings.ttl:PT24H}") Duration ttl) {
         this.client = client;
+        this.metrics = metrics;
+        this.l2 = l2;
+        this.patch = patch;
+        this.ttl = ttl;
+        this.calls = new RequestCoalescer<>("timings", 256, registry);
     }
 
-    /** Median purchase minute per item for the hero across recent public matches. */
+    /**
+     * Median purchase minute per item for the hero across recent public matches.
+     * Explorer queries are slow, so non-empty results are cached in process and shared through the
+     * L2, both keyed by patch (a new patch starts from fresh queries) and bounded by
+     * {@code d2tactics.timings.ttl}; concurrent misses share one query. {@code minCount} and
+     * {@code limit} are clamped first (see {@link #clampMinCount} and {@link #clampLimit}), and both
+     * caches are keyed on the clamped values.
+     */
     public Mono<JsonNode> medianTimings(long heroId, int minCount, int limit) {
+        int min = clampMinCount(minCount), max = clampLimit(limit);
+        String tag = patch.tag();
+        String key = heroId + ":" + min + ":" + max;
+        Cached cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null && cached.fresh(tag, System.currentTimeMillis())) {
+            metrics.cacheHit(Cache.TIMINGS);
+            return Mono.just(cached.body());
+        }
+        metrics.cacheMiss(Cache.TIMINGS);
+        return calls.get(key + "@" + tag, k -> load(key, tag, heroId, min, max));
+    }
+
+    /** Minimum uses an item needs to be listed, within the range the query accepts. */
+    public static int clampMinCount(int minCount) {
+        return Math.min(Math.max(MIN_COUNT_FLOOR, minCount), MIN_COUNT_CEILING);
+    }
+
+    /** Maximum number of items listed, within the range the query accepts. */
+    public static int clampLimit(int limit) {
+        return Math.min(Math.max(LIMIT_FLOOR, limit), LIMIT_CEILING);
+    }
+
+    /** Drops results of older patches; the next view of a hero queries again. */
+    @Override
+    public void onPatchChanged(PatchVersionService.PatchVersion previous, PatchVersionService.PatchVersion next) {
+        synchronized (cache) {
+            cache.values().removeIf(c -> !c.patch().equals(next.id()));
+        }
+    }
+
+    private Mono<JsonNode> load(String key, String tag, long heroId, int minCount, int limit) {
+        // before the first patch poll nothing is shared: the placeholder tag does not name a patch
+        boolean shared = PatchVersionService.known(tag);
+        Mono<JsonNode> query = queryTimings(heroId, minCount, limit).doOnNext(out -> {
+            if (out.isEmpty()) return;
+            remember(key, new Cached(out, tag, System.currentTimeMillis() + ttl.toMillis()));
+            if (shared) l2.put(Namespace.TIMINGS, key + "@" + tag, out, ttl);
+        });
+        if (!shared) return query;
+        return l2.get(Namespace.TIMINGS, key + "@" + tag)
+                .doOnNext(e -> remember(key, new Cached(e.value(), tag, e.expiresAtMillis())))
+                .map(L2Cache.Entry::value)
+                .switchIfEmpty(Mono.defer(() -> query));
+    }
+
+    /** Once full, stale entries make room first, then the least recently used one goes. */
+    private void remember(String key, Cached entry) {
+        synchronized (cache) {
+            if (cache.size() >= MAX_CACHED && !cache.containsKey(key)) {
+                long now = System.currentTimeMillis();
+                cache.values().removeIf(c -> !c.fresh(entry.patch(), now));
+            }
+            cache.put(key, entry);
+        }
+    }
+
+    /** One explorer row of the timings query. */
+    record TimingRow(@JsonProperty("item_key") String itemKey,
+                     @JsonProperty("median_min") double medianMin,
+                     int uses) {
+    }
+
+    private Mono<JsonNode> queryTimings(long heroId, int minCount, int limit) {
         // Explorer schema: player_matches.purchase_log is jsonb with [{"time":123,"key":"blink"},...]
         // We aggregate per item key and compute median minutes.
         String sql = """
@@ -49,29 +159,23 @@ public class ItemTimingService {
             FROM agg
             ORDER BY median_min
             LIMIT %d;
-            """.formatted(heroId, Math.max(5, minCount), Math.max(10, limit));
+            """.formatted(heroId, minCount, limit);
 
-        // ItemTimingService.java – unchanged SQL, but tolerate empty explorer()
-        return client.explorer(sql)
-                .timeout(Duration.ofSeconds(15))
-                .onErrorResume(ex -> Mono.just(JsonNodeFactory.instance.objectNode())) // network/other errors => {}
-                .map(root -> {
-                    var rows = root.path("rows");
-                    ObjectNode out = JsonNodeFactory.instance.objectNode();
-                    if (rows.isMissingNode() || !rows.isArray()) return out; // {}
-                    for (JsonNode r : rows) {
-                        String key = r.path("item_key").asText("");
-                        double minute = r.path("median_min").asDouble(0.0);
-                        int uses = r.path("uses").asInt(0);
-                        if (!key.isBlank()) {
-                            ObjectNode obj = JsonNodeFactory.instance.objectNode();
-                            obj.put("minute", minute);
-                            obj.put("uses", uses);
-                            out.set(key, obj);
-                        }
+        // rows stream in and are folded one by one, so aggregation is timed from the first row (it
+        // overlaps the download); a failed or slow query answers {}
+        long[] t0 = {0}; // per call: queryTimings runs inside medianTimings' defer
+        return client.explorerRows(sql, TimingRow.class)
+                .doOnNext(r -> { if (t0[0] == 0) t0[0] = metrics.start(); })
+                .reduceWith(JsonNodeFactory.instance::objectNode, (out, r) -> {
+                    if (r.itemKey() != null && !r.itemKey().isBlank()) {
+                        out.putObject(r.itemKey()).put("minute", r.medianMin()).put("uses", r.uses());
                     }
                     return out;
-                });
+                })
+                .doOnNext(out -> { if (t0[0] != 0) metrics.record(Stage.TIMING_AGGREGATION, t0[0]); })
+                .<JsonNode>map(out -> out)
+                .timeout(Duration.ofSeconds(15))
+                .onErrorResume(ex -> Mono.just(JsonNodeFactory.instance.objectNode())); // network/other errors => {}
 
     }
 }
@@ -0,0 +1,110 @@
+package com.d2tactics.service;
+
+import com.d2tactics.service.ItemConstantsHolder.ItemConstants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact manifests for the browser, so it never downloads /constants/items or /heroStats itself.
+ *
+ *   items:  {"Blink Dagger": "/apps/dota2/images/dota_react/items/blink.png?t=...", ...}
+ *   heroes: [{"id": 1, "slug": "antimage", "name": "Anti-Mage"}, ...]
+ *
+ * Each manifest is serialized and gzipped once per source snapshot (item constants refresh, hero
+ * index rebuild) and kept together with a content-hash ETag; requests only pick the bytes.
+ * Keys are sorted, so replicas holding the same data hand out the same ETag.
+ */
+@Service
+public class ManifestService {
+
+    /** One serialized manifest: identity and gzip bodies of the same JSON, and its ETag. */
+    public record Manifest(byte[] json, byte[] gzip, String etag) {
+    }
+
+    private record Built(Object source, Manifest manifest) {
+    }
+
+    private final ItemConstantsHolder constants;
+    private final HeroResolver heroes;
+    private final ObjectMapper json;
+    private volatile Built items;
+    private volatile Built heroList;
+
+    public ManifestService(ItemConstantsHolder constants, HeroResolver heroes, ObjectMapper json) {
+        this.constants = constants;
+        this.heroes = heroes;
+        this.json = json;
+    }
+
+    /** Item display name -> image path, from the current /constants/items snapshot. */
+    public Mono<Manifest> items() {
+        return constants.get().map(c -> {
+            Built b = items;
+            if (b == null || b.source() != c) {
+                b = new Built(c, build("items", itemsJson(c)));
+                items = b;
+            }
+            return b.manifest();
+        });
+    }
+
+    /** Every hero as {id, slug, name}, ordered by name, from the current hero index. */
+    public Manifest heroes() {
+        List<HeroResolver.Hero> all = heroes.all();
+        Built b = heroList;
+        if (b == null || b.source() != all) {
+            b = new Built(all, build("heroes", heroesJson(all)));
+            heroList = b;
+        }
+        return b.manifest();
+    }
+
+    private static ObjectNode itemsJson(ItemConstants c) {
+        ObjectNode out = JsonNodeFactory.instance.objectNode();
+        c.nameToImg().forEach(out::put);
+        return out;
+    }
+
+    private static ArrayNode heroesJson(List<HeroResolver.Hero> all) {
+        ArrayNode out = JsonNodeFactory.instance.arrayNode();
+        for (HeroResolver.Hero h : all) {
+            out.addObject().put("id", h.id()).put("slug", h.slug()).put("name", h.name());
+        }
+        return out;
+    }
+
+    private Manifest build(String kind, Object node) {
+        try {
+            byte[] raw = json.writeValueAsBytes(node);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw);
+            String etag = "W/\"" + kind + "-" + HexFormat.of().formatHex(digest, 0, 12) + "\"";
+            return new Manifest(raw, gzip(raw), etag);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] raw) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(raw.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            out.write(raw);
+        }
+        return bytes.toByteArray();
+    }
+}
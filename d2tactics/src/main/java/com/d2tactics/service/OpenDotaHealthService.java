@@ -2,16 +2,25 @@ package com.d2tactics.service;
 
 import com.d2tactics.client.OpenDotaClient;
 import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
 
 @Service
 public class OpenDotaHealthService {
 
+    private static final Logger log = LoggerFactory.getLogger(OpenDotaHealthService.class);
+
     private final OpenDotaClient client;
+    // last probe result; optimistic until the first probe says otherwise
+    private volatile boolean healthy = true;
 
     public OpenDotaHealthService(OpenDotaClient client) {
         this.client = client;
@@ -27,4 +36,41 @@ public class OpenDotaHealthService {
                 .timeout(Duration.ofSeconds(5))
                 .retryWhen(Retry.backoff(2, Duration.ofMillis(250)));
     }
+
+    /** Whether the last probe found OpenDota reachable with every metric within its threshold. */
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /** Background probe that keeps {@link #isHealthy()} current; background work uses it as a gate. */
+    @Scheduled(fixedDelayString = "${d2tactics.health.probe-interval:PT30S}")
+    public void probe() {
+        fetchHealth().subscribe(
+                json -> update(withinThresholds(json), null),
+                e -> update(false, e.toString()));
+    }
+
+    private void update(boolean now, String error) {
+        if (now != healthy) {
+            if (now) log.info("OpenDota healthy again");
+            else log.warn("OpenDota unhealthy{}", error == null ? ": a metric is over its threshold" : ": " + error);
+        }
+        healthy = now;
+    }
+
+    /** /health is {name: {metric, threshold, ...}}; healthy when no metric exceeds its threshold. */
+    static boolean withinThresholds(JsonNode json) {
+        if (json == null || !json.isObject()) return false;
+        Iterator<Map.Entry<String, JsonNode>> it = json.fields();
+        while (it.hasNext()) {
+            JsonNode check = it.next().getValue();
+            JsonNode metric = check.get("metric");
+            JsonNode threshold = check.get("threshold");
+            if (metric != null && threshold != null && metric.isNumber() && threshold.isNumber()
+                    && metric.asDouble() > threshold.asDouble()) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
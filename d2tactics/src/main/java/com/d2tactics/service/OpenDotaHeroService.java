@@ -1,7 +1,15 @@
 package com.d2tactics.service;
 
+import com.d2tactics.cache.L2Cache;
+import com.d2tactics.cache.L2Cache.Namespace;
+import com.d2tactics.cache.PopularityStore;
 import com.d2tactics.client.OpenDotaClient;
+import com.d2tactics.history.PopularityHistory;
+import com.d2tactics.metrics.PipelineMetrics;
+import com.d2tactics.metrics.PipelineMetrics.Cache;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
@@ -15,25 +23,100 @@ import java.time.Duration;
 public class OpenDotaHeroService {
 
     private final OpenDotaClient client;
+    private final PipelineMetrics metrics;
+    private final L2Cache l2;
+    private final HeroAccessTracker access;
+    // heroId -> last good itemPopularity payload, off-heap (only successes are stored)
+    private final PopularityStore store;
+    private final PopularityHistory history;
+    private final long popularityTtlMillis;
+    // concurrent misses for one hero share a single upstream call
+    private final RequestCoalescer<Long, PopularityStore.Entry> popularityCalls;
 
-    public OpenDotaHeroService(OpenDotaClient client) {
+    public OpenDotaHeroService(OpenDotaClient client,
+                               PipelineMetrics metrics,
+                               MeterRegistry registry,
+                               L2Cache l2,
+                               HeroAccessTracker access,
+                               PopularityStore store,
+                               PopularityHistory history,
+                               @Value("${d2tactics.popularity.ttl:PT10M}") Duration popularityTtl,
+                               @Value("${d2tactics.popularity.coalesce.max-in-flight:1024}") int maxInFlight) {
         this.client = client;
+        this.metrics = metrics;
+        this.l2 = l2;
+        this.access = access;
+        this.store = store;
+        this.history = history;
+        this.popularityTtlMillis = popularityTtl.toMillis();
+        this.popularityCalls = new RequestCoalescer<>("item_popularity", maxInFlight, registry);
     }
 
     /**
      * Fetches item popularity for a given hero ID.
      * Adds timeout and retry to keep behavior consistent with the health service.
+     * Successful payloads are kept for {@code d2tactics.popularity.ttl}; concurrent misses for the
+     * same hero are coalesced, so upstream calls scale with distinct heroes rather than requests.
+     * A miss asks the shared L2 before OpenDota and keeps the peer's expiry. Upstream answers are
+     * also offered to {@link PopularityHistory}.
      *
      * @param heroId the OpenDota hero_id (e.g. 1 = Anti-Mage)
      * @return Mono<JsonNode> representing the response body
      */
     public Mono<JsonNode> fetchHeroItemPopularity(long heroId) {
-        return client.getHeroItemPopularity(heroId)
-                .timeout(Duration.ofSeconds(5))
-                .retryWhen(Retry.backoff(2, Duration.ofMillis(250)));
+        return heroItemPopularity(heroId).map(PopularityStore.Entry::toJson);
+    }
+
+    /** Same as {@link #fetchHeroItemPopularity} without the JSON round trip: the stored entry itself. */
+    public Mono<PopularityStore.Entry> heroItemPopularity(long heroId) {
+        access.record(heroId);
+        PopularityStore.Entry cached = store.get(heroId);
+        if (cached != null && cached.fresh(System.currentTimeMillis())) {
+            metrics.cacheHit(Cache.POPULARITY);
+            return Mono.just(cached);
+        }
+        metrics.cacheMiss(Cache.POPULARITY);
+        return loadHeroItemPopularity(heroId);
     }
 
+    /** Fetches from upstream regardless of the cache and stores the result; used by warmup. */
+    public Mono<PopularityStore.Entry> prefetchHeroItemPopularity(long heroId) {
+        return loadHeroItemPopularity(heroId);
+    }
+
+    /**
+     * Background refresh ahead of expiry: takes the L2 entry only if a peer already refreshed it
+     * (it outlives ours), otherwise goes upstream. Used by {@link PopularityPrefetcher}.
+     */
+    public Mono<PopularityStore.Entry> refreshHeroItemPopularity(long heroId) {
+        long current = expiresAtMillis(heroId);
+        return popularityCalls.get(heroId, id -> l2.get(Namespace.POPULARITY, Long.toString(id))
+                .filter(e -> e.expiresAtMillis() > current)
+                .map(e -> store.put(id, e.value(), e.expiresAtMillis()))
+                .switchIfEmpty(Mono.defer(() -> fetchUpstream(id))));
+    }
 
+    /** When the cached payload for a hero expires, or 0 if nothing is cached. */
+    public long expiresAtMillis(long heroId) {
+        PopularityStore.Entry cached = store.get(heroId);
+        return cached == null ? 0 : cached.expiresAtMillis();
+    }
 
+    private Mono<PopularityStore.Entry> loadHeroItemPopularity(long heroId) {
+        return popularityCalls.get(heroId, id -> l2.get(Namespace.POPULARITY, Long.toString(id))
+                .map(e -> store.put(id, e.value(), e.expiresAtMillis()))
+                .switchIfEmpty(Mono.defer(() -> fetchUpstream(id))));
+    }
 
+    private Mono<PopularityStore.Entry> fetchUpstream(long heroId) {
+        return client.getHeroItemPopularity(heroId)
+                .timeout(Duration.ofSeconds(5))
+                .retryWhen(Retry.backoff(2, Duration.ofMillis(250)))
+                .map(body -> {
+                    l2.put(Namespace.POPULARITY, Long.toString(heroId), body, Duration.ofMillis(popularityTtlMillis));
+                    PopularityStore.Entry entry = store.put(heroId, body, System.currentTimeMillis() + popularityTtlMillis);
+                    history.record(heroId, entry);
+                    return entry;
+                });
+    }
 }
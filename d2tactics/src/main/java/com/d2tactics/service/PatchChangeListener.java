@@ -0,0 +1,8 @@
+package com.d2tactics.service;
+
+/** Implemented by components holding artifacts that are only valid for one game patch. */
+public interface PatchChangeListener {
+
+    /** Called once per detected change, off the event loop; {@code previous} may be {@link PatchVersionService#UNKNOWN}. */
+    void onPatchChanged(PatchVersionService.PatchVersion previous, PatchVersionService.PatchVersion current);
+}
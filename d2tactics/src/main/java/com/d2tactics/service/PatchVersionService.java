@@ -0,0 +1,131 @@
+package com.d2tactics.service;
+
+import com.d2tactics.client.OpenDotaClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Which Dota patch the cached data belongs to.
+ *
+ * Polls /constants/patch (a few hundred bytes) every {@code d2tactics.patch.poll-interval}. The
+ * version is the newest patch name plus a short hash of the whole list, so a re-dated or re-issued
+ * patch counts as a change too. Patch-bound artifacts (item constants, inferred hero tags, build
+ * variants, timings, the hero index) are tagged with {@link #tag()} and rebuilt by their
+ * {@link PatchChangeListener} when it changes, instead of on timers. A failed poll keeps the
+ * current version. Until the first successful poll the version is {@link #UNKNOWN}; warmup polls
+ * first so startup artifacts are already tagged with the real patch.
+ */
+@Service
+public class PatchVersionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PatchVersionService.class);
+
+    /** A patch as seen by this service; {@link #id()} is what artifacts are tagged with. */
+    public record PatchVersion(String name, String hash) {
+        public String id() { return name + "-" + hash; }
+    }
+
+    public static final PatchVersion UNKNOWN = new PatchVersion("unknown", "0");
+
+    private final OpenDotaClient client;
+    private final ObjectProvider<PatchChangeListener> listeners;
+    private final Scheduler blocking;
+    private volatile PatchVersion current = UNKNOWN;
+
+    public PatchVersionService(OpenDotaClient client, ObjectProvider<PatchChangeListener> listeners,
+                               @Qualifier("blockingScheduler") Scheduler blocking) {
+        this.client = client;
+        this.listeners = listeners;
+        this.blocking = blocking;
+    }
+
+    public PatchVersion current() {
+        return current;
+    }
+
+    /** Tag for patch-bound cache keys, e.g. "7.37-1a2b3c4d". */
+    public String tag() {
+        return current.id();
+    }
+
+    /**
+     * Whether {@code tag} names a real patch rather than the {@link #UNKNOWN} placeholder used before
+     * the first poll; only real tags may key shared (L2) entries, which other replicas would reuse.
+     */
+    public static boolean known(String tag) {
+        return !UNKNOWN.id().equals(tag);
+    }
+
+    @Scheduled(initialDelayString = "${d2tactics.patch.poll-interval:PT5M}",
+            fixedDelayString = "${d2tactics.patch.poll-interval:PT5M}")
+    public void scheduledPoll() {
+        poll().subscribe(null, e -> log.warn("Patch poll failed, keeping {}: {}", current.id(), e.toString()));
+    }
+
+    /**
+     * Fetches the patch list and publishes a new version if it differs; listeners run on the
+     * blocking scheduler before the Mono completes. Emits the (possibly unchanged) version.
+     */
+    public Mono<PatchVersion> poll() {
+        return client.getPatches()
+                .timeout(Duration.ofSeconds(5))
+                .retryWhen(Retry.backoff(2, Duration.ofMillis(250)))
+                .map(PatchVersionService::versionOf)
+                .publishOn(blocking)
+                .map(this::publish);
+    }
+
+    private PatchVersion publish(PatchVersion next) {
+        PatchVersion prev;
+        synchronized (this) {
+            prev = current;
+            if (prev.equals(next)) return prev;
+            current = next;
+        }
+        log.info("Patch version {} -> {}", prev.id(), next.id());
+        listeners.orderedStream().forEach(l -> {
+            try {
+                l.onPatchChanged(prev, next);
+            } catch (RuntimeException e) {
+                log.warn("Patch listener {} failed: {}", l.getClass().getSimpleName(), e.toString());
+            }
+        });
+        return next;
+    }
+
+    /** Newest entry by id (the list is ordered oldest first, but don't rely on it). */
+    static PatchVersion versionOf(JsonNode patches) {
+        String name = UNKNOWN.name();
+        long newest = Long.MIN_VALUE;
+        if (patches != null && patches.isArray()) {
+            for (JsonNode p : patches) {
+                long id = p.path("id").asLong(Long.MIN_VALUE);
+                if (id >= newest && p.hasNonNull("name")) {
+                    newest = id;
+                    name = p.get("name").asText();
+                }
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(String.valueOf(patches).getBytes(StandardCharsets.UTF_8));
+            return new PatchVersion(name, HexFormat.of().formatHex(digest, 0, 4));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
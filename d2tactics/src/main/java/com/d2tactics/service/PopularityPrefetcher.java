@@ -0,0 +1,144 @@
+package com.d2tactics.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps item popularity warm in the background, within a request quota.
+ *
+ * Every {@code d2tactics.prefetch.tick}:
+ *   1) hot heroes, ranked by {@link HeroAccessTracker}, whose entry is missing or expires within
+ *      {@code refresh-ahead} are refreshed first
+ *   2) the remaining budget goes to a round-robin crawl over every hero, refreshing entries that are
+ *      missing or about to expire; the crawl only spends while the bucket is more than half full,
+ *      which leaves the other half for hot refreshes
+ * Requests come out of a token bucket refilled at {@code quota-per-minute} (bursting up to a quarter
+ * of it), at most {@code max-in-flight} at once. Nothing runs while {@link OpenDotaHealthService}
+ * reports OpenDota unhealthy, and failed refreshes back off exponentially (up to five minutes).
+ * The quota covers prefetching only; user-driven misses are not counted against it.
+ *
+ * Meter: {@code d2tactics.prefetch.requests{kind=hot|crawl, result=ok|error}}.
+ */
+@Service
+public class PopularityPrefetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(PopularityPrefetcher.class);
+    private static final long MAX_BACKOFF_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    private final OpenDotaHeroService heroService;
+    private final HeroAccessTracker access;
+    private final HeroResolver heroes;
+    private final OpenDotaHealthService health;
+
+    private final boolean enabled;
+    private final double tokensPerMilli;
+    private final double capacity;
+    private final long tickMillis;
+    private final long refreshAheadMillis;
+    private final int maxInFlight;
+    private final int hotLimit;
+
+    private final Counter hotOk, hotError, crawlOk, crawlError;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile long backoffUntil;
+
+    // tick state, only touched by the scheduler thread
+    private double tokens;
+    private long lastRefill = System.currentTimeMillis();
+    private int crawlCursor;
+
+    public PopularityPrefetcher(OpenDotaHeroService heroService,
+                                HeroAccessTracker access,
+                                HeroResolver heroes,
+                                OpenDotaHealthService health,
+                                MeterRegistry registry,
+                                @Value("${d2tactics.prefetch.enabled:true}") boolean enabled,
+                                @Value("${d2tactics.prefetch.quota-per-minute:30}") int quotaPerMinute,
+                                @Value("${d2tactics.prefetch.tick:PT5S}") Duration tick,
+                                @Value("${d2tactics.prefetch.refresh-ahead:PT1M}") Duration refreshAhead,
+                                @Value("${d2tactics.prefetch.max-in-flight:4}") int maxInFlight,
+                                @Value("${d2tactics.prefetch.hot-limit:32}") int hotLimit) {
+        this.heroService = heroService;
+        this.access = access;
+        this.heroes = heroes;
+        this.health = health;
+        this.enabled = enabled && quotaPerMinute > 0;
+        this.tokensPerMilli = quotaPerMinute / 60_000.0;
+        this.capacity = Math.max(1, quotaPerMinute / 4.0);
+        this.tickMillis = tick.toMillis();
+        this.refreshAheadMillis = refreshAhead.toMillis();
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.hotLimit = hotLimit;
+        this.hotOk = counter(registry, "hot", "ok");
+        this.hotError = counter(registry, "hot", "error");
+        this.crawlOk = counter(registry, "crawl", "ok");
+        this.crawlError = counter(registry, "crawl", "error");
+    }
+
+    private static Counter counter(MeterRegistry registry, String kind, String result) {
+        return Counter.builder("d2tactics.prefetch.requests")
+                .description("Background popularity refreshes")
+                .tag("kind", kind).tag("result", result).register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${d2tactics.prefetch.tick:PT5S}", fixedDelayString = "${d2tactics.prefetch.tick:PT5S}")
+    public void tick() {
+        if (!enabled) return;
+        long now = System.currentTimeMillis();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerMilli);
+        lastRefill = now;
+        if (now < backoffUntil || !health.isHealthy()) return;
+
+        // 1) hot heroes first
+        for (long id : access.hottest(hotLimit)) {
+            if (!canSpend(0)) return;
+            if (due(id, now)) launch(id, true);
+        }
+
+        // 2) crawl with what is left above the reserve
+        List<HeroResolver.Hero> all = heroes.all();
+        for (int i = 0; i < all.size() && canSpend(capacity / 2); i++) {
+            long id = all.get(Math.floorMod(crawlCursor++, all.size())).id();
+            if (due(id, now)) launch(id, false);
+        }
+    }
+
+    private boolean canSpend(double reserve) {
+        return tokens >= 1 + reserve && inFlight.size() < maxInFlight;
+    }
+
+    private boolean due(long heroId, long now) {
+        return !inFlight.contains(heroId) && heroService.expiresAtMillis(heroId) - now < refreshAheadMillis;
+    }
+
+    private void launch(long heroId, boolean hot) {
+        tokens -= 1;
+        inFlight.add(heroId);
+        heroService.refreshHeroItemPopularity(heroId)
+                .doFinally(signal -> inFlight.remove(heroId))
+                .subscribe(
+                        body -> {
+                            failures.set(0);
+                            (hot ? hotOk : crawlOk).increment();
+                        },
+                        e -> {
+                            int n = Math.min(failures.incrementAndGet(), 16);
+                            long delay = Math.min(MAX_BACKOFF_MILLIS, tickMillis << n);
+                            backoffUntil = System.currentTimeMillis() + delay;
+                            (hot ? hotError : crawlError).increment();
+                            log.debug("Prefetch of hero {} failed, backing off {} ms: {}", heroId, delay, e.toString());
+                        });
+    }
+}
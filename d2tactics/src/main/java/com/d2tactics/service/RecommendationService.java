@@ -1,7 +1,15 @@
 package com.d2tactics.service;
 
+import com.d2tactics.metrics.PipelineMetrics;
+import com.d2tactics.metrics.PipelineMetrics.Stage;
 import com.d2tactics.repository.HeroTagsRepository;
+import com.d2tactics.recommend.ItemSuggestion;
 import com.d2tactics.repository.TagBoostsRepository;
+import com.d2tactics.symbol.ItemWeights;
+import com.d2tactics.symbol.SymbolTable;
+import com.d2tactics.symbol.TagSet;
+import com.d2tactics.trace.RecommendationTrace;
+import com.d2tactics.trace.RecommendationTracer;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -13,58 +21,101 @@ import java.util.*;
 @Service
 public class RecommendationService {
 
-    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(RecommendationService.class);
-
-
     private static final Map<String, String> PHASE_TO_JSON = Map.of(
             "start", "start_game_items",
             "early", "early_game_items",
             "mid", "mid_game_items",
             "late", "late_game_items"
     );
+    private static final int TRACE_TOP = 10;
 
     private final ItemPopularityService popularity;
     private final TagBoostsRepository tagBoosts;
     private final AutoHeroTagService autoTags;
+    private final PipelineMetrics metrics;
+    private final RecommendationTracer tracer;
+    private final SymbolTable symbols;
+    private final CounterReasonService counterReasons;
 
     public RecommendationService(ItemPopularityService popularity,
                                  AutoHeroTagService autoTags,
-                                 TagBoostsRepository tagBoosts) {
+                                 TagBoostsRepository tagBoosts,
+                                 PipelineMetrics metrics,
+                                 RecommendationTracer tracer,
+                                 SymbolTable symbols,
+                                 CounterReasonService counterReasons) {
         this.popularity = popularity;
         this.autoTags = autoTags;
         this.tagBoosts = tagBoosts;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.symbols = symbols;
+        this.counterReasons = counterReasons;
     }
 
 
     public Mono<ObjectNode> recommendPhase(long allyId, String enemySlug, String phase, int topN) {
-        final String phaseKeyJson = PHASE_TO_JSON.getOrDefault(phase, "early_game_items");
-        final Set<String> tags = autoTags.tagsForHero(enemySlug);
+        return recommendPhase(allyId, enemySlug, phase, topN, false);
+    }
 
-        // DEBUG: log what we’re using
-        log.info("Reco phase={}, enemySlug={}, tags={}", phase, enemySlug, tags);
+    /**
+     * Ranks items for one phase. With {@code debug} the response carries a {@code meta} block
+     * (enemy tags, applied boosts, top scores); otherwise meta is only built for sampled traces.
+     * Popularity is the scoring variant, so heroes with little data borrow from a similar hero.
+     * Items and tags are handled as symbol ids; names are looked up only when writing JSON.
+     * The response also carries the enemy's counter items ({@code counters}) and, for recommended
+     * items that counter one of its threats, the reasons ({@code explanations}).
+     */
+    public Mono<ObjectNode> recommendPhase(long allyId, String enemySlug, String phase, int topN, boolean debug) {
+        return recommendPhase(allyId, enemySlug, phase, topN, debug, popularity.getItemPopularityForScoring(allyId));
+    }
+
+    /**
+     * Same, scoring against a named popularity snapshot the caller already holds (or shares, via
+     * {@code cache()}); pass it through {@link ItemPopularityService#withBorrowed} to keep borrowing.
+     */
+    public Mono<ObjectNode> recommendPhase(long allyId, String enemySlug, String phase, int topN, boolean debug,
+                                           Mono<JsonNode> namedPopularity) {
+        final String phaseKeyJson = PHASE_TO_JSON.getOrDefault(phase, "early_game_items");
+        // tag inference may need a metadata fetch; it runs on the blocking scheduler, next to the popularity call
+        return Mono.zip(autoTags.tagsForHeroAsync(enemySlug), namedPopularity)
+                .map(t -> {
+                    final TagSet tags = t.getT1();
+                    final JsonNode named = t.getT2();
+                    final CounterReasonService.Counters counters = counterReasons.forEnemy(enemySlug, tags);
 
-        return popularity.getItemPopularityNamed(allyId)
-                .map(named -> {
                     // 1) Popularity counts for this phase
-                    Map<String, Integer> pop = new HashMap<>();
                     JsonNode phaseItems = named.path(phaseKeyJson);
-                    if (phaseItems.isObject()) {
-                        phaseItems.fieldNames().forEachRemaining(item ->
-                                pop.put(item, phaseItems.get(item).asInt(0))
-                        );
-                    }
+                    int capacity = phaseItems.size();
 
-                    // 2) Sum boosts for enemy+phase
-                    Map<String, Double> boosts = tagBoosts.boostsFor(tags, phase); // phase is start/early/mid/late
-                    log.info("Boosts phase={} for {}: {}", phase, enemySlug, boosts.keySet());
+                    // 2) Sum boosts for enemy+phase (phase is start/early/mid/late)
+                    long tBoost = metrics.start();
+                    ItemWeights boosts = tagBoosts.boostsFor(tags, phase);
+                    metrics.record(Stage.BOOST_LOOKUP, tBoost);
 
-                    // Sum boosts for this enemy+phase
-                    Map<String, Double> boosters = tagBoosts.boostsFor(tags, phase);
+                    long tScore = metrics.start();
+                    int[] items = new int[capacity + boosts.size()];
+                    int[] counts = new int[items.length];
+                    long[] seen = new long[(symbols.itemCount() >> 6) + 2]; // grows if popularity brings new names
+                    int n = 0;
+                    if (phaseItems.isObject()) {
+                        for (var it = phaseItems.fields(); it.hasNext(); ) {
+                            var e = it.next();
+                            int id = symbols.item(e.getKey());
+                            if (id >> 6 >= seen.length) seen = Arrays.copyOf(seen, (id >> 6) + 1);
+                            seen[id >> 6] |= 1L << id;
+                            items[n] = id;
+                            counts[n++] = e.getValue().asInt(0);
+                        }
+                    }
 
 // Allow boosted-only counters to appear
                     final int VIRTUAL_BASE = 25;
-                    for (String item : boosters.keySet()) {
-                        pop.putIfAbsent(item, VIRTUAL_BASE);
+                    for (int i = 0; i < boosts.size(); i++) {
+                        int id = boosts.item(i);
+                        if (id >> 6 < seen.length && (seen[id >> 6] & (1L << id)) != 0) continue;
+                        items[n] = id;
+                        counts[n++] = VIRTUAL_BASE;
                     }
 
 // Scoring: damp popularity, amplify boosts
@@ -72,64 +123,118 @@ public class RecommendationService {
                     final double BETA  = 1.50;     // boost exponent
                     final double BOOST_FLOOR = 0.20;
 
-                    List<Map.Entry<String, Double>> scored = new ArrayList<>();
-                    for (var e : pop.entrySet()) {
-                        String item = e.getKey();
-                        int count = e.getValue();
-                        double rawBoost = boosters.getOrDefault(item, 0.0);
+                    double[] scores = new double[n];
+                    for (int i = 0; i < n; i++) {
+                        double rawBoost = boosts.weight(items[i]);
                         double b = rawBoost > 0 ? Math.max(rawBoost, BOOST_FLOOR) : 0.0;
 
-                        double countTerm = Math.pow(Math.max(1, count), GAMMA);
+                        double countTerm = Math.pow(Math.max(1, counts[i]), GAMMA);
                         double boostTerm = Math.pow(1.0 + b, BETA);
-                        double score = countTerm * boostTerm;
-
-                        scored.add(Map.entry(item, score));
+                        scores[i] = countTerm * boostTerm;
                     }
-                    scored.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
-
+                    int limit = Math.max(1, topN);
+                    boolean sampled = tracer.sample();
+                    int[] order = topByScore(scores, n, (debug || sampled) ? Math.max(limit, TRACE_TOP) : limit);
+                    metrics.record(Stage.SCORING, tScore);
 
-                    // 5) Build response (with meta to verify)
+                    // 3) Build response; the meta/trace work only happens when asked for or sampled
                     ObjectNode out = JsonNodeFactory.instance.objectNode()
                             .put("allyId", allyId)
                             .put("enemy", enemySlug)
                             .put("phase", phaseKeyJson);
 
-                    ObjectNode meta = out.putObject("meta");
-                    var tagsArr = meta.putArray("enemyTags");
-                    tags.forEach(tagsArr::add);
-                    ObjectNode applied = meta.putObject("appliedBoosts");
-                    boosts.forEach(applied::put);
-
-                    var topScores = meta.putArray("topScores");
-                    for (int i = 0; i < Math.min(10, scored.size()); i++) {
-                        String item = scored.get(i).getKey();
-                        var row = JsonNodeFactory.instance.objectNode()
-                                .put("item", item)
-                                .put("score", scored.get(i).getValue())
-                                .put("count", pop.getOrDefault(item, 0))
-                                .put("boost", boosts.getOrDefault(item, 0.0));
-                        topScores.add(row);
+                    if (debug || sampled) {
+                        RecommendationTrace trace = trace(allyId, enemySlug, phaseKeyJson, tags, boosts,
+                                order, items, counts, scores);
+                        if (debug) out.set("meta", metaNode(trace));
+                        tracer.submit(trace);
                     }
 
                     ObjectNode rec = out.putObject("recommendations");
-                    int limit = Math.max(1, topN);
-                    for (int i = 0; i < Math.min(limit, scored.size()); i++) {
-                        String item = scored.get(i).getKey();
-                        rec.put(item, pop.getOrDefault(item, 0)); // value shown is count (score is in meta)
+                    ObjectNode explanations = out.putObject("explanations");
+                    for (int i = 0; i < Math.min(limit, order.length); i++) {
+                        int k = order[i];
+                        String name = symbols.itemName(items[k]);
+                        rec.put(name, counts[k]); // value shown is count (score is in meta)
+                        ItemSuggestion why = counters.byItem().get(items[k]);
+                        if (why != null) explanations.set(name, CounterReasonService.explanationJson(why));
                     }
+                    out.set("counters", CounterReasonService.itemsJson(counters.items(), limit));
                     return out;
                 });
     }
 
+    /** Indexes of the {@code k} highest scores, best first (partial selection; ties keep input order). */
+    private static int[] topByScore(double[] scores, int n, int k) {
+        int[] idx = new int[n];
+        for (int i = 0; i < n; i++) idx[i] = i;
+        int m = Math.min(k, n);
+        for (int i = 0; i < m; i++) {
+            int best = i;
+            for (int j = i + 1; j < n; j++) {
+                if (scores[idx[j]] > scores[idx[best]]) best = j;
+            }
+            int tmp = idx[best];
+            System.arraycopy(idx, i, idx, i + 1, best - i);
+            idx[i] = tmp;
+        }
+        return Arrays.copyOf(idx, m);
+    }
+
+    private RecommendationTrace trace(long allyId, String enemySlug, String phaseKeyJson, TagSet tags,
+                                      ItemWeights boosts, int[] order, int[] items, int[] counts, double[] scores) {
+        List<RecommendationTrace.Score> top = new ArrayList<>();
+        for (int i = 0; i < Math.min(TRACE_TOP, order.length); i++) {
+            int k = order[i];
+            top.add(new RecommendationTrace.Score(symbols.itemName(items[k]), scores[k], counts[k],
+                    boosts.weight(items[k])));
+        }
+        Set<String> tagNames = new LinkedHashSet<>();
+        tags.forEach(id -> tagNames.add(symbols.tagName(id)));
+        Map<String, Double> applied = new LinkedHashMap<>();
+        for (int i = 0; i < boosts.size(); i++) applied.put(symbols.itemName(boosts.item(i)), boosts.weightAt(i));
+        return new RecommendationTrace(System.currentTimeMillis(), allyId, enemySlug, phaseKeyJson,
+                Collections.unmodifiableSet(tagNames), Collections.unmodifiableMap(applied), List.copyOf(top));
+    }
+
+    private static ObjectNode metaNode(RecommendationTrace trace) {
+        ObjectNode meta = JsonNodeFactory.instance.objectNode();
+        var tagsArr = meta.putArray("enemyTags");
+        trace.enemyTags().forEach(tagsArr::add);
+        ObjectNode applied = meta.putObject("appliedBoosts");
+        trace.appliedBoosts().forEach(applied::put);
+
+        var topScores = meta.putArray("topScores");
+        for (RecommendationTrace.Score s : trace.topScores()) {
+            topScores.add(JsonNodeFactory.instance.objectNode()
+                    .put("item", s.item())
+                    .put("score", s.score())
+                    .put("count", s.count())
+                    .put("boost", s.boost()));
+        }
+        return meta;
+    }
+
 
 
     /** Convenience if you want all phases in one call */
     public Mono<ObjectNode> recommendAllPhases(long allyId, String enemySlug, int topN) {
+        return recommendAllPhases(allyId, enemySlug, topN, false);
+    }
+
+    public Mono<ObjectNode> recommendAllPhases(long allyId, String enemySlug, int topN, boolean debug) {
+        return recommendAllPhases(allyId, enemySlug, topN, debug, popularity.getItemPopularityForScoring(allyId));
+    }
+
+    /** All four phases against one popularity snapshot: it is fetched and named once, not per phase. */
+    public Mono<ObjectNode> recommendAllPhases(long allyId, String enemySlug, int topN, boolean debug,
+                                               Mono<JsonNode> namedPopularity) {
+        Mono<JsonNode> named = namedPopularity.cache();
         return Mono.zip(
-                recommendPhase(allyId, enemySlug, "start", topN),
-                recommendPhase(allyId, enemySlug, "early", topN),
-                recommendPhase(allyId, enemySlug, "mid", topN),
-                recommendPhase(allyId, enemySlug, "late", topN)
+                recommendPhase(allyId, enemySlug, "start", topN, debug, named),
+                recommendPhase(allyId, enemySlug, "early", topN, debug, named),
+                recommendPhase(allyId, enemySlug, "mid", topN, debug, named),
+                recommendPhase(allyId, enemySlug, "late", topN, debug, named)
         ).map(t -> {
             ObjectNode root = JsonNodeFactory.instance.objectNode();
             root.set("start", t.getT1().get("recommendations"));
@@ -138,6 +243,18 @@ public class RecommendationService {
             root.set("late", t.getT4().get("recommendations"));
             root.put("enemy", enemySlug);
             root.put("allyId", allyId);
+            ObjectNode explanations = root.putObject("explanations");
+            for (ObjectNode phase : List.of(t.getT1(), t.getT2(), t.getT3(), t.getT4())) {
+                explanations.setAll((ObjectNode) phase.get("explanations"));
+            }
+            root.set("counters", t.getT1().get("counters"));
+            if (debug) {
+                ObjectNode meta = root.putObject("meta");
+                meta.set("start", t.getT1().get("meta"));
+                meta.set("early", t.getT2().get("meta"));
+                meta.set("mid", t.getT3().get("meta"));
+                meta.set("late", t.getT4().get("meta"));
+            }
             return root;
         });
     }
@@ -0,0 +1,88 @@
+package com.d2tactics.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Shares one upstream call between concurrent requests for the same key.
+ *
+ * The first caller for a key starts the load; callers arriving while it is still running subscribe
+ * to the same cached {@link Mono} and get its value (or error). The entry leaves the table when the
+ * load terminates, so the sharing window is exactly the upstream round trip and a failure is never
+ * handed to later requests. The table holds at most {@code maxInFlight} keys; past that callers load
+ * on their own rather than waiting for room.
+ *
+ * Meters (tag {@code name}): {@code d2tactics.coalesce.requests{role=leader|joined|bypass}},
+ * {@code d2tactics.coalesce.window.size} (callers served per upstream call) and
+ * {@code d2tactics.coalesce.in.flight}.
+ */
+public final class RequestCoalescer<K, V> {
+
+    private static final class Flight<V> {
+        final AtomicInteger callers = new AtomicInteger(1);
+        Mono<V> result; // written before the flight is published through the map
+    }
+
+    private final Map<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final int maxInFlight;
+    private final Counter leaders;
+    private final Counter joined;
+    private final Counter bypassed;
+    private final DistributionSummary windowSize;
+
+    public RequestCoalescer(String name, int maxInFlight, MeterRegistry registry) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.leaders = requests(registry, name, "leader");
+        this.joined = requests(registry, name, "joined");
+        this.bypassed = requests(registry, name, "bypass");
+        this.windowSize = DistributionSummary.builder("d2tactics.coalesce.window.size")
+                .description("Callers served by one coalesced upstream call")
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("d2tactics.coalesce.in.flight", inFlight, Map::size)
+                .description("Keys with an upstream call in flight")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    private static Counter requests(MeterRegistry registry, String name, String role) {
+        return Counter.builder("d2tactics.coalesce.requests").tag("name", name).tag("role", role).register(registry);
+    }
+
+    /** {@code loader.apply(key)}, shared with every other caller asking for {@code key} meanwhile. */
+    public Mono<V> get(K key, Function<? super K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            Flight<V> running = inFlight.get(key);
+            if (running != null) return join(running);
+            if (inFlight.size() >= maxInFlight) {
+                bypassed.increment();
+                return loader.apply(key);
+            }
+            Flight<V> mine = new Flight<>();
+            mine.result = Mono.defer(() -> loader.apply(key))
+                    .doFinally(signal -> {
+                        inFlight.remove(key, mine);
+                        windowSize.record(mine.callers.get());
+                    })
+                    .cache();
+            Flight<V> raced = inFlight.putIfAbsent(key, mine);
+            if (raced != null) return join(raced);
+            leaders.increment();
+            return mine.result;
+        });
+    }
+
+    private Mono<V> join(Flight<V> flight) {
+        flight.callers.incrementAndGet();
+        joined.increment();
+        return flight.result;
+    }
+}
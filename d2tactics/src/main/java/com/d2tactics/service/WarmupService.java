@@ -0,0 +1,185 @@
+package com.d2tactics.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Startup warmup that runs before the app reports readiness.
+ *
+ * Spring Boot only flips the readiness state to ACCEPTING_TRAFFIC after all ApplicationRunners
+ * returned, so blocking here (bounded by {@code d2tactics.warmup.budget}) keeps
+ * /actuator/health/readiness DOWN until the caches and the JIT are warm. Steps:
+ *   0) the current patch, so everything below is tagged with it
+ *   1) /constants/items (item id -> name map) and the hero name index from /heroStats
+ *   2) tag inference for every hero (metadata fetch + per-hero cache)
+ *   3) itemPopularity for the first {@code top-n} heroes of {@code popular-heroes}
+ *   4) build variants for the same heroes, computed in parallel, and the hero similarity indexes
+ *   5) synthetic recommendations to get the scoring code compiled
+ * Each step is best effort; when the budget runs out the remaining work continues in the
+ * background and readiness flips anyway.
+ */
+@Service
+public class WarmupService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+    private static final String[] PHASES = {"start", "early", "mid", "late"};
+
+    private final ItemPopularityService popularity;
+    private final OpenDotaHeroService heroService;
+    private final AutoHeroTagService autoTags;
+    private final RecommendationService recommendations;
+    private final HeroResolver heroes;
+    private final BuildVariantService variants;
+    private final PatchVersionService patch;
+    private final HeroSimilarityService similarity;
+
+    private final boolean enabled;
+    private final Duration budget;
+    private final List<String> popularHeroes;
+    private final int topN;
+    private final int jitIterations;
+
+    public WarmupService(ItemPopularityService popularity,
+                         OpenDotaHeroService heroService,
+                         AutoHeroTagService autoTags,
+                         RecommendationService recommendations,
+                         HeroResolver heroes,
+                         BuildVariantService variants,
+                         PatchVersionService patch,
+                         HeroSimilarityService similarity,
+                         @Value("${d2tactics.warmup.enabled:true}") boolean enabled,
+                         @Value("${d2tactics.warmup.budget:PT45S}") Duration budget,
+                         @Value("${d2tactics.warmup.popular-heroes:pudge,invoker,juggernaut,phantom_assassin,axe,sniper,lion,zeus,windranger,crystal_maiden}") List<String> popularHeroes,
+                         @Value("${d2tactics.warmup.top-n:10}") int topN,
+                         @Value("${d2tactics.warmup.jit-iterations:200}") int jitIterations) {
+        this.popularity = popularity;
+        this.heroService = heroService;
+        this.autoTags = autoTags;
+        this.recommendations = recommendations;
+        this.heroes = heroes;
+        this.variants = variants;
+        this.patch = patch;
+        this.similarity = similarity;
+        this.enabled = enabled;
+        this.budget = budget;
+        this.popularHeroes = popularHeroes;
+        this.topN = topN;
+        this.jitIterations = jitIterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        long t0 = System.nanoTime();
+        long deadline = t0 + budget.toNanos();
+        CompletableFuture<Void> work = CompletableFuture.runAsync(() -> warm(deadline), r -> {
+            Thread t = new Thread(r, "startup-warmup");
+            t.setDaemon(true);
+            t.start();
+        });
+        try {
+            work.get(budget.toMillis(), TimeUnit.MILLISECONDS);
+            log.info("Warmup finished in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+        } catch (TimeoutException e) {
+            log.warn("Warmup budget of {} exhausted; accepting traffic with a partially warm cache", budget);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Warmup failed: {}", e.toString());
+        }
+    }
+
+    private void warm(long deadlineNanos) {
+        step("patch version", deadlineNanos, () -> {
+            PatchVersionService.PatchVersion v = patch.poll().block(remaining(deadlineNanos));
+            log.info("Warmup: patch {}", v == null ? patch.tag() : v.id());
+        });
+
+        step("item constants", deadlineNanos, () -> {
+            Integer items = popularity.warmItemMap().block(remaining(deadlineNanos));
+            log.info("Warmup: {} item names loaded", items);
+        });
+
+        step("hero index", deadlineNanos, () -> {
+            Integer n = heroes.refresh().block(remaining(deadlineNanos));
+            log.info("Warmup: hero index covers {} heroes", n);
+        });
+
+        step("hero tags", deadlineNanos, () -> {
+            int n = 0;
+            for (HeroResolver.Hero hero : heroes.all()) {
+                if (System.nanoTime() > deadlineNanos) break;
+                autoTags.tagsForHero(hero.slug());
+                n++;
+            }
+            log.info("Warmup: tags inferred for {} heroes", n);
+        });
+
+        List<Long> heroIds = popularHeroes.stream()
+                .map(String::trim)
+                .map(heroes::resolve)
+                .filter(id -> id != null)
+                .limit(Math.max(0, topN))
+                .toList();
+
+        step("popularity prefetch", deadlineNanos, () -> {
+            int ok = 0;
+            for (Long id : heroIds) {
+                if (System.nanoTime() > deadlineNanos) break;
+                try {
+                    heroService.prefetchHeroItemPopularity(id).block(remaining(deadlineNanos));
+                    ok++;
+                } catch (Exception e) {
+                    log.debug("Warmup: popularity prefetch failed for hero {}: {}", id, e.toString());
+                }
+            }
+            log.info("Warmup: popularity prefetched for {}/{} heroes", ok, heroIds.size());
+        });
+
+        step("build variants", deadlineNanos, () -> {
+            Integer n = variants.precompute(heroIds).block(remaining(deadlineNanos));
+            log.info("Warmup: build variants computed for {}/{} heroes", n, heroIds.size());
+        });
+
+        step("similarity index", deadlineNanos, () -> {
+            Integer n = similarity.rebuild().block(remaining(deadlineNanos));
+            log.info("Warmup: similarity indexes cover {} heroes", n);
+        });
+
+        step("synthetic recommendations", deadlineNanos, () -> {
+            if (heroIds.isEmpty()) return;
+            int done = 0;
+            for (int i = 0; i < jitIterations && System.nanoTime() < deadlineNanos; i++) {
+                long ally = heroIds.get(i % heroIds.size());
+                String enemy = heroes.slugOf(heroIds.get((i + 1) % heroIds.size()));
+                recommendations.recommendPhase(ally, enemy, PHASES[i % PHASES.length], 6)
+                        .block(remaining(deadlineNanos));
+                done++;
+            }
+            log.info("Warmup: {} synthetic recommendations", done);
+        });
+    }
+
+    private static void step(String name, long deadlineNanos, Runnable body) {
+        if (System.nanoTime() > deadlineNanos) return;
+        try {
+            body.run();
+        } catch (Exception e) {
+            log.warn("Warmup step '{}' failed: {}", name, e.toString());
+        }
+    }
+
+    private static Duration remaining(long deadlineNanos) {
+        return Duration.ofNanos(Math.max(1, deadlineNanos - System.nanoTime()));
+    }
+}
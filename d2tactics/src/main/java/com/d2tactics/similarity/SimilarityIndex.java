@@ -0,0 +1,90 @@
+package com.d2tactics.similarity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable top-K nearest heroes by cosine similarity, precomputed for every hero.
+ *
+ * Built from a row-major matrix of unit-length embeddings (one row per hero), so cosine is a dot
+ * product. Every pair is scored once and offered to both heroes' neighbor lists; all-zero rows
+ * (nothing known about the hero) get no neighbors and are nobody's neighbor. A lookup is a map
+ * probe plus a copy of at most K entries.
+ */
+public final class SimilarityIndex {
+
+    public record Neighbor(long heroId, float similarity) {
+    }
+
+    public static final SimilarityIndex EMPTY = new SimilarityIndex(new long[0], new int[0][], new float[0][]);
+
+    private final long[] ids;
+    private final Map<Long, Integer> rows = new HashMap<>();
+    private final int[][] neighbors; // [row] -> rows, most similar first
+    private final float[][] scores;  // aligned with neighbors
+
+    private SimilarityIndex(long[] ids, int[][] neighbors, float[][] scores) {
+        this.ids = ids;
+        this.neighbors = neighbors;
+        this.scores = scores;
+        for (int r = 0; r < ids.length; r++) rows.put(ids[r], r);
+    }
+
+    /** {@code matrix} holds {@code ids.length} rows of {@code dim} floats, each unit length or zero. */
+    public static SimilarityIndex build(long[] ids, float[] matrix, int dim, int k) {
+        int n = ids.length;
+        int[][] nn = new int[n][k];
+        float[][] sims = new float[n][k];
+        int[] sizes = new int[n];
+        boolean[] empty = new boolean[n];
+        for (int r = 0; r < n; r++) empty[r] = VectorMath.dot(matrix, r * dim, matrix, r * dim, dim) == 0f;
+
+        for (int i = 0; i < n; i++) {
+            if (empty[i]) continue;
+            for (int j = i + 1; j < n; j++) {
+                if (empty[j]) continue;
+                float s = VectorMath.dot(matrix, i * dim, matrix, j * dim, dim);
+                offer(nn[i], sims[i], sizes, i, j, s);
+                offer(nn[j], sims[j], sizes, j, i, s);
+            }
+        }
+        for (int r = 0; r < n; r++) {
+            nn[r] = Arrays.copyOf(nn[r], sizes[r]);
+            sims[r] = Arrays.copyOf(sims[r], sizes[r]);
+        }
+        return new SimilarityIndex(ids.clone(), nn, sims);
+    }
+
+    /** Insertion into a sorted bounded list; K is small, so this beats a heap. */
+    private static void offer(int[] nn, float[] sims, int[] sizes, int row, int candidate, float s) {
+        int size = sizes[row];
+        int k = nn.length;
+        if (k == 0 || (size == k && s <= sims[size - 1])) return;
+        int pos = size == k ? k - 1 : size;
+        while (pos > 0 && sims[pos - 1] < s) {
+            nn[pos] = nn[pos - 1];
+            sims[pos] = sims[pos - 1];
+            pos--;
+        }
+        nn[pos] = candidate;
+        sims[pos] = s;
+        if (size < k) sizes[row] = size + 1;
+    }
+
+    /** Up to {@code k} most similar heroes, best first; empty for unknown heroes. */
+    public List<Neighbor> neighbors(long heroId, int k) {
+        Integer row = rows.get(heroId);
+        if (row == null) return List.of();
+        int m = Math.min(k, neighbors[row].length);
+        List<Neighbor> out = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) out.add(new Neighbor(ids[neighbors[row][i]], scores[row][i]));
+        return out;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+}
@@ -0,0 +1,55 @@
+package com.d2tactics.similarity;
+
+/**
+ * Dot products for the similarity engine, on the JDK Vector API when it is available.
+ *
+ * jdk.incubator.vector is only resolved when the JVM starts with
+ * {@code --add-modules jdk.incubator.vector} (the Docker image does); otherwise, or with
+ * {@code -Dd2tactics.similarity.scalar=true}, the plain loop is used. The Vector API kernel,
+ * SimdDot, is compiled separately (src/main/java-vector) so the rest of the code does not depend on
+ * the incubator module, and it is only loaded when the module is present, so a JVM without it never
+ * sees a linkage error.
+ */
+public final class VectorMath {
+
+    /** A dot product over {@code a[aOff, aOff + len)} and {@code b[bOff, bOff + len)}. */
+    interface Kernel {
+        float dot(float[] a, int aOff, float[] b, int bOff, int len);
+    }
+
+    private static final Kernel SIMD_KERNEL = loadSimd();
+
+    public static final boolean SIMD = SIMD_KERNEL != null;
+
+    private VectorMath() {
+    }
+
+    public static float dot(float[] a, int aOff, float[] b, int bOff, int len) {
+        return SIMD ? SIMD_KERNEL.dot(a, aOff, b, bOff, len) : dotScalar(a, aOff, b, bOff, len);
+    }
+
+    private static Kernel loadSimd() {
+        if (Boolean.getBoolean("d2tactics.similarity.scalar")
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (Kernel) Class.forName("com.d2tactics.similarity.SimdDot").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null; // built without the kernel
+        }
+    }
+
+    static float dotScalar(float[] a, int aOff, float[] b, int bOff, int len) {
+        float sum = 0f;
+        for (int i = 0; i < len; i++) sum += a[aOff + i] * b[bOff + i];
+        return sum;
+    }
+
+    /** Scales {@code v[off, off + len)} to unit length in place; an all-zero range stays zero. */
+    public static void normalize(float[] v, int off, int len) {
+        float norm = (float) Math.sqrt(dot(v, off, v, off, len));
+        if (norm == 0f) return;
+        for (int i = 0; i < len; i++) v[off + i] /= norm;
+    }
+}
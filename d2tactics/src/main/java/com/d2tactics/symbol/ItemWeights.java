@@ -0,0 +1,77 @@
+package com.d2tactics.symbol;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** Immutable sparse vector of item id -> weight, sorted by item id. */
+public final class ItemWeights {
+
+    public static final ItemWeights EMPTY = new ItemWeights(new int[0], new double[0]);
+
+    private final int[] items;
+    private final double[] weights;
+
+    private ItemWeights(int[] items, double[] weights) {
+        this.items = items;
+        this.weights = weights;
+    }
+
+    /** Builds from parallel arrays; duplicate items are summed. */
+    public static ItemWeights of(int[] items, double[] weights) {
+        return sum(List.of(new ItemWeights(items, weights)));
+    }
+
+    /** Element-wise sum of several vectors. */
+    public static ItemWeights sum(List<ItemWeights> parts) {
+        if (parts.isEmpty()) return EMPTY;
+        if (parts.size() == 1 && isSorted(parts.get(0).items)) return parts.get(0);
+        int max = -1;
+        int total = 0;
+        for (ItemWeights p : parts) {
+            for (int item : p.items) max = Math.max(max, item);
+            total += p.items.length;
+        }
+        double[] acc = new double[max + 1];
+        boolean[] touched = new boolean[max + 1];
+        int distinct = 0;
+        for (ItemWeights p : parts) {
+            for (int i = 0; i < p.items.length; i++) {
+                if (!touched[p.items[i]]) { touched[p.items[i]] = true; distinct++; }
+                acc[p.items[i]] += p.weights[i];
+            }
+        }
+        int[] items = new int[distinct];
+        double[] weights = new double[distinct];
+        for (int id = 0, n = 0; id <= max && n < distinct; id++) {
+            if (touched[id]) { items[n] = id; weights[n++] = acc[id]; }
+        }
+        return total == 0 ? EMPTY : new ItemWeights(items, weights);
+    }
+
+    public int size() { return items.length; }
+
+    public int item(int i) { return items[i]; }
+
+    public double weightAt(int i) { return weights[i]; }
+
+    /** Weight of an item, 0 when absent. */
+    public double weight(int item) {
+        int i = Arrays.binarySearch(items, item);
+        return i < 0 ? 0.0 : weights[i];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ItemWeights w && Arrays.equals(items, w.items) && Arrays.equals(weights, w.weights);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(items) + Arrays.hashCode(weights);
+    }
+
+    private static boolean isSorted(int[] a) {
+        for (int i = 1; i < a.length; i++) if (a[i] <= a[i - 1]) return false;
+        return true;
+    }
+}
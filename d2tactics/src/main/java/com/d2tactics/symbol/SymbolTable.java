@@ -0,0 +1,82 @@
+package com.d2tactics.symbol;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dense int ids for tag and item names.
+ *
+ * Ids are handed out in first-seen order and never reused, so they stay valid across rule reloads
+ * and can index plain arrays and {@link TagSet} bitsets. Threat names from item-counters.yaml share
+ * the tag namespace. Lookups are lock-free; interning a new name takes a short lock.
+ */
+@Component
+public class SymbolTable {
+
+    private final Namespace tags = new Namespace();
+    private final Namespace items = new Namespace();
+
+    /** Id for a tag name, assigning one if it is new. */
+    public int tag(String name) { return tags.intern(name); }
+
+    /** Id for a tag name, or -1 when it has never been seen. */
+    public int tagIfPresent(String name) { return tags.find(name); }
+
+    public String tagName(int id) { return tags.name(id); }
+
+    public int tagCount() { return tags.size(); }
+
+    /** Id for an item display name, assigning one if it is new. */
+    public int item(String name) { return items.intern(name); }
+
+    public int itemIfPresent(String name) { return items.find(name); }
+
+    public String itemName(int id) { return items.name(id); }
+
+    public int itemCount() { return items.size(); }
+
+    /** Tag set for the given names, interning any that are new. */
+    public TagSet tags(Iterable<String> names) {
+        TagSet.Builder b = TagSet.builder();
+        for (String n : names) b.add(tag(n));
+        return b.build();
+    }
+
+    private static final class Namespace {
+        private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+        private volatile String[] names = new String[256];
+        private volatile int size;
+
+        int find(String name) {
+            Integer id = name == null ? null : ids.get(name);
+            return id == null ? -1 : id;
+        }
+
+        int intern(String name) {
+            Integer id = ids.get(name);
+            if (id != null) return id;
+            synchronized (this) {
+                id = ids.get(name);
+                if (id != null) return id;
+                int next = size;
+                String[] current = names;
+                if (next == current.length) current = Arrays.copyOf(current, next * 2);
+                current[next] = name;
+                names = current;
+                size = next + 1;
+                ids.put(name, next); // publishes the name slot to lock-free readers
+                return next;
+            }
+        }
+
+        String name(int id) {
+            return names[id];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
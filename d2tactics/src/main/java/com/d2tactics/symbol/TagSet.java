@@ -0,0 +1,131 @@
+package com.d2tactics.symbol;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable set of tag ids stored as a {@code long[]} bitset (bit i of word i/64 = tag i).
+ * Union, intersection and membership are a handful of word operations; equal sets are equal
+ * objects with equal hash codes, so a TagSet can key a memo directly.
+ */
+public final class TagSet {
+
+    public static final TagSet EMPTY = new TagSet(new long[0]);
+
+    private final long[] words; // no trailing zero words, so equals/hashCode are structural
+
+    private TagSet(long[] words) {
+        this.words = words;
+    }
+
+    public static TagSet of(int... ids) {
+        Builder b = builder();
+        for (int id : ids) b.add(id);
+        return b.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean contains(int id) {
+        int w = id >>> 6;
+        return id >= 0 && w < words.length && (words[w] & (1L << id)) != 0;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    public int size() {
+        int n = 0;
+        for (long w : words) n += Long.bitCount(w);
+        return n;
+    }
+
+    public TagSet union(TagSet other) {
+        if (other.words.length == 0 || this == other) return this;
+        if (words.length == 0) return other;
+        long[] big = words.length >= other.words.length ? words : other.words;
+        long[] small = big == words ? other.words : words;
+        long[] out = big.clone();
+        for (int i = 0; i < small.length; i++) out[i] |= small[i];
+        return Arrays.equals(out, big) ? (big == words ? this : other) : new TagSet(out);
+    }
+
+    public TagSet intersect(TagSet other) {
+        int n = Math.min(words.length, other.words.length);
+        long[] out = new long[n];
+        for (int i = 0; i < n; i++) out[i] = words[i] & other.words[i];
+        return new TagSet(trim(out));
+    }
+
+    public boolean intersects(TagSet other) {
+        int n = Math.min(words.length, other.words.length);
+        for (int i = 0; i < n; i++) {
+            if ((words[i] & other.words[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    /** Calls {@code action} with each id in ascending order. */
+    public void forEach(IntConsumer action) {
+        for (int w = 0; w < words.length; w++) {
+            long bits = words[w];
+            while (bits != 0) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] out = new int[size()];
+        int[] i = {0};
+        forEach(id -> out[i[0]++] = id);
+        return out;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TagSet t && Arrays.equals(words, t.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private static long[] trim(long[] words) {
+        int n = words.length;
+        while (n > 0 && words[n - 1] == 0) n--;
+        return n == words.length ? words : Arrays.copyOf(words, n);
+    }
+
+    public static final class Builder {
+        private long[] words = new long[2];
+
+        public Builder add(int id) {
+            int w = id >>> 6;
+            if (w >= words.length) words = Arrays.copyOf(words, Math.max(w + 1, words.length * 2));
+            words[w] |= 1L << id;
+            return this;
+        }
+
+        public Builder addAll(TagSet set) {
+            if (set.words.length > words.length) words = Arrays.copyOf(words, set.words.length);
+            for (int i = 0; i < set.words.length; i++) words[i] |= set.words[i];
+            return this;
+        }
+
+        public TagSet build() {
+            long[] out = trim(words);
+            return out.length == 0 ? EMPTY : new TagSet(out == words ? words.clone() : out);
+        }
+    }
+}
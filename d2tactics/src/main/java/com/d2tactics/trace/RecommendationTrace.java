@@ -0,0 +1,18 @@
+package com.d2tactics.trace;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Structured snapshot of one recommendation: inputs, applied boosts and the top of the ranking. */
+public record RecommendationTrace(long timestampMillis,
+                                  long allyId,
+                                  String enemy,
+                                  String phase,
+                                  Set<String> enemyTags,
+                                  Map<String, Double> appliedBoosts,
+                                  List<Score> topScores) {
+
+    public record Score(String item, double score, int count, double boost) {
+    }
+}
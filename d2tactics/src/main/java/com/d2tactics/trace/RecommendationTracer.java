@@ -0,0 +1,115 @@
+package com.d2tactics.trace;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sampled, asynchronous recommendation traces.
+ *
+ * Request threads only claim a slot in a fixed-size ring and drop the trace there; a single daemon
+ * thread drains the ring and writes one JSON line per trace to the {@code d2tactics.trace.recommendation}
+ * logger at DEBUG. When producers outrun the drainer the oldest entries are overwritten and counted
+ * as dropped, so the event loop never waits on an appender.
+ *
+ * A trace is taken when the request asked for it ({@code debug=true}) or when it falls into the
+ * {@code d2tactics.trace.sample-rate} sample and the trace logger is enabled; otherwise the
+ * recommendation path does no trace work at all.
+ */
+@Component
+public class RecommendationTracer implements DisposableBean {
+
+    private static final Logger traceLog = LoggerFactory.getLogger("d2tactics.trace.recommendation");
+    private static final Logger log = LoggerFactory.getLogger(RecommendationTracer.class);
+
+    private final double sampleRate;
+    private final ObjectMapper json;
+    private final AtomicReferenceArray<RecommendationTrace> ring;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next sequence to claim (producers)
+    private long tail;                                // next sequence to drain (drainer thread only)
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    public RecommendationTracer(@Value("${d2tactics.trace.sample-rate:0.001}") double sampleRate,
+                                @Value("${d2tactics.trace.buffer-size:1024}") int bufferSize,
+                                ObjectMapper json) {
+        this.sampleRate = Math.max(0.0, Math.min(1.0, sampleRate));
+        this.json = json;
+        int capacity = Integer.highestOneBit(Math.max(16, bufferSize - 1) << 1);
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.drainer = new Thread(this::drainLoop, "reco-trace-drain");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /** Cheap per-request decision; true means the caller should build and submit a trace. */
+    public boolean sample() {
+        return sampleRate > 0
+                && traceLog.isDebugEnabled()
+                && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /** Non-blocking publish; never waits, overwrites the oldest entry when the ring is full. */
+    public void submit(RecommendationTrace trace) {
+        long seq = head.getAndIncrement();
+        ring.set((int) (seq & mask), trace);
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (!drainOnce()) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        drainOnce();
+    }
+
+    /** Drains everything published so far; returns false when there was nothing to do. */
+    private boolean drainOnce() {
+        long h = head.get();
+        if (h == tail) return false;
+        int capacity = mask + 1;
+        if (h - tail > capacity) {
+            dropped.addAndGet(h - tail - capacity);
+            tail = h - capacity;
+        }
+        while (tail < h) {
+            RecommendationTrace t = ring.getAndSet((int) (tail & mask), null);
+            if (t == null) break; // slot claimed but not written yet; pick it up next round
+            tail++;
+            write(t);
+        }
+        return true;
+    }
+
+    private void write(RecommendationTrace t) {
+        if (!traceLog.isDebugEnabled()) return;
+        try {
+            traceLog.debug(json.writeValueAsString(t));
+        } catch (Exception e) {
+            log.debug("Could not serialize recommendation trace: {}", e.toString());
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(1_000);
+        if (dropped.get() > 0) log.debug("Recommendation traces dropped: {}", dropped.get());
+    }
+}
@@ -0,0 +1,87 @@
+package com.d2tactics.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit for one endpoint group, adjusted AIMD style from observed latency.
+ *
+ * A slow moving average of request latency is the baseline. A request that fails, or takes more than
+ * {@code tolerance} times the baseline, shrinks the limit by {@code backoff} (at most once per baseline
+ * interval, so one slow burst does not collapse it to the floor). Successful requests grow it by
+ * {@code 1/limit} each, i.e. about +1 per limit's worth of requests.
+ *
+ * Either way the limit only moves while at least half of it is in use. Latency here is bimodal (cache
+ * hits are fast, upstream misses slow), so at low load a miss looks slow without anything being
+ * overloaded; shrinking on it would walk the limit down to {@code min} and reject the next burst.
+ */
+final class AdaptiveLimit {
+
+    private static final double BASELINE_ALPHA = 0.02;
+    private static final double BACKOFF = 0.9;
+
+    private final int min;
+    private final int max;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // written under this, read racily by gauges and tryAcquire
+    private volatile double limit;
+    private volatile double baselineNanos;
+    private long lastDecreaseNanos;
+
+    AdaptiveLimit(int initial, int min, int max, double tolerance) {
+        this.min = Math.max(1, min);
+        this.max = Math.max(this.min, max);
+        this.limit = Math.clamp(initial, this.min, this.max);
+        this.tolerance = tolerance;
+    }
+
+    /** Takes a slot, or returns false when the group is at its limit. */
+    boolean tryAcquire() {
+        int now = inFlight.incrementAndGet();
+        if (now <= (int) limit) return true;
+        inFlight.decrementAndGet();
+        return false;
+    }
+
+    /** Frees a slot; {@code latencyNanos < 0} frees it without a sample (cancelled requests). */
+    void release(long latencyNanos, boolean ok) {
+        int busy = inFlight.getAndDecrement();
+        if (latencyNanos >= 0) sample(latencyNanos, ok, busy);
+    }
+
+    private synchronized void sample(long latencyNanos, boolean ok, int busy) {
+        double baseline = baselineNanos;
+        if (baseline == 0) {
+            baselineNanos = latencyNanos;
+            return;
+        }
+        long now = System.nanoTime();
+        boolean slow = latencyNanos > tolerance * baseline;
+        // well below the limit, the limit neither made this request slow nor held anything back
+        if (busy * 2 >= limit) {
+            if (!ok || slow) {
+                if (now - lastDecreaseNanos > baseline) {
+                    limit = Math.max(min, limit * BACKOFF);
+                    lastDecreaseNanos = now;
+                }
+            } else {
+                limit = Math.min(max, limit + 1.0 / limit);
+            }
+        }
+        // slow samples still move the baseline, so a lasting slowdown becomes the new normal
+        baselineNanos = baseline + BASELINE_ALPHA * (latencyNanos - baseline);
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    double limit() {
+        return limit;
+    }
+
+    double baselineMillis() {
+        return baselineNanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,124 @@
+package com.d2tactics.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admission control for the upstream-backed endpoints.
+ *
+ * Each group below has its own {@link AdaptiveLimit}. A request over its group's limit is answered
+ * right away with 503 and {@code Retry-After} instead of queueing behind a slow OpenDota, so memory
+ * and latency stay bounded and the requests that are admitted keep finishing. Other paths (hero
+ * search, manifests, actuator) are not limited.
+ *
+ * Meters (tag {@code group}): {@code d2tactics.admission.in.flight}, {@code d2tactics.admission.limit},
+ * {@code d2tactics.admission.rejected}.
+ */
+@Component
+public class AdmissionControlFilter implements WebFilter, Ordered {
+
+    private static final Map<String, String> GROUPS = Map.of(
+            "recommendation", "/opendota/recommendation/**",
+            "data", "/opendota/data/**",
+            "timings", "/opendota/heroes/{hero}/itemTimings",
+            "variants", "/opendota/heroes/{hero}/buildVariants",
+            "page", "/opendota/heroes/{hero}/page",
+            "trend", "/opendota/heroes/{hero}/popularity/trend"
+    );
+
+    private record Group(String name, PathPattern pattern, AdaptiveLimit limit, Counter rejected) {
+    }
+
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final List<Group> groups = new ArrayList<>();
+
+    public AdmissionControlFilter(MeterRegistry registry,
+                                  @Value("${d2tactics.admission.enabled:true}") boolean enabled,
+                                  @Value("${d2tactics.admission.initial-limit:64}") int initialLimit,
+                                  @Value("${d2tactics.admission.min-limit:8}") int minLimit,
+                                  @Value("${d2tactics.admission.max-limit:512}") int maxLimit,
+                                  @Value("${d2tactics.admission.latency-tolerance:2.0}") double tolerance,
+                                  @Value("${d2tactics.admission.retry-after:PT1S}") Duration retryAfter) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        GROUPS.forEach((name, pattern) -> {
+            AdaptiveLimit limit = new AdaptiveLimit(initialLimit, minLimit, maxLimit, tolerance);
+            Gauge.builder("d2tactics.admission.in.flight", limit, AdaptiveLimit::inFlight)
+                    .description("Admitted requests in progress").tag("group", name).register(registry);
+            Gauge.builder("d2tactics.admission.limit", limit, AdaptiveLimit::limit)
+                    .description("Current adaptive concurrency limit").tag("group", name).register(registry);
+            Counter rejected = Counter.builder("d2tactics.admission.rejected")
+                    .description("Requests turned away with 503").tag("group", name).register(registry);
+            groups.add(new Group(name, PathPatternParser.defaultInstance.parse(pattern), limit, rejected));
+        });
+    }
+
+    /** Right after the CORS filter, so 503s sent to browsers still carry CORS headers. */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!enabled) return chain.filter(exchange);
+        Group group = groupOf(exchange);
+        if (group == null) return chain.filter(exchange);
+        if (!group.limit().tryAcquire()) {
+            group.rejected().increment();
+            return reject(exchange.getResponse(), group.name());
+        }
+        long t0 = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                group.limit().release(-1, false);
+                return;
+            }
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean ok = signal == SignalType.ON_COMPLETE && (status == null || !status.is5xxServerError());
+            group.limit().release(System.nanoTime() - t0, ok);
+        });
+    }
+
+    private Group groupOf(ServerWebExchange exchange) {
+        var path = exchange.getRequest().getPath().pathWithinApplication();
+        for (Group g : groups) {
+            if (g.pattern().matches(path)) return g;
+        }
+        return null;
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, String group) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = ("{\"error\":\"Overloaded\",\"group\":\"" + group + "\",\"retryAfterSeconds\":"
+                + retryAfterSeconds + "}").getBytes(StandardCharsets.UTF_8);
+        DataBuffer buffer = response.bufferFactory().wrap(body);
+        return response.writeWith(Mono.just(buffer));
+    }
+}
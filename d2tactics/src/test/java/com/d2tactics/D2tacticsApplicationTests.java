@@ -3,7 +3,7 @@ package com.d2tactics;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "d2tactics.warmup.enabled=false") // no OpenDota access in unit tests
 class D2tacticsApplicationTests {
 
 	@Test
@@ -0,0 +1,84 @@
+package com.d2tactics.build;
+
+import com.d2tactics.build.BuildVariantEngine.Purchase;
+import com.d2tactics.build.BuildVariantEngine.Step;
+import com.d2tactics.build.BuildVariantEngine.Variant;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Clustering on synthetic purchase logs with two known, mutually exclusive builds. */
+class BuildVariantEngineTest {
+
+    private static final Set<String> CORE = Set.of(
+            "phase_boots", "radiance", "manta", "battle_fury", "black_king_bar", "butterfly", "skadi");
+
+    @Test
+    void separatesExclusiveBuildsAndKeepsTheirOrder() {
+        Random rnd = new Random(42);
+        List<List<Purchase>> logs = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            boolean farm = i % 3 == 0; // one third battle fury, two thirds radiance
+            List<String> build = farm
+                    ? List.of("phase_boots", "battle_fury", "manta", "butterfly")
+                    : List.of("phase_boots", "radiance", "black_king_bar", "skadi");
+            List<Purchase> log = new ArrayList<>();
+            log.add(new Purchase("tango", -60)); // not core, ignored
+            int t = 300;
+            for (String item : build) {
+                if (rnd.nextDouble() < 0.1) continue; // not every game finishes every item
+                t += 300 + rnd.nextInt(240);
+                log.add(new Purchase(item, t));
+            }
+            logs.add(log);
+        }
+
+        List<Variant> variants = BuildVariantEngine.infer(logs, CORE::contains, BuildVariantEngine.Params.defaults(3));
+
+        assertEquals(2, variants.size());
+        Variant main = variants.get(0);
+        Variant alt = variants.get(1);
+        assertEquals(0.67, main.share(), 0.05);
+        assertEquals(List.of("phase_boots", "radiance", "black_king_bar", "skadi"), keys(main));
+        assertEquals(List.of("phase_boots", "battle_fury", "manta", "butterfly"), keys(alt));
+        assertTrue(main.steps().get(1).medianMinute() < main.steps().get(3).medianMinute());
+    }
+
+    @Test
+    void keepsADominantBuildWhoseSignatureItemIsInMostMatches() {
+        // every game finishes its build: radiance is bought in 70% / 80% of matches, above coreShare
+        for (int radiancePercent : new int[]{70, 80}) {
+            List<List<Purchase>> logs = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                List<String> build = i < radiancePercent
+                        ? List.of("phase_boots", "radiance", "black_king_bar", "skadi")
+                        : List.of("phase_boots", "battle_fury", "manta", "butterfly");
+                List<Purchase> log = new ArrayList<>();
+                for (int n = 0; n < build.size(); n++) log.add(new Purchase(build.get(n), 600 + 420 * n));
+                logs.add(log);
+            }
+
+            List<Variant> variants = BuildVariantEngine.infer(logs, CORE::contains, BuildVariantEngine.Params.defaults(3));
+
+            assertEquals(2, variants.size(), radiancePercent + "% radiance");
+            assertEquals(radiancePercent / 100.0, variants.get(0).share(), 1e-9);
+            assertEquals(List.of("phase_boots", "radiance", "black_king_bar", "skadi"), keys(variants.get(0)));
+            assertEquals(List.of("phase_boots", "battle_fury", "manta", "butterfly"), keys(variants.get(1)));
+        }
+    }
+
+    @Test
+    void emptyWhenNothingToCluster() {
+        List<List<Purchase>> logs = List.of(List.of(new Purchase("tango", 0)), List.of());
+        assertTrue(BuildVariantEngine.infer(logs, CORE::contains, BuildVariantEngine.Params.defaults(3)).isEmpty());
+    }
+
+    private static List<String> keys(Variant v) {
+        return v.steps().stream().map(Step::key).toList();
+    }
+}
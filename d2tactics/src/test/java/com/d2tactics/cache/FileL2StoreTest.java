@@ -0,0 +1,61 @@
+package com.d2tactics.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** The file backend's sweep: expired entries, the entry cap and temp files left by dead writers. */
+class FileL2StoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sweepDropsEntriesNobodyReadAfterTheyExpired() throws Exception {
+        FileL2Store store = new FileL2Store(dir, 100);
+        store.put("short", new byte[]{1}, Duration.ofMillis(20));
+        store.put("long", new byte[]{2}, Duration.ofHours(1));
+        Thread.sleep(60);
+
+        assertEquals(1, store.sweep());
+        assertEquals(1, files());
+        assertArrayEquals(new byte[]{2}, store.get("long"));
+        assertNull(store.get("short"));
+    }
+
+    @Test
+    void sweepTrimsToTheCapSoonestExpiringFirst() throws Exception {
+        FileL2Store store = new FileL2Store(dir, 3);
+        for (int i = 1; i <= 5; i++) store.put("k" + i, new byte[]{(byte) i}, Duration.ofMinutes(i));
+
+        assertEquals(2, store.sweep());
+        assertNull(store.get("k1"));
+        assertNull(store.get("k2"));
+        for (int i = 3; i <= 5; i++) assertArrayEquals(new byte[]{(byte) i}, store.get("k" + i));
+    }
+
+    @Test
+    void sweepRemovesOnlyOldTempFiles() throws Exception {
+        FileL2Store store = new FileL2Store(dir, 100);
+        Path orphan = Files.write(dir.resolve("abc.l2.1.tmp"), new byte[]{1});
+        Files.setLastModifiedTime(orphan, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofHours(1).toMillis()));
+        Path writing = Files.write(dir.resolve("def.l2.2.tmp"), new byte[]{2});
+
+        assertEquals(1, store.sweep());
+        assertFalse(Files.exists(orphan));
+        assertTrue(Files.exists(writing));
+    }
+
+    private long files() throws Exception {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.count();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.d2tactics.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Encoding round trip and copy-on-write publication of the off-heap popularity store. */
+class PopularityStoreTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void encodesPhasesByCountAndRoundTrips() throws Exception {
+        PopularityStore store = new PopularityStore(new SimpleMeterRegistry());
+        JsonNode payload = mapper.readTree("""
+                {"start_game_items": {"16": 120, "44": 980, "bogus": 5},
+                 "early_game_items": {},
+                 "late_game_items": {"116": 40}}""");
+
+        PopularityStore.Entry e = store.put(8, payload, 1_000);
+
+        assertEquals(2, e.size(0));
+        assertEquals(44, e.itemId(0, 0));
+        assertEquals(980, e.count(0, 0));
+        assertEquals(120, e.countOf(0, 16));
+        assertEquals(0, e.countOf(0, 99));
+        assertEquals(0, e.size(1));
+        assertEquals(0, e.size(2));
+        assertEquals(40, e.countOf(3, 116));
+        assertTrue(e.fresh(999));
+        assertFalse(e.fresh(1_000));
+        assertEquals(mapper.readTree("""
+                {"start_game_items": {"44": 980, "16": 120}, "early_game_items": {},
+                 "mid_game_items": {}, "late_game_items": {"116": 40}}"""), e.toJson());
+    }
+
+    @Test
+    void updatesPublishNewSnapshotsAndLeaveOldOnesIntact() throws Exception {
+        PopularityStore store = new PopularityStore(new SimpleMeterRegistry());
+        PopularityStore.Entry first = store.put(1, mapper.readTree("{\"mid_game_items\": {\"1\": 10}}"), 0);
+        PopularityStore.Entry second = store.put(1, mapper.readTree("{\"mid_game_items\": {\"1\": 20, \"2\": 5}}"), 0);
+
+        assertSame(second, store.get(1));
+        assertTrue(second.version() > first.version());
+        assertEquals(10, first.countOf(2, 1)); // a reader holding the old entry still sees it whole
+        assertEquals(20, second.countOf(2, 1));
+        assertNull(store.get(2));
+        assertEquals(32 + 2 * 8, store.offHeapBytes()); // header + two (id, count) pairs
+    }
+
+    @Test
+    void idsPastTheTableArePassedThroughUncached() throws Exception {
+        PopularityStore store = new PopularityStore(new SimpleMeterRegistry());
+        PopularityStore.Entry e = store.put(100_000, mapper.readTree("{\"late_game_items\": {\"116\": 40}}"), 1_000);
+
+        assertEquals(40, e.countOf(3, 116));
+        assertNull(store.get(100_000));
+        assertEquals(0, store.offHeapBytes());
+    }
+}
@@ -0,0 +1,99 @@
+package com.d2tactics.cache;
+
+import com.d2tactics.cache.L2Cache.Namespace;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** The RESP adapter and the L2 tier against the embedded stand-in, no outside network. */
+class RespL2StoreTest {
+
+    private RespStandIn server;
+    private RespL2Store store;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = new RespStandIn(0);
+        store = new RespL2Store("127.0.0.1", server.port(), Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        store.close();
+        server.close();
+    }
+
+    @Test
+    void roundTripsBinaryValuesWithTtlAndDelete() throws Exception {
+        byte[] value = {0, 13, 10, (byte) 0xff, 'x'};
+        store.put("k", value, Duration.ofMinutes(1));
+        assertArrayEquals(value, store.get("k"));
+        assertNull(store.get("missing"));
+
+        store.put("short", "v".getBytes(StandardCharsets.UTF_8), Duration.ofMillis(30));
+        Thread.sleep(80);
+        assertNull(store.get("short"));
+
+        store.delete("k");
+        assertNull(store.get("k"));
+    }
+
+    @Test
+    void reconnectsAfterTheServerRestarts() throws Exception {
+        store.put("k", new byte[]{1}, Duration.ofMinutes(1));
+        int port = server.port();
+        server.close();
+        assertThrows(Exception.class, () -> store.get("k"));
+
+        server = new RespStandIn(port); // restarted, empty
+        assertNull(store.get("k"));
+        store.put("k", new byte[]{2}, Duration.ofMinutes(1));
+        assertArrayEquals(new byte[]{2}, store.get("k"));
+    }
+
+    @Test
+    void errorRepliesFailTheCallButKeepTheConnection() throws Exception {
+        store.put("k", new byte[]{1}, Duration.ofMinutes(1));
+        server.rejectNext("OOM command not allowed when used memory > 'maxmemory'");
+        IOException e = assertThrows(IOException.class, () -> store.put("k2", new byte[]{2}, Duration.ofMinutes(1)));
+        assertTrue(e.getMessage().contains("OOM"), e.getMessage());
+
+        assertArrayEquals(new byte[]{1}, store.get("k"));
+        assertEquals(1, server.connections());
+    }
+
+    @Test
+    void tierServesVersionedEntriesAndTreatsExpiredOnesAsMisses() throws Exception {
+        ObjectMapper json = new ObjectMapper();
+        var beans = new StaticListableBeanFactory();
+        beans.addBean("store", store);
+        L2Cache l2 = new L2Cache(beans.getBeanProvider(L2Store.class), json, Schedulers.immediate(),
+                new SimpleMeterRegistry(), "none", "", 0, "", 0, Duration.ZERO);
+        JsonNode body = json.readTree("{\"start_game_items\":{\"29\":120,\"36\":64}}");
+
+        l2.put(Namespace.POPULARITY, "1", body, Duration.ofMinutes(5));
+        L2Cache.Entry hit = l2.get(Namespace.POPULARITY, "1").block();
+        assertNotNull(hit);
+        assertEquals(body, hit.value());
+        assertTrue(hit.expiresAtMillis() > System.currentTimeMillis());
+
+        assertNull(l2.get(Namespace.TIMINGS, "1").block(), "namespaces do not share keys");
+
+        // an entry written with a shorter deadline than the store TTL still expires at its own deadline
+        store.put("d2t:popularity:2", l2.encode(Namespace.POPULARITY, body, Duration.ofMillis(1)), Duration.ofMinutes(5));
+        Thread.sleep(10);
+        assertNull(l2.get(Namespace.POPULARITY, "2").block());
+        assertNull(store.get("d2t:popularity:2"), "expired entries are removed on read");
+    }
+}
@@ -0,0 +1,165 @@
+package com.d2tactics.cache;
+
+import java.io.*;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Embedded Redis stand-in for tests: RESP2 over loopback, GET / SET [PX ms] / DEL / PING, in memory,
+ * plus an injectable error reply.
+ * One virtual thread per connection; expiry is checked on read.
+ */
+final class RespStandIn implements AutoCloseable {
+
+    private record Value(byte[] data, long expiresAtMillis) {
+        boolean live() { return expiresAtMillis == 0 || System.currentTimeMillis() < expiresAtMillis; }
+    }
+
+    private final Map<String, Value> data = new ConcurrentHashMap<>();
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger accepted = new AtomicInteger();
+    private volatile String rejectNext; // error answered to the next command instead of running it
+    private final ServerSocket server;
+
+    /** Listens on {@code port} (0 = any free port); a fixed port is retried briefly while the old listener lets go. */
+    RespStandIn(int port) throws IOException {
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        for (int attempt = 0; ; attempt++) {
+            try {
+                server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+                break;
+            } catch (BindException e) {
+                if (port == 0 || attempt >= 40) throw e;
+                LockSupport.parkNanos(50_000_000L);
+            }
+        }
+        Thread.ofVirtual().name("resp-stand-in").start(this::acceptLoop);
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    /** Connections accepted so far. */
+    int connections() {
+        return accepted.get();
+    }
+
+    /** Answers the next command with {@code -<error>}, e.g. "OOM command not allowed", like a full server. */
+    void rejectNext(String error) {
+        rejectNext = error;
+    }
+
+    /** Stops listening and drops every client connection, like a server restart. */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Socket s : clients) s.close();
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket s = server.accept();
+                clients.add(s);
+                accepted.incrementAndGet();
+                Thread.ofVirtual().start(() -> serve(s));
+            } catch (IOException e) {
+                return; // closed
+            }
+        }
+    }
+
+    private void serve(Socket s) {
+        try (s; var in = new BufferedInputStream(s.getInputStream()); var out = new BufferedOutputStream(s.getOutputStream())) {
+            while (true) {
+                List<byte[]> cmd = readCommand(in);
+                if (cmd == null) return;
+                reply(cmd, out);
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // client went away
+        } finally {
+            clients.remove(s);
+        }
+    }
+
+    private void reply(List<byte[]> cmd, OutputStream out) throws IOException {
+        String op = str(cmd.get(0)).toUpperCase();
+        String error = rejectNext;
+        if (error != null) {
+            rejectNext = null;
+            out.write(("-" + error + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        switch (op) {
+            case "PING" -> out.write("+PONG\r\n".getBytes(StandardCharsets.US_ASCII));
+            case "GET" -> {
+                Value v = data.get(str(cmd.get(1)));
+                if (v == null || !v.live()) {
+                    out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+                } else {
+                    out.write(("$" + v.data().length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                    out.write(v.data());
+                    out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+                }
+            }
+            case "SET" -> {
+                long expires = 0;
+                if (cmd.size() >= 5 && str(cmd.get(3)).equalsIgnoreCase("PX")) {
+                    expires = System.currentTimeMillis() + Long.parseLong(str(cmd.get(4)));
+                }
+                data.put(str(cmd.get(1)), new Value(cmd.get(2), expires));
+                out.write("+OK\r\n".getBytes(StandardCharsets.US_ASCII));
+            }
+            case "DEL" -> {
+                int n = data.remove(str(cmd.get(1))) == null ? 0 : 1;
+                out.write((":" + n + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            }
+            default -> out.write(("-ERR unknown command '" + op + "'\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type < 0) return null;
+        if (type != '*') throw new IOException("Expected array");
+        int n = Integer.parseInt(line(in));
+        List<byte[]> parts = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            if (in.read() != '$') throw new IOException("Expected bulk string");
+            int len = Integer.parseInt(line(in));
+            parts.add(in.readNBytes(len));
+            line(in);
+        }
+        return parts;
+    }
+
+    private static String line(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c < 0) throw new EOFException();
+            sb.append((char) c);
+        }
+        in.read(); // \n
+        return sb.toString();
+    }
+
+    private static String str(byte[] b) {
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,56 @@
+package com.d2tactics.client;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Rows come out whole whatever the chunk boundaries, and a failed query fails the stream. */
+class ExplorerRowDecoderTest {
+
+    record Row(@JsonProperty("item_key") String itemKey, @JsonProperty("median_min") double medianMin, int uses) {
+    }
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Test
+    void decodesRowsAcrossArbitraryChunks() {
+        String body = """
+                {"command": "SELECT", "rowCount": 3, "fields": [{"name": "item_key"}, {"name": "rows"}],
+                 "rows": [{"item_key": "tango", "median_min": 0.0, "uses": 40000},
+                          {"item_key": "blink", "median_min": 15.5, "uses": 4444, "extra": {"rows": [1]}},
+                          {"item_key": "bkb", "median_min": 22.0, "uses": 3000}],
+                 "err": null}
+                """;
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        for (int chunk : new int[]{1, 7, 64, bytes.length}) {
+            ExplorerRowDecoder<Row> decoder = new ExplorerRowDecoder<>(JSON, Row.class);
+            List<Row> rows = new ArrayList<>();
+            for (int i = 0; i < bytes.length; i += chunk) {
+                byte[] part = Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + chunk));
+                rows.addAll(decoder.feed(DefaultDataBufferFactory.sharedInstance.wrap(part)));
+            }
+            rows.addAll(decoder.endOfInput());
+            assertEquals(List.of(new Row("tango", 0.0, 40000), new Row("blink", 15.5, 4444), new Row("bkb", 22.0, 3000)),
+                    rows, "chunk size " + chunk);
+        }
+    }
+
+    @Test
+    void failsOnQueryError() {
+        ExplorerRowDecoder<Row> decoder = new ExplorerRowDecoder<>(JSON, Row.class);
+        byte[] bytes = "{\"err\": \"statement timeout\", \"rows\": []}".getBytes(StandardCharsets.UTF_8);
+        var e = assertThrows(OpenDotaClient.OpenDotaException.class,
+                () -> decoder.feed(DefaultDataBufferFactory.sharedInstance.wrap(bytes)));
+        assertTrue(e.getMessage().contains("statement timeout"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.d2tactics.controller;
+
+import com.d2tactics.loadtest.OpenDotaStandInTest;
+import com.d2tactics.service.HeroResolver;
+import com.d2tactics.service.HeroSimilarityService;
+import com.d2tactics.service.ItemPopularityService;
+import com.d2tactics.service.OpenDotaHeroService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Popularity endpoints against the stand-in. */
+class DotaDataControllerTest extends OpenDotaStandInTest {
+
+    @Autowired
+    WebTestClient web;
+
+    @Autowired
+    HeroResolver heroes;
+
+    @Autowired
+    OpenDotaHeroService heroService;
+
+    @Autowired
+    HeroSimilarityService similarity;
+
+    @Autowired
+    ItemPopularityService popularity;
+
+    @Test
+    void namedPopularityShowsOnlyTheHerosOwnCounts() {
+        // axe has three purchases, every other hero the shared fixture's thousands
+        STUB.replaceFixture("heroes/2/itemPopularity.json", """
+                {"start_game_items": {}, "early_game_items": {"50": 3}, "mid_game_items": {}, "late_game_items": {}}
+                """.getBytes(StandardCharsets.UTF_8));
+        heroService.prefetchHeroItemPopularity(2L).block(TIMEOUT); // axe may be cached by an earlier class
+        for (HeroResolver.Hero h : heroes.all()) heroService.heroItemPopularity(h.id()).block(TIMEOUT);
+        similarity.rebuild().block(TIMEOUT);
+
+        // recommendations borrow from a neighbor for axe...
+        JsonNode scoring = popularity.getItemPopularityForScoring(2L).block(TIMEOUT);
+        assertNotNull(scoring);
+        assertTrue(scoring.path("early_game_items").size() > 1, scoring.toString());
+
+        // ...the endpoint does not
+        JsonNode body = web.get().uri("/opendota/data/heroes/axe/itemPopularity?named=true")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(JsonNode.class)
+                .returnResult().getResponseBody();
+        assertNotNull(body);
+        assertEquals(4, body.size(), body.toString());
+        assertEquals(1, body.path("early_game_items").size(), body.toString());
+        assertEquals(3, body.path("early_game_items").elements().next().asInt());
+        for (String phase : new String[]{"start_game_items", "mid_game_items", "late_game_items"}) {
+            assertEquals(0, body.path(phase).size(), body.toString());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.d2tactics.history;
+
+import com.d2tactics.cache.PopularityStore;
+import com.d2tactics.history.SnapshotCodec.Snapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Keyframe + delta round trip, delta size and torn-tail handling of the segment encoding. */
+class SnapshotCodecTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final PopularityStore store = new PopularityStore(new SimpleMeterRegistry());
+
+    @Test
+    void replaysKeyframeAndDeltas() throws Exception {
+        Snapshot a = snapshot(1_000, "{\"start_game_items\": {\"44\": 9800, \"16\": 9120}, \"mid_game_items\": {\"1\": 300}}");
+        Snapshot b = snapshot(4_600, "{\"start_game_items\": {\"44\": 9810, \"16\": 9120}, \"mid_game_items\": {\"1\": 300}}");
+        Snapshot c = snapshot(8_200, "{\"start_game_items\": {\"44\": 9810}, \"mid_game_items\": {\"1\": 300, \"208\": 12}}");
+
+        ByteArrayOutputStream seg = new ByteArrayOutputStream();
+        assertTrue(SnapshotCodec.encode(null, a, seg) > 0);
+        int keyframe = seg.size();
+        assertEquals(1, SnapshotCodec.encode(a, b, seg));
+        assertTrue(seg.size() - keyframe < 12, "one changed count costs a few bytes");
+        assertEquals(2, SnapshotCodec.encode(b, c, seg)); // 16 dropped, 208 added
+        assertEquals(0, SnapshotCodec.encode(c, c, seg)); // no change, nothing written
+
+        List<Snapshot> replay = new ArrayList<>();
+        int valid = SnapshotCodec.decode(ByteBuffer.wrap(seg.toByteArray()), replay::add);
+
+        assertEquals(seg.size(), valid);
+        assertEquals(3, replay.size());
+        assertReplayed(List.of(a, b, c), replay);
+        assertEquals(0, replay.get(2).count(0, 16));
+        assertEquals(12, replay.get(2).count(2, 208));
+    }
+
+    @Test
+    void stopsAtTornTail() throws Exception {
+        Snapshot a = snapshot(10, "{\"late_game_items\": {\"116\": 40}}");
+        Snapshot b = snapshot(20, "{\"late_game_items\": {\"116\": 41}}");
+        ByteArrayOutputStream seg = new ByteArrayOutputStream();
+        SnapshotCodec.encode(null, a, seg);
+        int first = seg.size();
+        SnapshotCodec.encode(a, b, seg);
+        byte[] torn = Arrays.copyOf(seg.toByteArray(), seg.size() - 1);
+
+        List<Snapshot> replay = new ArrayList<>();
+        assertEquals(first, SnapshotCodec.decode(ByteBuffer.wrap(torn), replay::add));
+        assertEquals(1, replay.size());
+        assertEquals(40, replay.get(0).count(3, 116));
+    }
+
+    private Snapshot snapshot(long seconds, String json) throws Exception {
+        return Snapshot.of(store.put(1, mapper.readTree(json), 0), seconds);
+    }
+
+    private static void assertReplayed(List<Snapshot> expected, List<Snapshot> actual) {
+        for (int i = 0; i < expected.size(); i++) {
+            Snapshot e = expected.get(i), a = actual.get(i);
+            assertEquals(e.epochSeconds(), a.epochSeconds());
+            assertTrue(Arrays.deepEquals(e.items(), a.items()));
+            assertTrue(Arrays.deepEquals(e.counts(), a.counts()));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.d2tactics.loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear latency histogram (microsecond resolution, ~1.5% relative error).
+ *
+ * Values below 128 µs get one bucket each; above that every power of two is split into 64
+ * linear sub-buckets, which is the same layout HdrHistogram uses with two significant digits.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;                 // 64 sub-buckets per power of two
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int LINEAR = SUB * 2;             // 0..127 µs are exact
+    private static final int MAGNITUDES = 40;              // up to ~2^46 µs, far beyond any timeout
+
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR + MAGNITUDES * SUB);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long duration, TimeUnit unit) {
+        long us = Math.max(0, unit.toMicros(duration));
+        counts.incrementAndGet(indexOf(us));
+        total.incrementAndGet();
+        sumMicros.addAndGet(us);
+        maxMicros.accumulateAndGet(us, Math::max);
+    }
+
+    public long count() { return total.get(); }
+
+    public double meanMillis() {
+        long n = total.get();
+        return n == 0 ? 0.0 : sumMicros.get() / 1000.0 / n;
+    }
+
+    public double maxMillis() { return maxMicros.get() / 1000.0; }
+
+    /** Latency at the given quantile (0..1) in milliseconds, reported as the bucket's upper bound. */
+    public double percentileMillis(double q) {
+        long n = total.get();
+        if (n == 0) return 0.0;
+        long rank = (long) Math.ceil(q * n);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(1, rank)) return Math.min(upperBound(i), maxMicros.get()) / 1000.0;
+        }
+        return maxMillis();
+    }
+
+    static int indexOf(long us) {
+        if (us < LINEAR) return (int) us;
+        int mag = 63 - Long.numberOfLeadingZeros(us) - SUB_BITS;          // us >> mag lands in [64, 128)
+        int idx = LINEAR + (mag - 1) * SUB + (int) ((us >> mag) - SUB);
+        return Math.min(idx, LINEAR + MAGNITUDES * SUB - 1);
+    }
+
+    static long upperBound(int idx) {
+        if (idx < LINEAR) return idx;
+        int mag = (idx - LINEAR) / SUB + 1;
+        long sub = (idx - LINEAR) % SUB + SUB;
+        return ((sub + 1) << mag) - 1;
+    }
+}
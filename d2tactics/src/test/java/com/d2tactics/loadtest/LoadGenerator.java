@@ -0,0 +1,119 @@
+package com.d2tactics.loadtest;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the WebFlux endpoints.
+ *
+ * Requests are issued on a fixed schedule regardless of how fast responses come back, and latency
+ * is measured from the *intended* send time, so a stalled server shows up in the tail instead of
+ * silently lowering the offered rate (coordinated omission). Paths are used round-robin.
+ */
+public final class LoadGenerator {
+
+    public record Config(String baseUrl, List<String> paths, int rps, Duration duration,
+                         Duration warmup, int maxInFlight, Duration requestTimeout) {
+    }
+
+    public record Report(long sent, long ok, long clientErrors, long serverErrors, long failures,
+                         long skipped, double seconds, LatencyHistogram latency) {
+
+        public double throughput() { return seconds == 0 ? 0.0 : (ok + clientErrors + serverErrors) / seconds; }
+
+        public String format() {
+            return String.format(Locale.ROOT,
+                    "sent=%d ok=%d 4xx=%d 5xx=%d failed=%d skipped(in-flight cap)=%d%n" +
+                    "throughput=%.1f req/s over %.1fs%n" +
+                    "latency ms: p50=%.2f p90=%.2f p99=%.2f p999=%.2f max=%.2f mean=%.2f",
+                    sent, ok, clientErrors, serverErrors, failures, skipped, throughput(), seconds,
+                    latency.percentileMillis(0.50), latency.percentileMillis(0.90),
+                    latency.percentileMillis(0.99), latency.percentileMillis(0.999),
+                    latency.maxMillis(), latency.meanMillis());
+        }
+    }
+
+    private final Config config;
+    private final HttpClient http;
+
+    public LoadGenerator(Config config) {
+        this.config = config;
+        ConnectionProvider pool = ConnectionProvider.builder("loadgen")
+                .maxConnections(config.maxInFlight())
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.http = HttpClient.create(pool)
+                .baseUrl(config.baseUrl())
+                .responseTimeout(config.requestTimeout());
+    }
+
+    /** Runs warmup (not recorded) followed by the measured phase. Blocks until all responses are in. */
+    public Report run() throws InterruptedException {
+        if (!config.warmup().isZero()) drive(config.warmup(), new LatencyHistogram(), new Counters());
+        LatencyHistogram hist = new LatencyHistogram();
+        Counters c = new Counters();
+        long t0 = System.nanoTime();
+        drive(config.duration(), hist, c);
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        return new Report(c.sent.get(), c.ok.get(), c.clientErrors.get(), c.serverErrors.get(),
+                c.failures.get(), c.skipped.get(), seconds, hist);
+    }
+
+    private void drive(Duration duration, LatencyHistogram hist, Counters c) throws InterruptedException {
+        long periodNanos = 1_000_000_000L / Math.max(1, config.rps());
+        long total = duration.toNanos() / periodNanos;
+        AtomicInteger inFlight = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch((int) Math.min(Integer.MAX_VALUE, total));
+        List<String> paths = config.paths();
+
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * periodNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            if (inFlight.get() >= config.maxInFlight()) {
+                c.skipped.incrementAndGet();
+                done.countDown();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            c.sent.incrementAndGet();
+            String path = paths.get((int) (i % paths.size()));
+            http.get().uri(path)
+                    .responseSingle((res, body) -> body.asByteArray()
+                            .defaultIfEmpty(new byte[0])
+                            .map(ignored -> res.status().code()))
+                    .onErrorResume(ex -> Mono.just(-1))
+                    .subscribe(status -> {
+                        hist.record(System.nanoTime() - intended, TimeUnit.NANOSECONDS);
+                        if (status < 0) c.failures.incrementAndGet();
+                        else if (status >= 500) c.serverErrors.incrementAndGet();
+                        else if (status >= 400) c.clientErrors.incrementAndGet();
+                        else c.ok.incrementAndGet();
+                        inFlight.decrementAndGet();
+                        done.countDown();
+                    });
+        }
+        done.await(config.requestTimeout().toMillis() + 5_000, TimeUnit.MILLISECONDS);
+    }
+
+    private static final class Counters {
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong ok = new AtomicLong();
+        final AtomicLong clientErrors = new AtomicLong();
+        final AtomicLong serverErrors = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+    }
+}
@@ -0,0 +1,84 @@
+package com.d2tactics.loadtest;
+
+import com.d2tactics.D2tacticsApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * End-to-end load test on one box: OpenDota stand-in + the real app + the open-loop generator.
+ *
+ *   mvn -Ploadtest verify -DskipTests -Dload.rps=500 -Dload.duration=60s \
+ *       -Dstub.latency=80ms -Dstub.error-rate=0.02
+ *
+ * System properties:
+ *   load.rps (200), load.duration (30s), load.warmup (5s), load.max-in-flight (2000), load.timeout (10s),
+ *   load.paths (comma separated, default mix below), load.target (drive an already running app
+ *   instead of booting one), plus the stub.* settings from {@link OpenDotaStubServer}.
+ */
+public final class LoadTestHarness {
+
+    static final List<String> DEFAULT_PATHS = List.of(
+            "/opendota/data/heroes/axe/itemPopularity?named=true",
+            "/opendota/recommendation/recommend?ally=axe&enemy=zeus&phase=mid",
+            "/opendota/data/heroes/pudge/itemPopularity",
+            "/opendota/recommendation/recommend?ally=juggernaut&enemy=phantom_assassin",
+            "/opendota/heroes/sven/itemTimings",
+            "/opendota/data/heroes/lina/itemPopularity?named=true&phase=early_game_items"
+    );
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String target = System.getProperty("load.target");
+        String fixtures = System.getProperty("stub.fixtures");
+
+        OpenDotaStubServer stub = null;
+        ConfigurableApplicationContext app = null;
+        try {
+            if (target == null) {
+                stub = new OpenDotaStubServer(fixtures == null ? null : Path.of(fixtures).toAbsolutePath().normalize(),
+                        OpenDotaStubServer.Settings.fromSystemProperties()).start(0);
+                app = new SpringApplicationBuilder(D2tacticsApplication.class)
+                        .properties("server.port=0", "opendota.base-url=" + stub.baseUrl())
+                        .run(args);
+                int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+                target = "http://127.0.0.1:" + port;
+            }
+
+            String paths = System.getProperty("load.paths");
+            LoadGenerator.Config config = new LoadGenerator.Config(
+                    target,
+                    paths == null ? DEFAULT_PATHS : Arrays.stream(paths.split(",")).map(String::trim).toList(),
+                    Integer.getInteger("load.rps", 200),
+                    OpenDotaStubServer.parseDuration(System.getProperty("load.duration", "30s")),
+                    OpenDotaStubServer.parseDuration(System.getProperty("load.warmup", "5s")),
+                    Integer.getInteger("load.max-in-flight", 2000),
+                    OpenDotaStubServer.parseDuration(System.getProperty("load.timeout", "10s")));
+
+            System.out.printf("Driving %s at %d req/s for %s (warmup %s)%n",
+                    target, config.rps(), config.duration(), config.warmup());
+            LoadGenerator.Report report = new LoadGenerator(config).run();
+            System.out.println(report.format());
+            if (stub != null) {
+                System.out.printf("upstream stand-in: requests=%d injectedErrors=%d%n",
+                        stub.requestCount(), stub.injectedErrorCount());
+            }
+        } finally {
+            if (app != null) app.close();
+            if (stub != null) stub.close();
+        }
+    }
+
+    /** Convenience for tests: a short run against an already started app. */
+    static LoadGenerator.Report quickRun(String target, int rps, Duration duration) throws InterruptedException {
+        return new LoadGenerator(new LoadGenerator.Config(target, DEFAULT_PATHS, rps, duration,
+                Duration.ZERO, 256, Duration.ofSeconds(10))).run();
+    }
+}
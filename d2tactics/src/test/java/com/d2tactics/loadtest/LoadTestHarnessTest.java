@@ -0,0 +1,32 @@
+package com.d2tactics.loadtest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Smoke run of the load harness: the app against the stand-in, no outside network. */
+class LoadTestHarnessTest extends OpenDotaStandInTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    MeterRegistry meters;
+
+    @Test
+    void servesEndpointsFromStandIn() throws InterruptedException {
+        LoadGenerator.Report report = LoadTestHarness.quickRun("http://127.0.0.1:" + port, 50, Duration.ofSeconds(2));
+
+        assertTrue(report.ok() > 0, report.format());
+        assertEquals(0, report.serverErrors() + report.failures(), report.format());
+        assertTrue(STUB.requestCount() > 0);
+        assertTrue(meters.get("d2tactics.upstream.latency").tag("endpoint", "heroes/itemPopularity")
+                .timers().stream().anyMatch(t -> t.count() > 0));
+    }
+}
@@ -0,0 +1,56 @@
+package com.d2tactics.loadtest;
+
+import com.d2tactics.service.PatchVersionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+
+/**
+ * Base for tests that run the whole app against the stand-in. Subclasses share one stand-in for the
+ * whole run and one property set, so Spring builds the context once and every class reuses it; a
+ * class that needs a fresh app says so with {@code @DirtiesContext}.
+ *
+ * Tests may replace fixtures and fail routes: after each one the stand-in goes back to its fixtures
+ * and the app polls the patch again, so the next class starts from the stand-in's own patch.
+ * Request counts keep growing across classes; compare them before and after.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"d2tactics.warmup.enabled=false", "d2tactics.prefetch.enabled=false",
+                "d2tactics.tags.metadata-retry=PT0S", "d2tactics.similarity.borrow-below=200"})
+@ExtendWith(OpenDotaStandInTest.CloseAtEnd.class)
+public abstract class OpenDotaStandInTest {
+
+    protected static final Duration TIMEOUT = Duration.ofSeconds(10);
+    protected static final OpenDotaStubServer STUB =
+            new OpenDotaStubServer(null, OpenDotaStubServer.Settings.none()).start(0);
+
+    @DynamicPropertySource
+    static void upstream(DynamicPropertyRegistry registry) {
+        registry.add("opendota.base-url", STUB::baseUrl);
+    }
+
+    @Autowired
+    private PatchVersionService patchVersions;
+
+    @AfterEach
+    void restoreStandIn() {
+        STUB.reset();
+        patchVersions.poll().block(TIMEOUT);
+    }
+
+    /** Closes the stand-in once every test class of the run is done, not after the first one. */
+    static final class CloseAtEnd implements BeforeAllCallback {
+        @Override
+        public void beforeAll(ExtensionContext context) {
+            context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL).getOrComputeIfAbsent(
+                    OpenDotaStubServer.class, k -> (ExtensionContext.Store.CloseableResource) STUB::close);
+        }
+    }
+}
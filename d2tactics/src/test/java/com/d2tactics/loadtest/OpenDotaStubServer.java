@@ -0,0 +1,212 @@
+package com.d2tactics.loadtest;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for api.opendota.com that replays recorded JSON fixtures.
+ *
+ * Routes (all under /api, like the real service):
+ *   GET  /health, /heroStats, /constants/{name}, /heroes/{id}/itemPopularity
+ *   POST /explorer
+ *
+ * Fixtures are read from the classpath folder {@code opendota-stub/} unless a directory is given
+ * (so real recordings can be dropped in without touching the code). A per-hero file
+ * {@code heroes/{id}/itemPopularity.json} wins over the shared {@code heroes/itemPopularity.json}.
+ *
+ * Usage (standalone):
+ *   mvn -Ploadtest test-compile exec:java@stub -Dstub.port=9090 -Dstub.latency=40ms -Dstub.jitter=20ms \
+ *       -Dstub.error-rate=0.01
+ */
+public final class OpenDotaStubServer implements AutoCloseable {
+
+    /** Injected behaviour; latency is per response, errorRate is the fraction answered with 503. */
+    public record Settings(Duration latency, Duration jitter, double errorRate, Map<String, Duration> latencyByRoute) {
+
+        public static Settings none() {
+            return new Settings(Duration.ZERO, Duration.ZERO, 0.0, Map.of());
+        }
+
+        /** Reads stub.latency, stub.jitter, stub.error-rate and stub.latency.{route} system properties. */
+        public static Settings fromSystemProperties() {
+            Map<String, Duration> byRoute = new ConcurrentHashMap<>();
+            for (String route : new String[]{"health", "heroStats", "constants", "itemPopularity", "explorer"}) {
+                String v = System.getProperty("stub.latency." + route);
+                if (v != null) byRoute.put(route, parseDuration(v));
+            }
+            return new Settings(
+                    parseDuration(System.getProperty("stub.latency", "0ms")),
+                    parseDuration(System.getProperty("stub.jitter", "0ms")),
+                    Double.parseDouble(System.getProperty("stub.error-rate", "0")),
+                    Map.copyOf(byRoute));
+        }
+    }
+
+    private final Path fixtureDir; // null -> classpath
+    private final Settings settings;
+    private final Map<String, byte[]> fixtures = new ConcurrentHashMap<>();
+    private final Set<String> failingRoutes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requests = new AtomicLong();
+    private final Map<String, AtomicLong> requestsByRoute = new ConcurrentHashMap<>();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private DisposableServer server;
+
+    public OpenDotaStubServer(Path fixtureDir, Settings settings) {
+        this.fixtureDir = fixtureDir;
+        this.settings = settings;
+    }
+
+    /** Binds on the given port (0 = ephemeral) and returns this for chaining. */
+    public OpenDotaStubServer start(int port) {
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(port)
+                .route(routes -> routes
+                        .get("/api/health", (req, res) -> serve(res, "health", "health.json"))
+                        .get("/api/heroStats", (req, res) -> serve(res, "heroStats", "heroStats.json"))
+                        .get("/api/constants/{name}", (req, res) ->
+                                serve(res, "constants", "constants/" + req.param("name") + ".json"))
+                        .get("/api/heroes/{id}/itemPopularity", this::itemPopularity)
+                        .post("/api/explorer", (req, res) ->
+                                // drain the SQL body, the fixture does not depend on it
+                                req.receive().then().then(Mono.defer(() ->
+                                        Mono.from(serve(res, "explorer", "explorer.json"))))))
+                .bindNow();
+        return this;
+    }
+
+    /** Base URL to plug into {@code opendota.base-url}. */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.port() + "/api";
+    }
+
+    /** Current bytes of a fixture (e.g. "constants/patch.json"), or null when there is none. */
+    public byte[] fixtureBytes(String name) { return fixture(name); }
+
+    /** Serves {@code body} for the fixture from now on, e.g. to roll out a new patch mid-run. */
+    public void replaceFixture(String name, byte[] body) { fixtures.put(name, body); }
+
+    /** Answers every request of {@code route} (e.g. "heroStats") with 503 while {@code failing}. */
+    public void failRoute(String route, boolean failing) {
+        if (failing) failingRoutes.add(route); else failingRoutes.remove(route);
+    }
+
+    /** Back to the fixtures on disk with no failing routes, for the next test; counters keep counting. */
+    public void reset() {
+        fixtures.clear();
+        failingRoutes.clear();
+    }
+
+    public long requestCount() { return requests.get(); }
+
+    /** Requests served on one route ("heroStats", "explorer", ...), injected errors included. */
+    public long requestCount(String route) {
+        AtomicLong n = requestsByRoute.get(route);
+        return n == null ? 0 : n.get();
+    }
+    public long injectedErrorCount() { return injectedErrors.get(); }
+
+    @Override
+    public void close() {
+        if (server != null) server.disposeNow();
+    }
+
+    private Publisher<Void> itemPopularity(HttpServerRequest req, HttpServerResponse res) {
+        String perHero = "heroes/" + req.param("id") + "/itemPopularity.json";
+        return serve(res, "itemPopularity", fixtureExists(perHero) ? perHero : "heroes/itemPopularity.json");
+    }
+
+    private Publisher<Void> serve(HttpServerResponse res, String route, String fixture) {
+        requests.incrementAndGet();
+        requestsByRoute.computeIfAbsent(route, r -> new AtomicLong()).incrementAndGet();
+        Duration delay = delayFor(route);
+
+        if (failingRoutes.contains(route)
+                || settings.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < settings.errorRate()) {
+            injectedErrors.incrementAndGet();
+            return Mono.delay(delay).then(res.status(HttpResponseStatus.SERVICE_UNAVAILABLE)
+                    .header("Content-Type", "application/json")
+                    .sendString(Mono.just("{\"error\":\"injected\"}"))
+                    .then());
+        }
+
+        byte[] body = fixture(fixture);
+        if (body == null) {
+            return res.status(HttpResponseStatus.NOT_FOUND)
+                    .header("Content-Type", "application/json")
+                    .sendString(Mono.just("{\"error\":\"Not Found\"}"));
+        }
+        return res.status(HttpResponseStatus.OK)
+                .header("Content-Type", "application/json")
+                .sendByteArray(Mono.delay(delay).thenReturn(body));
+    }
+
+    private Duration delayFor(String route) {
+        Duration base = settings.latencyByRoute().getOrDefault(route, settings.latency());
+        long jitter = settings.jitter().toNanos();
+        if (jitter <= 0) return base;
+        return base.plusNanos(ThreadLocalRandom.current().nextLong(jitter + 1));
+    }
+
+    private boolean fixtureExists(String name) {
+        return fixture(name) != null;
+    }
+
+    private byte[] fixture(String name) {
+        byte[] cached = fixtures.get(name);
+        if (cached != null) return cached;
+        byte[] loaded = load(name);
+        if (loaded != null) fixtures.put(name, loaded);
+        return loaded;
+    }
+
+    private byte[] load(String name) {
+        try {
+            if (fixtureDir != null) {
+                Path p = fixtureDir.resolve(name).normalize();
+                if (!p.startsWith(fixtureDir) || !Files.isRegularFile(p)) return null;
+                return Files.readAllBytes(p);
+            }
+            try (InputStream in = OpenDotaStubServer.class.getResourceAsStream("/opendota-stub/" + name)) {
+                return in == null ? null : in.readAllBytes();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read fixture " + name, e);
+        }
+    }
+
+    public static Duration parseDuration(String s) {
+        String v = s.trim().toLowerCase();
+        if (v.endsWith("ms")) return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        if (v.endsWith("s")) return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)));
+        return Duration.ofMillis(Long.parseLong(v));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String dir = System.getProperty("stub.fixtures");
+        int port = Integer.getInteger("stub.port", 9090);
+        try (OpenDotaStubServer stub = new OpenDotaStubServer(dir == null ? null : Path.of(dir).toAbsolutePath().normalize(),
+                Settings.fromSystemProperties()).start(port)) {
+            System.out.println("OpenDota stand-in listening on " + stub.baseUrl());
+            System.out.println("Ctrl+C to stop");
+            Thread.currentThread().join();
+        }
+    }
+}
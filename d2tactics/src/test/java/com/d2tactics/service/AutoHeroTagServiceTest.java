@@ -0,0 +1,60 @@
+package com.d2tactics.service;
+
+import com.d2tactics.loadtest.OpenDotaStandInTest;
+import com.d2tactics.symbol.TagSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** Inferred tags come back once OpenDota does, both at startup and after a patch change. */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS) // starts before any metadata was fetched
+class AutoHeroTagServiceTest extends OpenDotaStandInTest {
+
+    @Autowired
+    AutoHeroTagService tags;
+
+    @Autowired
+    PatchVersionService patch;
+
+    @Test
+    void tagsRecoverAfterFailedMetadataFetches() throws Exception {
+        // outage from the first fetch on (the patch poll starts one): nothing inferred, nothing cached
+        STUB.failRoute("heroStats", true);
+        patch.poll().block(TIMEOUT);
+        TagSet during = tags.tagsForHero("axe");
+        assertEquals(during, tags.tagsForHero("axe"));
+        assertNull(tags.metadataPatch());
+
+        STUB.failRoute("heroStats", false);
+        TagSet recovered = tags.tagsForHero("axe");
+        assertEquals(patch.tag(), tags.metadataPatch());
+        assertNotEquals(during, recovered);
+        assertEquals(during, during.intersect(recovered));
+
+        // outage across a patch change: the previous patch's tags are served until a fetch succeeds
+        String before = tags.metadataPatch();
+        STUB.failRoute("heroStats", true);
+        rollPatch();
+        assertEquals(recovered, tags.tagsForHero("axe"));
+        assertEquals(before, tags.metadataPatch());
+
+        STUB.failRoute("heroStats", false);
+        assertEquals(recovered, tags.tagsForHero("axe"));
+        assertEquals(patch.tag(), tags.metadataPatch());
+        assertNotEquals(before, tags.metadataPatch());
+    }
+
+    private void rollPatch() throws Exception {
+        ObjectMapper json = new ObjectMapper();
+        ArrayNode patches = (ArrayNode) json.readTree(STUB.fixtureBytes("constants/patch.json"));
+        patches.addObject().put("name", "9.0").put("date", "2030-01-01T00:00:00Z").put("id", 1000);
+        STUB.replaceFixture("constants/patch.json", json.writeValueAsBytes(patches));
+        patch.poll().block(TIMEOUT);
+    }
+}
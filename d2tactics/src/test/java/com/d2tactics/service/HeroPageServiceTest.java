@@ -0,0 +1,86 @@
+package com.d2tactics.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** Per-section deadlines: a slow or failing section is reported and left out, the rest still answer. */
+class HeroPageServiceTest {
+
+    private static final HeroResolver.Hero AXE = new HeroResolver.Hero(2, "axe", "Axe");
+    private static final Duration DEADLINE = Duration.ofMillis(200);
+
+    private final ItemPopularityService popularity = mock(ItemPopularityService.class);
+    private final ItemTimingService timings = mock(ItemTimingService.class);
+    private final BuildVariantService variants = mock(BuildVariantService.class);
+    private final RecommendationService recommendations = mock(RecommendationService.class);
+    private final CounterReasonService counters = mock(CounterReasonService.class);
+
+    private final HeroPageService page = new HeroPageService(popularity, timings, variants, recommendations, counters,
+            DEADLINE, DEADLINE, DEADLINE, DEADLINE, DEADLINE);
+
+    @Test
+    void slowAndFailingSectionsDoNotHoldUpTheOthers() {
+        JsonNode named = body("early_game_items");
+        when(popularity.getItemPopularityNamed(2L)).thenReturn(Mono.just(named));
+        when(popularity.withBorrowed(eq(2L), any())).thenReturn(Mono.just(named));
+        when(timings.medianTimings(anyLong(), anyInt(), anyInt())).thenReturn(Mono.never());
+        when(variants.variants(2L)).thenReturn(Mono.error(new IllegalStateException("explorer down")));
+        when(recommendations.recommendAllPhases(anyLong(), eq("zeus"), anyInt(), anyBoolean(), any()))
+                .thenReturn(Mono.just(body("start")));
+        when(counters.lineup(List.of("zeus"), 5)).thenReturn(Mono.just(body("items")));
+
+        long t0 = System.nanoTime();
+        ObjectNode root = page.page(AXE, "zeus", 5).block(Duration.ofSeconds(5));
+        long millis = Duration.ofNanos(System.nanoTime() - t0).toMillis();
+
+        assertTrue(millis < 2_000, "took " + millis + " ms");
+        JsonNode sections = root.path("sections");
+        assertEquals("ok", sections.path("popularity").path("status").asText());
+        assertEquals("timeout", sections.path("timings").path("status").asText());
+        assertEquals("error", sections.path("variants").path("status").asText());
+        assertEquals("ok", sections.path("recommendations").path("status").asText());
+        assertEquals("ok", sections.path("counters").path("status").asText());
+        assertEquals(named, root.path("popularity"));
+        assertFalse(root.has("timings"));
+        assertFalse(root.has("variants"));
+        assertTrue(root.path("counters").has("items"));
+    }
+
+    @Test
+    void withoutAnEnemyRecommendationsAndCountersAreSkipped() {
+        when(popularity.getItemPopularityNamed(2L)).thenReturn(Mono.just(body("early_game_items")));
+        when(timings.medianTimings(anyLong(), anyInt(), anyInt())).thenReturn(Mono.just(body("items")));
+        when(variants.variants(2L)).thenReturn(Mono.just(body("variants")));
+
+        ObjectNode root = page.page(AXE, null, 5).block(Duration.ofSeconds(5));
+
+        JsonNode sections = root.path("sections");
+        assertEquals("ok", sections.path("timings").path("status").asText());
+        assertEquals("skipped", sections.path("recommendations").path("status").asText());
+        assertEquals("skipped", sections.path("counters").path("status").asText());
+        assertFalse(root.has("enemy"));
+    }
+
+    private static ObjectNode body(String field) {
+        ObjectNode n = JsonNodeFactory.instance.objectNode();
+        n.putObject(field);
+        return n;
+    }
+}
@@ -0,0 +1,43 @@
+package com.d2tactics.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Resolution and autocomplete over the static index (no /heroStats refresh). */
+class HeroResolverTest {
+
+    private final HeroResolver heroes = new HeroResolver(null);
+
+    @Test
+    void resolvesNamesAliasesAndTypos() {
+        long jugg = heroes.resolve("juggernaut");
+        assertEquals(jugg, heroes.resolve("Juggernaut"));
+        assertEquals(jugg, heroes.resolve("jugg"));
+        assertEquals(jugg, heroes.resolve("juggernot"));
+        assertEquals(jugg, heroes.resolve(Long.toString(jugg)));
+    }
+
+    @Test
+    void typoEquallyCloseToTwoHeroesIsUnknown() {
+        assertNull(heroes.resolve("lin"));                            // lina and lion are both one edit away
+        assertEquals(heroes.resolve("lina"), heroes.resolve("linaa")); // one hero closest: still resolves
+    }
+
+    @Test
+    void searchFallsBackToTypoTolerantPrefixes() {
+        long jugg = heroes.resolve("juggernaut");
+        assertEquals(jugg, heroes.search("jug", 5).get(0).id());
+        assertTrue(ids(heroes.search("juggar", 5)).contains(jugg));     // typo in the prefix
+        assertTrue(ids(heroes.search("juggernot", 5)).contains(jugg));  // typo in the full name
+        assertTrue(heroes.search("zzzzz", 5).isEmpty());
+    }
+
+    private static List<Long> ids(List<HeroResolver.Hero> found) {
+        return found.stream().map(HeroResolver.Hero::id).toList();
+    }
+}
@@ -0,0 +1,78 @@
+package com.d2tactics.service;
+
+import com.d2tactics.cache.L2Cache;
+import com.d2tactics.client.OpenDotaClient;
+import com.d2tactics.loadtest.OpenDotaStandInTest;
+import com.d2tactics.metrics.PipelineMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** Timings are queried once per hero and patch, with the L2 off (its default). */
+class ItemTimingServiceTest extends OpenDotaStandInTest {
+
+    @Autowired
+    ItemTimingService timings;
+
+    @Test
+    void repeatedViewsShareOneExplorerQuery() {
+        long before = STUB.requestCount("explorer");
+        JsonNode first = timings.medianTimings(1, 8, 60).block(TIMEOUT);
+        assertNotNull(first);
+        assertFalse(first.isEmpty());
+
+        for (int i = 0; i < 5; i++) assertEquals(first, timings.medianTimings(1, 8, 60).block(TIMEOUT));
+        assertEquals(1, STUB.requestCount("explorer") - before);
+    }
+
+    @Test
+    void parametersOutsideTheQueryRangeShareTheClampedEntry() {
+        long before = STUB.requestCount("explorer");
+        JsonNode first = timings.medianTimings(3, 1, 3).block(TIMEOUT);
+        assertEquals(first, timings.medianTimings(3, 5, 10).block(TIMEOUT));
+        assertEquals(first, timings.medianTimings(3, -7, 0).block(TIMEOUT));
+        assertEquals(1, STUB.requestCount("explorer") - before);
+
+        timings.medianTimings(3, 5_000, 10_000).block(TIMEOUT);
+        timings.medianTimings(3, 1_000, 300).block(TIMEOUT);
+        assertEquals(2, STUB.requestCount("explorer") - before);
+    }
+
+    @Test
+    void aFullCacheEvictsTheLeastRecentlyUsedEntry() {
+        OpenDotaClient client = mock(OpenDotaClient.class);
+        AtomicInteger queries = new AtomicInteger();
+        when(client.explorerRows(anyString(), any())).thenAnswer(inv -> {
+            queries.incrementAndGet();
+            return Flux.just(new ItemTimingService.TimingRow("blink", 12.0, 40));
+        });
+        PatchVersionService patch = mock(PatchVersionService.class);
+        when(patch.tag()).thenReturn(PatchVersionService.UNKNOWN.id()); // keeps the L2 out of it
+        ItemTimingService service = new ItemTimingService(client, mock(PipelineMetrics.class), mock(L2Cache.class),
+                patch, new SimpleMeterRegistry(), Duration.ofHours(1));
+
+        for (long hero = 1; hero <= 1024; hero++) service.medianTimings(hero, 8, 60).block(TIMEOUT);
+        service.medianTimings(1, 8, 60).block(TIMEOUT); // hero 1 is now the most recent
+        service.medianTimings(1025, 8, 60).block(TIMEOUT);
+        assertEquals(1025, queries.get());
+
+        service.medianTimings(1, 8, 60).block(TIMEOUT);
+        service.medianTimings(1025, 8, 60).block(TIMEOUT);
+        assertEquals(1025, queries.get());
+        service.medianTimings(2, 8, 60).block(TIMEOUT);
+        assertEquals(1026, queries.get());
+    }
+}
@@ -0,0 +1,80 @@
+package com.d2tactics.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** The prefetch quota: token bucket, in-flight bound, crawl reserve and the health gate. */
+class PopularityPrefetcherTest {
+
+    private static final long[] HOT = LongStream.rangeClosed(1, 10).toArray();
+
+    private final OpenDotaHeroService heroService = mock(OpenDotaHeroService.class);
+    private final HeroAccessTracker access = mock(HeroAccessTracker.class);
+    private final OpenDotaHealthService health = mock(OpenDotaHealthService.class);
+    private final AtomicInteger launched = new AtomicInteger();
+
+    private PopularityPrefetcher prefetcher(int quotaPerMinute, Mono<?> refresh) {
+        when(health.isHealthy()).thenReturn(true);
+        when(heroService.expiresAtMillis(anyLong())).thenReturn(0L); // every entry is due
+        when(heroService.refreshHeroItemPopularity(anyLong())).thenAnswer(inv -> {
+            launched.incrementAndGet();
+            return refresh;
+        });
+        return new PopularityPrefetcher(heroService, access, new HeroResolver(null), health, new SimpleMeterRegistry(),
+                true, quotaPerMinute, Duration.ofSeconds(5), Duration.ofMinutes(1), 4, 32);
+    }
+
+    @Test
+    void neverRunsMoreThanMaxInFlightAtOnce() throws InterruptedException {
+        PopularityPrefetcher p = prefetcher(6_000, Mono.never()); // 100 tokens/s: the quota is not the limit
+        when(access.hottest(anyInt())).thenReturn(HOT);
+        Thread.sleep(200);
+        p.tick();
+        p.tick();
+        assertEquals(4, launched.get());
+    }
+
+    @Test
+    void spendsNoMoreThanTheQuotaHasRefilled() throws InterruptedException {
+        long t0 = System.nanoTime();
+        PopularityPrefetcher p = prefetcher(60, Mono.empty()); // one token per second
+        when(access.hottest(anyInt())).thenReturn(HOT);
+        Thread.sleep(1_200);
+        p.tick();
+        p.tick();
+        long elapsedSeconds = Duration.ofNanos(System.nanoTime() - t0).toSeconds();
+        assertTrue(launched.get() >= 1, "nothing prefetched");
+        assertTrue(launched.get() <= elapsedSeconds, launched.get() + " refreshes in " + elapsedSeconds + " s");
+    }
+
+    @Test
+    void crawlLeavesHalfTheBucketForHotHeroes() throws InterruptedException {
+        PopularityPrefetcher p = prefetcher(60, Mono.empty()); // bucket of 15, crawl needs more than 7.5
+        when(access.hottest(anyInt())).thenReturn(new long[0]);
+        Thread.sleep(1_200);
+        p.tick();
+        assertEquals(0, launched.get());
+    }
+
+    @Test
+    void idleWhileOpenDotaIsUnhealthy() throws InterruptedException {
+        PopularityPrefetcher p = prefetcher(6_000, Mono.empty());
+        when(health.isHealthy()).thenReturn(false);
+        when(access.hottest(anyInt())).thenReturn(HOT);
+        Thread.sleep(200);
+        p.tick();
+        assertEquals(0, launched.get());
+    }
+}
@@ -0,0 +1,98 @@
+package com.d2tactics.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Sharing of in-flight loads and the {@code maxInFlight} bound, with loads completed by hand. */
+class RequestCoalescerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Map<Integer, Sinks.One<String>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Mono<String> load(int key) {
+        loads.incrementAndGet();
+        return pending.computeIfAbsent(key, k -> Sinks.one()).asMono();
+    }
+
+    @Test
+    void concurrentCallersForTheSameKeyShareOneLoad() {
+        RequestCoalescer<Integer, String> coalescer = new RequestCoalescer<>("test", 64, registry);
+        // 300 callers across 5 heroes, all arriving while the loads are still running
+        Mono<List<String>> all = Flux.range(0, 300)
+                .flatMap(i -> coalescer.get(i % 5, this::load).subscribeOn(Schedulers.parallel()), 300)
+                .collectList()
+                .cache();
+        all.subscribe();
+        awaitCallers(300);
+        pending.forEach((key, sink) -> sink.tryEmitValue("hero-" + key));
+
+        List<String> results = all.block(TIMEOUT);
+        assertEquals(300, results.size());
+        assertEquals(60, results.stream().filter("hero-3"::equals).count());
+        assertEquals(5, loads.get());
+        assertEquals(5, registry.get("d2tactics.coalesce.requests").tag("role", "leader").counter().count());
+        assertEquals(295, registry.get("d2tactics.coalesce.requests").tag("role", "joined").counter().count());
+    }
+
+    @Test
+    void finishedLoadsAndFailuresAreNotShared() {
+        RequestCoalescer<Integer, String> coalescer = new RequestCoalescer<>("test", 64, registry);
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> failing = coalescer.get(1, k -> {
+            calls.incrementAndGet();
+            return Mono.error(new IllegalStateException("upstream down"));
+        });
+        assertThrows(IllegalStateException.class, () -> failing.block(TIMEOUT));
+        assertEquals("ok", coalescer.get(1, k -> {
+            calls.incrementAndGet();
+            return Mono.just("ok");
+        }).block(TIMEOUT));
+        assertEquals(2, calls.get());
+        assertEquals(0.0, registry.get("d2tactics.coalesce.in.flight").gauge().value());
+    }
+
+    @Test
+    void keysPastMaxInFlightLoadOnTheirOwn() {
+        RequestCoalescer<Integer, String> coalescer = new RequestCoalescer<>("test", 2, registry);
+        coalescer.get(1, this::load).subscribe();
+        coalescer.get(2, this::load).subscribe();
+        // the table is full: both callers for key 3 bypass it and load separately
+        coalescer.get(3, this::load).subscribe();
+        coalescer.get(3, this::load).subscribe();
+        assertEquals(4, loads.get());
+        assertEquals(2.0, registry.get("d2tactics.coalesce.in.flight").gauge().value());
+        assertEquals(2, registry.get("d2tactics.coalesce.requests").tag("role", "bypass").counter().count());
+
+        // once a slot frees up, key 3 is coalesced again
+        pending.get(1).tryEmitValue("done");
+        coalescer.get(3, this::load).subscribe();
+        coalescer.get(3, this::load).subscribe();
+        assertEquals(5, loads.get());
+    }
+
+    private void awaitCallers(int n) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (callers() < n && System.nanoTime() < deadline) Thread.onSpinWait();
+        assertEquals(n, callers());
+    }
+
+    private double callers() {
+        return registry.get("d2tactics.coalesce.requests").counters().stream().mapToDouble(c -> c.count()).sum();
+    }
+}
@@ -0,0 +1,48 @@
+package com.d2tactics.similarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Top-K correctness of the index and agreement of the SIMD and scalar kernels. */
+class SimilarityIndexTest {
+
+    @Test
+    void ranksNeighborsByCosineAndSkipsEmptyRows() {
+        int dim = 3;
+        float[] m = {
+                1, 0, 0,        // 10
+                0.8f, 0.6f, 0,  // 20: close to 10
+                0, 1, 0,        // 30: close to 20, orthogonal to 10
+                0, 0, 0,        // 40: nothing known
+                0, 0, 1,        // 50: orthogonal to everyone
+        };
+        SimilarityIndex index = SimilarityIndex.build(new long[]{10, 20, 30, 40, 50}, m, dim, 2);
+
+        List<SimilarityIndex.Neighbor> n10 = index.neighbors(10, 5);
+        assertEquals(2, n10.size());                       // bounded by k
+        assertEquals(20, n10.get(0).heroId());
+        assertEquals(0.8f, n10.get(0).similarity(), 1e-6);
+        assertEquals(20, index.neighbors(30, 1).get(0).heroId());
+        assertTrue(index.neighbors(40, 5).isEmpty());
+        assertTrue(index.neighbors(20, 5).stream().noneMatch(n -> n.heroId() == 40));
+        assertTrue(index.neighbors(99, 5).isEmpty());
+    }
+
+    @Test
+    void simdAndScalarAgree() {
+        Random rnd = new Random(7);
+        for (int len : new int[]{0, 1, 7, 16, 33, 257}) {
+            float[] a = new float[len + 3], b = new float[len + 5];
+            for (int i = 0; i < a.length; i++) a[i] = rnd.nextFloat() - 0.5f;
+            for (int i = 0; i < b.length; i++) b[i] = rnd.nextFloat() - 0.5f;
+            float scalar = VectorMath.dotScalar(a, 3, b, 5, len);
+            float dispatched = VectorMath.dot(a, 3, b, 5, len);
+            // the SIMD kernel when the module is resolved (-DargLine="--add-modules jdk.incubator.vector")
+            assertEquals(scalar, dispatched, 1e-4f * Math.max(1, len));
+        }
+    }
+}
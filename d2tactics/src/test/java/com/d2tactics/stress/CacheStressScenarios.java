@@ -0,0 +1,253 @@
+package com.d2tactics.stress;
+
+import com.d2tactics.cache.PopularityStore;
+import com.d2tactics.loadtest.OpenDotaStubServer;
+import com.d2tactics.service.AutoHeroTagService;
+import com.d2tactics.service.HeroResolver;
+import com.d2tactics.service.ItemConstantsHolder;
+import com.d2tactics.service.ItemConstantsHolder.ItemConstants;
+import com.d2tactics.service.PatchVersionService;
+import com.d2tactics.stress.StressRunner.Op;
+import com.d2tactics.stress.StressRunner.Result;
+import com.d2tactics.stress.StressRunner.Violations;
+import com.d2tactics.stress.StressRunner.Writer;
+import com.d2tactics.symbol.TagSet;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.context.ApplicationContext;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The caches that refresh under load, driven against the OpenDota stand-in.
+ *
+ *   hero-tags       readers infer tags for random heroes while a writer rolls out patches whose
+ *                   metadata alternates between two shapes, roles only and abilities only. A reader
+ *                   must see one shape's tags in full (a mix means metadata read half old, half new),
+ *                   and once a roll has landed no hero may still show the previous shape.
+ *   item-constants  readers check that a snapshot's item names are not older than its patch; the
+ *                   writer sometimes rolls twice without waiting, and the snapshot must still end up
+ *                   on the latest patch.
+ *   popularity      workers read random heroes' store entries and now and then write one: an entry is
+ *                   never torn (every count of a write carries the same stamp) and a hero's version
+ *                   never goes backwards, for a reader or right after a writer's own put.
+ *
+ * A roll swaps the stand-in's patch, heroStats, hero_abilities and items fixtures, then polls the
+ * patch so every listener reacts as it would in production.
+ */
+final class CacheStressScenarios {
+
+    static final List<String> NAMES = List.of("hero-tags", "item-constants", "popularity");
+
+    private static final Duration LAND_TIMEOUT = Duration.ofSeconds(10);
+    private static final long POPULARITY_HERO_BASE = 300; // above real hero ids, still inside the store
+    private static final int POPULARITY_HEROES = 128;
+    private static final int[] POPULARITY_ITEMS = {1, 11, 29, 36, 48, 63, 116, 135};
+
+    private final OpenDotaStubServer stub;
+    private final PatchVersionService patch;
+    private final AutoHeroTagService tags;
+    private final ItemConstantsHolder items;
+    private final PopularityStore store;
+    private final ObjectMapper json = new ObjectMapper();
+
+    private final byte[] basePatches;
+    private final byte[] baseHeroStats;
+    private final byte[] baseHeroAbilities;
+    private final byte[] baseItems;
+    private final List<String> slugs;
+    private final List<Map<String, TagSet>> expectedByShape = List.of(new HashMap<>(), new HashMap<>());
+    private final AtomicInteger generation = new AtomicInteger();
+
+    CacheStressScenarios(ApplicationContext app, OpenDotaStubServer stub) throws IOException, InterruptedException {
+        this.stub = stub;
+        this.patch = app.getBean(PatchVersionService.class);
+        this.tags = app.getBean(AutoHeroTagService.class);
+        this.items = app.getBean(ItemConstantsHolder.class);
+        this.store = app.getBean(PopularityStore.class);
+        this.basePatches = stub.fixtureBytes("constants/patch.json");
+        this.baseHeroStats = stub.fixtureBytes("heroStats.json");
+        this.baseHeroAbilities = stub.fixtureBytes("constants/hero_abilities.json");
+        this.baseItems = stub.fixtureBytes("constants/items.json");
+        this.slugs = app.getBean(HeroResolver.class).all().stream().map(HeroResolver.Hero::slug).toList();
+
+        // what each shape infers, learned with nothing else running
+        for (int i = 0; i < 2; i++) {
+            int n = roll();
+            Violations v = new StressRunner.Violations();
+            if (!tagsLanded(v, n)) throw new IllegalStateException(v.samples().toString());
+            for (String slug : slugs) expectedByShape.get(n % 2).put(slug, tags.tagsForHero(slug));
+        }
+    }
+
+    Result run(String scenario, int threads, Duration duration) throws InterruptedException {
+        return switch (scenario) {
+            case "hero-tags" -> StressRunner.run(scenario, threads, duration, this::readTags, this::rollAndCheckTags);
+            case "item-constants" -> StressRunner.run(scenario, threads, duration, this::readItems, this::rollAndCheckItems);
+            case "popularity" -> StressRunner.run(scenario, threads, duration, popularityOp(threads), null);
+            default -> throw new IllegalArgumentException("unknown scenario " + scenario);
+        };
+    }
+
+    // --- hero-tags ---
+
+    private void readTags(int worker, ThreadLocalRandom rnd, Violations v) {
+        String slug = slugs.get(rnd.nextInt(slugs.size()));
+        TagSet seen = tags.tagsForHero(slug);
+        if (!seen.equals(expectedByShape.get(0).get(slug)) && !seen.equals(expectedByShape.get(1).get(slug))) {
+            v.report("torn tags for " + slug + ": " + seen + ", expected " + expectedByShape.get(0).get(slug)
+                    + " or " + expectedByShape.get(1).get(slug));
+        }
+    }
+
+    private void rollAndCheckTags(Violations v) throws IOException, InterruptedException {
+        int n = roll();
+        if (!tagsLanded(v, n)) return;
+        Map<String, TagSet> want = expectedByShape.get(n % 2);
+        for (String slug : slugs) {
+            TagSet seen = tags.tagsForHero(slug);
+            if (!seen.equals(want.get(slug))) {
+                v.report("lost refresh: " + slug + " shows " + seen + " after rolling to " + patchName(n));
+                return;
+            }
+        }
+    }
+
+    /** Waits for the metadata of the rolled patch; until then cached tags of the previous one are served. */
+    private boolean tagsLanded(Violations v, int n) throws InterruptedException {
+        long deadline = System.nanoTime() + LAND_TIMEOUT.toNanos();
+        while (!patch.tag().equals(tags.metadataPatch())) {
+            if (System.nanoTime() > deadline) {
+                v.report("lost refresh: tag metadata stuck on " + tags.metadataPatch() + " after rolling to " + patchName(n));
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    // --- item-constants ---
+
+    private void readItems(int worker, ThreadLocalRandom rnd, Violations v) {
+        ItemConstants c = items.get().block(LAND_TIMEOUT);
+        if (c == null || !c.patch().startsWith("9.")) return;
+        // a load fetched while the next roll was already out holds newer items than its tag, as it can
+        // upstream; older items than the tag would mean a previous snapshot relabelled
+        ItemConstantsHolder.Item blink = c.byKey().get("blink");
+        int tagged = Integer.parseInt(c.patch().substring(2, c.patch().lastIndexOf('-')));
+        int held = blink == null ? -1 : Integer.parseInt(blink.name().replaceAll(".*\\[9\\.(\\d+)]$", "$1"));
+        if (held < tagged) {
+            v.report("snapshot tagged " + c.patch() + " holds " + (blink == null ? "no blink" : blink.name()));
+        }
+    }
+
+    private void rollAndCheckItems(Violations v) throws IOException, InterruptedException {
+        int n = roll();
+        if (ThreadLocalRandom.current().nextInt(3) == 0) n = roll(); // again, before the first one landed
+        String want = patch.tag();
+        long deadline = System.nanoTime() + LAND_TIMEOUT.toNanos();
+        ItemConstants c;
+        while (!want.equals((c = items.get().block(LAND_TIMEOUT)).patch())) {
+            if (System.nanoTime() > deadline) {
+                v.report("lost refresh: item constants stuck on " + c.patch() + " after rolling to " + patchName(n));
+                return;
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    // --- popularity ---
+
+    private Op popularityOp(int threads) {
+        long[][] lastSeen = new long[threads][POPULARITY_HEROES];
+        return (worker, rnd, v) -> {
+            int slot = rnd.nextInt(POPULARITY_HEROES);
+            long heroId = POPULARITY_HERO_BASE + slot;
+            if (rnd.nextInt(8) == 0) {
+                PopularityStore.Entry mine = store.put(heroId, popularityPayload(rnd.nextInt(1, 1_000_000)), Long.MAX_VALUE);
+                PopularityStore.Entry now = store.get(heroId);
+                if (now.version() < mine.version()) {
+                    v.report("lost refresh: hero " + heroId + " back at version " + now.version() + " after put of " + mine.version());
+                }
+                return;
+            }
+            PopularityStore.Entry e = store.get(heroId);
+            if (e == null) return;
+            int stamp = e.count(0, 0);
+            for (int p = 0; p < PopularityStore.PHASES.length; p++) {
+                if (e.size(p) != POPULARITY_ITEMS.length) {
+                    v.report("torn entry for hero " + heroId + ": phase " + p + " has " + e.size(p) + " items");
+                    return;
+                }
+                for (int i = 0; i < e.size(p); i++) {
+                    if (e.count(p, i) != stamp) {
+                        v.report("torn entry for hero " + heroId + ": counts " + stamp + " and " + e.count(p, i));
+                        return;
+                    }
+                }
+            }
+            if (e.version() < lastSeen[worker][slot]) {
+                v.report("hero " + heroId + " went back from version " + lastSeen[worker][slot] + " to " + e.version());
+            }
+            lastSeen[worker][slot] = e.version();
+        };
+    }
+
+    private ObjectNode popularityPayload(int stamp) {
+        ObjectNode root = json.createObjectNode();
+        for (String phase : PopularityStore.PHASES) {
+            ObjectNode counts = root.putObject(phase);
+            for (int item : POPULARITY_ITEMS) counts.put(Integer.toString(item), stamp);
+        }
+        return root;
+    }
+
+    // --- patch rolls ---
+
+    /** Rolls the stand-in to the next generation and polls the patch; returns the generation. */
+    private int roll() throws IOException {
+        int n = generation.incrementAndGet();
+        boolean abilitiesShape = n % 2 == 1;
+
+        ArrayNode stats = (ArrayNode) json.readTree(baseHeroStats);
+        if (abilitiesShape) stats.forEach(h -> ((ObjectNode) h).putArray("roles"));
+
+        ObjectNode heroAbilities = (ObjectNode) json.readTree(baseHeroAbilities);
+        if (abilitiesShape) {
+            // keyed by slug with a plain list, which is what inference reads; the base shape matches nothing
+            ObjectNode bySlug = json.createObjectNode();
+            heroAbilities.fields().forEachRemaining(e ->
+                    bySlug.set(e.getKey().replace("npc_dota_hero_", ""), e.getValue().path("abilities")));
+            heroAbilities = bySlug;
+        }
+
+        ObjectNode itemsJson = (ObjectNode) json.readTree(baseItems);
+        for (JsonNode item : itemsJson) {
+            if (item.hasNonNull("dname")) {
+                ((ObjectNode) item).put("dname", item.get("dname").asText() + " [" + patchName(n) + "]");
+            }
+        }
+
+        ArrayNode patches = (ArrayNode) json.readTree(basePatches);
+        patches.addObject().put("name", patchName(n)).put("date", "2030-01-01T00:00:00Z").put("id", 1000 + n);
+
+        stub.replaceFixture("heroStats.json", json.writeValueAsBytes(stats));
+        stub.replaceFixture("constants/hero_abilities.json", json.writeValueAsBytes(heroAbilities));
+        stub.replaceFixture("constants/items.json", json.writeValueAsBytes(itemsJson));
+        stub.replaceFixture("constants/patch.json", json.writeValueAsBytes(patches)); // last: this is what the app watches
+        patch.poll().block(LAND_TIMEOUT);
+        return n;
+    }
+
+    private static String patchName(int generation) {
+        return "9." + generation;
+    }
+}
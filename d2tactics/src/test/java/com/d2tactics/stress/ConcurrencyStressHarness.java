@@ -0,0 +1,68 @@
+package com.d2tactics.stress;
+
+import com.d2tactics.D2tacticsApplication;
+import com.d2tactics.loadtest.OpenDotaStubServer;
+import com.d2tactics.stress.StressRunner.Result;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Contention stress for the caches that refresh under load (see {@link CacheStressScenarios}), at
+ * 1, 2, 4 ... N threads, against the OpenDota stand-in:
+ *
+ *   mvn -Ploadtest test-compile exec:java@stress -Dstress.threads=16 -Dstress.duration=5s
+ *
+ * System properties: stress.threads (available processors), stress.duration (3s per scenario and
+ * thread count), stress.scenarios (comma separated subset of hero-tags, item-constants, popularity).
+ * Prints throughput and invariant violations for every run.
+ */
+public final class ConcurrencyStressHarness {
+
+    private ConcurrencyStressHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = Integer.getInteger("stress.threads", Runtime.getRuntime().availableProcessors());
+        Duration duration = OpenDotaStubServer.parseDuration(System.getProperty("stress.duration", "3s"));
+        String selected = System.getProperty("stress.scenarios");
+        List<String> scenarios = selected == null ? CacheStressScenarios.NAMES
+                : Arrays.stream(selected.split(",")).map(String::trim).toList();
+
+        try (OpenDotaStubServer stub = new OpenDotaStubServer(null, OpenDotaStubServer.Settings.none()).start(0);
+             ConfigurableApplicationContext app = new SpringApplicationBuilder(D2tacticsApplication.class)
+                     .properties("server.port=0", "opendota.base-url=" + stub.baseUrl())
+                     // arguments, not default properties: application.properties turns both on
+                     .run(withArgs(args, "--d2tactics.warmup.enabled=false", "--d2tactics.prefetch.enabled=false"))) {
+            CacheStressScenarios stress = new CacheStressScenarios(app, stub);
+            List<Result> results = new ArrayList<>();
+            for (String scenario : scenarios) {
+                for (int threads : threadCounts(maxThreads)) {
+                    Result r = stress.run(scenario, threads, duration);
+                    System.out.println(r.format());
+                    results.add(r);
+                }
+            }
+            long violations = results.stream().mapToLong(Result::violations).sum();
+            System.out.printf("%d runs, %d violations%n", results.size(), violations);
+        }
+    }
+
+    private static String[] withArgs(String[] args, String... more) {
+        String[] all = Arrays.copyOf(args, args.length + more.length);
+        System.arraycopy(more, 0, all, args.length, more.length);
+        return all;
+    }
+
+    /** 1, 2, 4 ... and max itself. */
+    static int[] threadCounts(int max) {
+        List<Integer> counts = new ArrayList<>();
+        for (int t = 1; t < max; t *= 2) counts.add(t);
+        counts.add(Math.max(1, max));
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
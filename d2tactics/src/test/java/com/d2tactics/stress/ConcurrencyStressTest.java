@@ -0,0 +1,31 @@
+package com.d2tactics.stress;
+
+import com.d2tactics.loadtest.OpenDotaStandInTest;
+import com.d2tactics.stress.StressRunner.Result;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Short contention runs of every stress scenario; any invariant violation fails. */
+class ConcurrencyStressTest extends OpenDotaStandInTest {
+
+    @Autowired
+    ApplicationContext app;
+
+    @Test
+    void cachesKeepTheirInvariantsUnderContention() throws Exception {
+        CacheStressScenarios stress = new CacheStressScenarios(app, STUB);
+        for (String scenario : CacheStressScenarios.NAMES) {
+            for (int threads : new int[]{1, 4}) {
+                Result r = stress.run(scenario, threads, Duration.ofMillis(500));
+                assertTrue(r.ops() > 0, r.format());
+                assertEquals(0, r.violations(), r.format());
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.d2tactics.stress;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs one operation in a tight loop on N platform threads for a fixed time, next to an optional
+ * background writer, and counts operations and invariant violations. Threads are released together
+ * from one gate so contention starts at once; an exception thrown by an operation counts as a
+ * violation.
+ */
+final class StressRunner {
+
+    private StressRunner() {
+    }
+
+    /** One step of a worker thread; {@code worker} is 0..threads-1. */
+    @FunctionalInterface
+    interface Op {
+        void run(int worker, ThreadLocalRandom rnd, Violations violations) throws Exception;
+    }
+
+    /** One step of the background writer (e.g. roll a patch and wait for it to land). */
+    @FunctionalInterface
+    interface Writer {
+        void step(Violations violations) throws Exception;
+    }
+
+    /** Invariant violations seen by a run; the first few messages are kept for the report. */
+    static final class Violations {
+        private static final int SAMPLES = 5;
+        private final AtomicLong count = new AtomicLong();
+        private final Queue<String> samples = new ConcurrentLinkedQueue<>();
+
+        void report(String message) {
+            if (count.incrementAndGet() <= SAMPLES) samples.add(message);
+        }
+
+        long count() {
+            return count.get();
+        }
+
+        List<String> samples() {
+            return List.copyOf(samples);
+        }
+    }
+
+    record Result(String scenario, int threads, long ops, long writes, long violations, List<String> samples,
+                  Duration elapsed) {
+
+        double opsPerSecond() {
+            return ops / Math.max(1e-9, elapsed.toNanos() / 1e9);
+        }
+
+        String format() {
+            StringBuilder sb = new StringBuilder(String.format("%-16s threads=%-3d ops/s=%,13.0f writes=%-5d violations=%d",
+                    scenario, threads, opsPerSecond(), writes, violations));
+            samples.forEach(s -> sb.append("\n    ").append(s));
+            return sb.toString();
+        }
+    }
+
+    static Result run(String scenario, int threads, Duration duration, Op op, Writer writer) throws InterruptedException {
+        Violations violations = new Violations();
+        LongAdder ops = new LongAdder();
+        AtomicLong writes = new AtomicLong();
+        CountDownLatch gate = new CountDownLatch(1);
+        AtomicLong stopAt = new AtomicLong(Long.MAX_VALUE);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            int worker = w;
+            workers.add(Thread.ofPlatform().name("stress-" + scenario + "-" + w).start(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                await(gate);
+                long n = 0;
+                while (System.nanoTime() < stopAt.get()) {
+                    try {
+                        op.run(worker, rnd, violations);
+                    } catch (Exception e) {
+                        violations.report(scenario + ": " + e);
+                    }
+                    n++;
+                }
+                ops.add(n);
+            }));
+        }
+        Thread writerThread = writer == null ? null : Thread.ofPlatform().name("stress-" + scenario + "-writer").start(() -> {
+            await(gate);
+            while (System.nanoTime() < stopAt.get()) {
+                try {
+                    writer.step(violations);
+                } catch (Exception e) {
+                    violations.report(scenario + " writer: " + e);
+                }
+                writes.incrementAndGet();
+            }
+        });
+
+        long t0 = System.nanoTime();
+        stopAt.set(t0 + duration.toNanos());
+        gate.countDown();
+        for (Thread t : workers) t.join();
+        long elapsed = System.nanoTime() - t0;
+        if (writerThread != null) writerThread.join(TimeUnit.SECONDS.toMillis(30));
+
+        return new Result(scenario, threads, ops.sum(), writes.get(), violations.count(), violations.samples(),
+                Duration.ofNanos(elapsed));
+    }
+
+    private static void await(CountDownLatch gate) {
+        try {
+            gate.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.d2tactics.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** AIMD behaviour of one group's limit, with latencies fed in directly. */
+class AdaptiveLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(40);
+
+    @Test
+    void rejectsOverTheLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 8, 2.0);
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        limit.release(-1, false);
+        assertTrue(limit.tryAcquire());
+        assertEquals(2, limit.inFlight());
+    }
+
+    @Test
+    void slowUpstreamMissesAtLowLoadDoNotShrinkIt() throws InterruptedException {
+        AdaptiveLimit limit = new AdaptiveLimit(64, 8, 512, 2.0);
+        // one request at a time, alternating cache hits and upstream misses
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(i % 2 == 0 ? FAST : SLOW, i % 10 != 0);
+            if (i % 2 == 1) Thread.sleep(1);
+        }
+        assertEquals(64.0, limit.limit());
+    }
+
+    @Test
+    void slowOrFailingRequestsNearTheLimitShrinkIt() throws InterruptedException {
+        AdaptiveLimit limit = new AdaptiveLimit(16, 4, 64, 2.0);
+        for (int i = 0; i < 16; i++) assertTrue(limit.tryAcquire());
+        for (int i = 0; i < 20; i++) cycle(limit, FAST, true);
+        double before = limit.limit();
+        for (int i = 0; i < 20; i++) {
+            cycle(limit, SLOW * 4, i % 2 == 0);
+            Thread.sleep(2);
+        }
+        assertTrue(limit.limit() < before, "limit " + limit.limit() + " vs " + before);
+        assertTrue(limit.limit() >= 4);
+    }
+
+    @Test
+    void growsOnlyWhileItIsBeingUsed() {
+        AdaptiveLimit idle = new AdaptiveLimit(16, 4, 64, 2.0);
+        for (int i = 0; i < 100; i++) {
+            idle.tryAcquire();
+            idle.release(FAST, true);
+        }
+        assertEquals(16.0, idle.limit());
+
+        AdaptiveLimit busy = new AdaptiveLimit(16, 4, 64, 2.0);
+        for (int i = 0; i < 16; i++) busy.tryAcquire();
+        for (int i = 0; i < 100; i++) cycle(busy, FAST, true);
+        assertTrue(busy.limit() > 16.0);
+        assertTrue(busy.limit() <= 64.0);
+    }
+
+    /** One request finishes with {@code latency}, and the next one takes its slot if the limit allows. */
+    private static void cycle(AdaptiveLimit limit, long latency, boolean ok) {
+        limit.release(latency, ok);
+        limit.tryAcquire();
+    }
+}
@@ -0,0 +1,81 @@
+package com.d2tactics.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Per-group admission with a limit of one, against a chain whose requests finish on demand. */
+class AdmissionControlFilterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Sinks.Empty<Void> slow = Sinks.empty();
+    private final WebFilterChain upstream = exchange -> slow.asMono();
+    private final WebFilterChain instant = exchange -> Mono.empty();
+
+    private AdmissionControlFilter filter(boolean enabled) {
+        return new AdmissionControlFilter(registry, enabled, 1, 1, 1, 2.0, Duration.ofSeconds(3));
+    }
+
+    @Test
+    void overTheLimitIsTurnedAwayRightAwayWith503() {
+        AdmissionControlFilter filter = filter(true);
+        filter.filter(get("/opendota/heroes/axe/itemTimings"), upstream).subscribe();
+
+        MockServerWebExchange rejected = get("/opendota/heroes/lina/itemTimings");
+        filter.filter(rejected, instant).block(TIMEOUT);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getResponse().getStatusCode());
+        assertEquals("3", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        String body = rejected.getResponse().getBodyAsString().block(TIMEOUT);
+        assertTrue(body.contains("\"group\":\"timings\""), body);
+        assertEquals(1.0, registry.get("d2tactics.admission.rejected").tag("group", "timings").counter().count());
+
+        // once the first request finishes its slot is free again
+        slow.tryEmitEmpty();
+        MockServerWebExchange next = get("/opendota/heroes/lina/itemTimings");
+        filter.filter(next, instant).block(TIMEOUT);
+        assertNull(next.getResponse().getStatusCode());
+    }
+
+    @Test
+    void groupsAreLimitedSeparatelyAndOtherPathsNotAtAll() {
+        AdmissionControlFilter filter = filter(true);
+        filter.filter(get("/opendota/heroes/axe/itemTimings"), upstream).subscribe();
+
+        MockServerWebExchange variants = get("/opendota/heroes/axe/buildVariants");
+        filter.filter(variants, instant).block(TIMEOUT);
+        assertNull(variants.getResponse().getStatusCode());
+
+        MockServerWebExchange search = get("/opendota/heroes/search");
+        filter.filter(search, upstream).subscribe();
+        filter.filter(get("/opendota/heroes/search"), instant).block(TIMEOUT);
+        assertEquals(0.0, registry.get("d2tactics.admission.rejected").counters().stream()
+                .mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    void disabledAdmitsEverything() {
+        AdmissionControlFilter filter = filter(false);
+        filter.filter(get("/opendota/heroes/axe/itemTimings"), upstream).subscribe();
+        MockServerWebExchange second = get("/opendota/heroes/axe/itemTimings");
+        filter.filter(second, instant).block(TIMEOUT);
+        assertNull(second.getResponse().getStatusCode());
+    }
+
+    private static MockServerWebExchange get(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+}